@@ -0,0 +1,99 @@
+package com.example;
+
+import com.example.analytics.PriceRangeIndex;
+import com.example.api.BenchmarkFixtures;
+import com.example.api.PriceSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistiken i {@link Main} och {@link PriceRangeIndex} över en dag, en månad och fyra år med
+ * kvartspriser. Den nästlade loopen är den tidigare O(n·k)-versionen av laddningsfönstret, som jämförelse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+
+    @Param({"1", "31", "1461"})
+    int dagar;
+
+    @Param({"8", "32"})
+    int fönster;
+
+    PriceSeries serie;
+    PriceRangeIndex index;
+
+    @Setup
+    public void setup() {
+        serie = BenchmarkFixtures.serie(dagar, 96, BenchmarkFixtures.SEED);
+        index = PriceRangeIndex.of(serie);
+        // Bygg sparse tables i förväg så att bara frågorna mäts
+        index.minIndex(0, serie.size());
+        index.maxIndex(0, serie.size());
+    }
+
+    @Benchmark
+    public int max() {
+        return Main.getMaxPrice(serie);
+    }
+
+    @Benchmark
+    public int min() {
+        return Main.getMinPrice(serie);
+    }
+
+    @Benchmark
+    public double mean() {
+        return Main.getAveragePrice(serie);
+    }
+
+    @Benchmark
+    public PriceSeries chargingWindow() {
+        return Main.findOptimalChargingWindow(serie, fönster);
+    }
+
+    @Benchmark
+    public PriceRangeIndex rangeIndexBuild() {
+        return PriceRangeIndex.of(serie);
+    }
+
+    // Ett fönster på fönster perioder mitt i serien
+    @Benchmark
+    public double rangeIndexMinMaxMean() {
+        int from = (serie.size() - fönster) / 2;
+        int to = from + fönster;
+        return index.min(from, to) + index.max(from, to) + index.average(from, to);
+    }
+
+    @Benchmark
+    public int chargingWindowNestedLoop() {
+        double minSum = Double.MAX_VALUE;
+        int startIndex = 0;
+        for (int i = 0; i <= serie.size() - fönster; i++) {
+            double sum = 0;
+            for (int j = 0; j < fönster; j++) {
+                sum += serie.sekPerKWh(i + j);
+            }
+            if (sum < minSum) {
+                minSum = sum;
+                startIndex = i;
+            }
+        }
+        return startIndex;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.analytics;
+
+import com.example.Main;
+import com.example.api.BenchmarkFixtures;
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Laddningsfönster för en flotta på {@value #BILAR} bilar i fyra zoner över två dygn med
+ * kvartspriser. Resultatet är i förfrågningar per sekund: {@link FleetOptimizer} med delade
+ * fönstertabeller, sekventiellt och parallellt, jämfört med en sökning per bil.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FleetOptimizerBenchmark {
+
+    static final int BILAR = 10_000;
+
+    Map<ElpriserAPI.Prisklass, PriceSeries> perZon;
+    List<FleetOptimizer.ChargingRequest> förfrågningar;
+    FleetOptimizer optimizer;
+
+    @Setup
+    public void setup() {
+        perZon = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        for (ElpriserAPI.Prisklass zon : ElpriserAPI.Prisklass.values()) {
+            perZon.put(zon, BenchmarkFixtures.serie(2, 96, BenchmarkFixtures.SEED + zon.ordinal()));
+        }
+        Instant första = BenchmarkFixtures.FÖRSTA_DAGEN.atStartOfDay(perZon.get(ElpriserAPI.Prisklass.SE3).zone()).toInstant();
+        SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+        förfrågningar = new ArrayList<>(BILAR);
+        ElpriserAPI.Prisklass[] zoner = ElpriserAPI.Prisklass.values();
+        for (int bil = 0; bil < BILAR; bil++) {
+            // Ankomst på eftermiddagen eller kvällen, avfärd nästa morgon, 1-8 h laddning
+            Instant ankomst = första.plusSeconds(14 * 3600 + random.nextInt(8 * 3600));
+            Instant avfärd = första.plusSeconds(30 * 3600 + random.nextInt(3 * 3600));
+            förfrågningar.add(new FleetOptimizer.ChargingRequest("bil" + bil, zoner[bil % zoner.length],
+                    ankomst, avfärd, Duration.ofHours(1 + random.nextInt(8)), 11.0));
+        }
+        optimizer = FleetOptimizer.of(perZon);
+        // Bygg fönstertabellerna i förväg så att bara frågorna mäts
+        optimizer.optimize(förfrågningar);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BILAR)
+    public void fleetSequential(Blackhole bh) {
+        for (FleetOptimizer.ChargingRequest förfrågan : förfrågningar) {
+            bh.consume(optimizer.optimize(förfrågan));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BILAR)
+    public List<FleetOptimizer.ChargingResult> fleetParallel() {
+        return optimizer.optimize(förfrågningar);
+    }
+
+    // Inklusive att bygga tabellerna, som när en ny flotta optimeras mot nya priser
+    @Benchmark
+    @OperationsPerInvocation(BILAR)
+    public List<FleetOptimizer.ChargingResult> fleetParallelCold() {
+        return FleetOptimizer.of(perZon).optimize(förfrågningar);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BILAR)
+    public void scanPerVehicle(Blackhole bh) {
+        for (FleetOptimizer.ChargingRequest förfrågan : förfrågningar) {
+            PriceSeries serie = perZon.get(förfrågan.zone());
+            int från = serie.indexAtOrAfter(förfrågan.arrival().getEpochSecond());
+            int till = serie.indexAtOrAfter(förfrågan.departure().getEpochSecond());
+            int perioder = (int) (förfrågan.chargingTime().toMinutes() / 15);
+            bh.consume(Main.findOptimalChargingWindow(serie.slice(från, till), perioder));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducerbara testdata för benchmarks, genererade från ett fast frö utan nätverk.
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 20250904L;
+    public static final LocalDate FÖRSTA_DAGEN = LocalDate.of(2022, 1, 1);
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final DateTimeFormatter TIDSFORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @return Ett svar i samma format som elprisetjustnu.se för en dag med {@code perioder}
+     *         lika långa perioder (24 eller 96).
+     */
+    public static byte[] json(LocalDate datum, int perioder, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int minuter = 24 * 60 / perioder;
+        ZonedDateTime start = datum.atStartOfDay(STOCKHOLM);
+        StringBuilder sb = new StringBuilder(perioder * 130).append('[');
+        for (int i = 0; i < perioder; i++) {
+            double sek = pris(random);
+            double exr = 11.0 + random.nextInt(1000) / 10000.0;
+            ZonedDateTime timeStart = start.plusMinutes((long) i * minuter);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format(Locale.ROOT,
+                    "{\"SEK_per_kWh\":%.5f,\"EUR_per_kWh\":%.5f,\"EXR\":%.4f,\"time_start\":\"%s\",\"time_end\":\"%s\"}",
+                    sek, sek / exr, exr, TIDSFORMAT.format(timeStart), TIDSFORMAT.format(timeStart.plusMinutes(minuter))));
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return En sammanhängande serie över {@code dagar} dagar från {@link #FÖRSTA_DAGEN},
+     *         med {@code perioderPerDag} perioder per dag.
+     */
+    public static PriceSeries serie(int dagar, int perioderPerDag, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int n = dagar * perioderPerDag;
+        int intervall = 24 * 3600 / perioderPerDag;
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long första = FÖRSTA_DAGEN.atStartOfDay(STOCKHOLM).toEpochSecond();
+        for (int i = 0; i < n; i++) {
+            sek[i] = pris(random);
+            exr[i] = 11.0;
+            eur[i] = sek[i] / exr[i];
+            start[i] = första + (long) i * intervall;
+        }
+        return PriceSeries.of(sek, eur, exr, start, intervall, STOCKHOLM);
+    }
+
+    // Fem decimaler som i API:t, ibland negativt
+    private static double pris(SplittableRandom random) {
+        return Math.round((random.nextDouble() * 3.2 - 0.2) * 100_000) / 100_000.0;
+    }
+}
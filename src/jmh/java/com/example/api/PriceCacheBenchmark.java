@@ -0,0 +1,95 @@
+package com.example.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Träff i minnes-cachen med flera samtidiga trådar, dels direkt mot {@link PriceCache} och dels
+ * genom {@link ElpriserAPI#getPriceSeries(LocalDate, ElpriserAPI.Prisklass)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PriceCacheBenchmark {
+
+    private static final int DAGAR = 64;
+
+    PriceCache cache;
+    String[] nycklar;
+    ElpriserAPI api;
+    LocalDate[] datum;
+    Path cacheDir;
+
+    @State(Scope.Thread)
+    public static class Position {
+        int next;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        cache = new PriceCache(1024, Clock.systemUTC());
+        nycklar = new String[DAGAR];
+        datum = new LocalDate[DAGAR];
+        for (int i = 0; i < DAGAR; i++) {
+            datum[i] = BenchmarkFixtures.FÖRSTA_DAGEN.plusDays(i);
+            nycklar[i] = datum[i] + "_SE3";
+            cache.put(nycklar[i], PriceSeries.of(PriceJsonParser.parse(
+                    BenchmarkFixtures.json(datum[i], 96, BenchmarkFixtures.SEED + i))), Duration.ofDays(1));
+        }
+
+        cacheDir = Files.createTempDirectory("elpriser-jmh");
+        api = ElpriserAPI.builder().diskCacheDir(cacheDir).maxCachedDays(1024).build();
+        for (int i = 0; i < DAGAR; i++) {
+            ElpriserAPI.setMockResponseForDate(datum[i], new String(
+                    BenchmarkFixtures.json(datum[i], 96, BenchmarkFixtures.SEED + i), StandardCharsets.UTF_8));
+        }
+        for (LocalDate dag : datum) {
+            api.getPriceSeries(dag, ElpriserAPI.Prisklass.SE3);
+        }
+        ElpriserAPI.clearMockResponse();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var filer = Files.list(cacheDir)) {
+            for (Path fil : filer.toList()) {
+                Files.deleteIfExists(fil);
+            }
+        }
+        Files.deleteIfExists(cacheDir);
+    }
+
+    @Benchmark
+    public PriceSeries priceCacheGet(Position position) {
+        return cache.get(nycklar[position.next++ & (DAGAR - 1)]);
+    }
+
+    @Benchmark
+    public PriceSeries apiMemoryHit(Position position) {
+        return api.getPriceSeries(datum[position.next++ & (DAGAR - 1)], ElpriserAPI.Prisklass.SE3);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tolkning av ett dygns svar från API:t, med timpriser (24 rader) och kvartspriser (96 rader).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceJsonParserBenchmark {
+
+    @Param({"24", "96"})
+    int rader;
+
+    byte[] json;
+
+    @Setup
+    public void setup() {
+        json = BenchmarkFixtures.json(LocalDate.of(2025, 9, 4), rader, BenchmarkFixtures.SEED);
+    }
+
+    @Benchmark
+    public List<ElpriserAPI.Elpris> parse() {
+        return PriceJsonParser.parse(json);
+    }
+
+    @Benchmark
+    public PriceSeries parseToSeries() {
+        return PriceSeries.of(PriceJsonParser.parse(json));
+    }
+}
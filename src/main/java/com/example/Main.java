@@ -1,30 +1,73 @@
 package com.example;
 
+import com.example.analytics.FleetOptimizer;
+import com.example.analytics.PriceRanking;
+import com.example.analytics.ZoneComparison;
 import com.example.api.ElpriserAPI;
-
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import com.example.api.Prefetcher;
+import com.example.api.PriceResampler;
+import com.example.api.PriceSeries;
+import com.example.server.PriceServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Main {
+
+    private static final Pattern LADDNINGSTID = Pattern.compile("(?:(\\d+)h)?(?:(\\d+)m)?");
+
     public static void main(String[] args) {
-        ElpriserAPI elpriserAPI = new ElpriserAPI();
         Locale.setDefault(new Locale("sv","se"));
 
+        //All utskrift buffras och skrivs ut en gång på slutet
+        PriceRenderer ut = PriceRenderer.toStdout(valtFormat(args));
+        //Loggrader hamnar i samma buffert, eller på System.err för CSV och JSON-rader
+        ElpriserAPI.setLogOutput(ut::log);
+        try {
+            run(args, ut);
+        } finally {
+            ElpriserAPI.setLogOutput(null);
+            ut.flush();
+        }
+    }
+
+    private static void run(String[] args, PriceRenderer ut) {
+        ElpriserAPI elpriserAPI = new ElpriserAPI();
+
         String zone = null;
         String date = null;
         boolean sorted = false;
         String charging = null;
-
-        System.out.println("--Välkommen till Elpriskollen--");
+        String from = null;
+        String to = null;
+        int concurrency = 8;
+        boolean serve = false;
+        int port = 8080;
+        boolean compareZones = false;
+        String fleet = null;
+        int top = 0;
+        int bottom = 0;
+
+        ut.info("--Välkommen till Elpriskollen--");
 
         if (args.length == 0) {
-            System.out.println("Argument saknas.");
+            ut.error("Argument saknas.");
+            ut.flush();
             printHelp();
             return;
         }
@@ -36,7 +79,7 @@ public class Main {
                     if (i + 1 < args.length) {
                         zone = args[++i];
                     } else {
-                        System.out.println("Fel: --zone kräver en zon (SE1-SE4).");
+                        ut.error("Fel: --zone kräver en zon (SE1-SE4).");
                         return;
                     }
                     break;
@@ -44,7 +87,7 @@ public class Main {
                     if (i + 1 < args.length) {
                         date = args[++i];
                     } else {
-                        System.out.println("Fel: --date kräver ett datum (yyyy-MM-dd).");
+                        ut.error("Fel: --date kräver ett datum (yyyy-MM-dd).");
                         return;
                     }
                     break;
@@ -55,27 +98,142 @@ public class Main {
                     if (i + 1 < args.length) {
                         charging = args[++i];
                     } else {
-                        System.out.println("Fel: --charging kräver ett argument (2h, 4h eller 8h).");
+                        ut.error("Fel: --charging kräver ett argument (t.ex. 2h, 4h eller 8h).");
+                    }
+                    break;
+                case "--from":
+                    if (i + 1 < args.length) {
+                        from = args[++i];
+                    } else {
+                        ut.error("Fel: --from kräver ett datum (yyyy-MM-dd).");
+                        return;
+                    }
+                    break;
+                case "--to":
+                    if (i + 1 < args.length) {
+                        to = args[++i];
+                    } else {
+                        ut.error("Fel: --to kräver ett datum (yyyy-MM-dd).");
+                        return;
+                    }
+                    break;
+                case "--concurrency":
+                    try {
+                        concurrency = Integer.parseInt(args[++i]);
+                    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                        ut.error("Fel: --concurrency kräver ett heltal.");
+                        return;
+                    }
+                    break;
+                case "--serve":
+                    serve = true;
+                    break;
+                case "--port":
+                    try {
+                        port = Integer.parseInt(args[++i]);
+                    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                        ut.error("Fel: --port kräver ett portnummer.");
+                        return;
+                    }
+                    break;
+                case "--top":
+                case "--bottom":
+                    int antal;
+                    try {
+                        antal = Integer.parseInt(args[i + 1]);
+                    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                        antal = 0;
+                    }
+                    if (antal < 1) {
+                        ut.error("Fel: " + args[i] + " kräver ett positivt heltal.");
+                        return;
+                    }
+                    if (args[i++].equals("--top")) {
+                        top = antal;
+                    } else {
+                        bottom = antal;
+                    }
+                    break;
+                case "--compare-zones":
+                    compareZones = true;
+                    break;
+                case "--fleet":
+                    if (i + 1 < args.length) {
+                        fleet = args[++i];
+                    } else {
+                        ut.error("Fel: --fleet kräver en fil med laddningsförfrågningar.");
+                        return;
+                    }
+                    break;
+                case "--format":
+                    //Formatet är redan valt av valtFormat
+                    if (i + 1 < args.length && PriceRenderer.Format.parse(args[i + 1]) != null) {
+                        i++;
+                    } else {
+                        ut.error("Fel: --format kräver text, csv eller jsonl.");
+                        return;
                     }
                     break;
                 case "--help":
+                    ut.flush();
                     printHelp();
                     return;
                 default:
-                    System.out.println("Ogiltigt input: " + args[i]);
+                    ut.error("Ogiltigt input: " + args[i]);
                     return;
             }
         }
 
+        //Server, jämförelse och backfill skriver själva direkt till System.out
+        if (serve || compareZones || from != null || to != null) {
+            ut.flush();
+            ElpriserAPI.setLogOutput(null);
+        }
+
+        //Servern fortsätter köra efter att main returnerat, tills processen avslutas
+        if (serve) {
+            try {
+                PriceServer server = PriceServer.start(elpriserAPI, port);
+                //Morgondagens priser publiceras runt 13:00, hämta dem innan någon frågar
+                Prefetcher prefetcher = elpriserAPI.startPrefetch(LocalTime.of(13, 0));
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    prefetcher.close();
+                    server.stop(Duration.ofSeconds(1));
+                }));
+                System.out.println("Servern lyssnar på http://localhost:" + server.port() + "/api/prices?zone=SE3");
+            } catch (IOException e) {
+                System.out.println("Fel: Kunde inte starta servern: " + e.getMessage());
+            }
+            return;
+        }
+
+        //Laddningsfönster för en hel flotta, resultatet skrivs som CSV eller JSON-rader även med --format text
+        if (fleet != null) {
+            runFleet(elpriserAPI, Path.of(fleet), ut);
+            return;
+        }
+
+        //Jämförelse av alla zoner för --date eller --from/--to
+        if (compareZones) {
+            runCompareZones(elpriserAPI, from == null ? date : from, to);
+            return;
+        }
+
+        //Backfill av historik, --zone är valfritt och annars hämtas alla zoner
+        if (from != null || to != null) {
+            runBackfill(elpriserAPI, from, to, zone, concurrency);
+            return;
+        }
+
         //Validera zone
         List<String> validZones = Arrays.asList("SE1", "SE2", "SE3", "SE4");
 
         if (zone == null || !validZones.contains(zone.toUpperCase())) {
-            System.out.println("Ogiltig zone. Välj någon av följande: SE1, SE2, SE3, SE4");
+            ut.error("Ogiltig zone. Välj någon av följande: SE1, SE2, SE3, SE4");
             return;
         } else {
             zone = zone.toUpperCase();
-            System.out.println("Vald zon: " + zone);
+            ut.info("Vald zon: " + zone);
         }
 
         //Validera date
@@ -86,260 +244,440 @@ public class Main {
             //Om inget datum angetts, använd dagens
             parsedDate = LocalDate.now();
             date = parsedDate.format(formatter);
-            System.out.println("Inget datum angavs. Använder dagens datum. " + date);
+            ut.info("Inget datum angavs. Använder dagens datum. " + date);
         } else {
             try {
                 parsedDate = LocalDate.parse(date, formatter);
-                System.out.println("Valt datum: " + parsedDate);
+                ut.info("Valt datum: " + parsedDate);
             } catch (DateTimeParseException e) {
-                System.out.println("Ogiltigt datum, använd formatet (yyyy-MM-dd).");
+                ut.error("Ogiltigt datum, använd formatet (yyyy-MM-dd).");
                 return;
             }
         }
 
         LocalDate nextDay = parsedDate.plusDays(1);
-        String currentDateStr = parsedDate.format(formatter);
-        String nextDateStr = nextDay.format(formatter);
-
-        //Arraylist för dagens/morgondagens priser
-        List<ElpriserAPI.Elpris> elpriser = new ArrayList<>();
-
-        var priserDag1 = elpriserAPI.getPriser(currentDateStr,
-                ElpriserAPI.Prisklass.valueOf(zone));
-        var priserDag2 = elpriserAPI.getPriser(nextDateStr,
-                ElpriserAPI.Prisklass.valueOf(zone));
-
-        elpriser.addAll(priserDag1);
-        elpriser.addAll(priserDag2);
+        ElpriserAPI.Prisklass prisklass = ElpriserAPI.Prisklass.valueOf(zone);
 
+        //Dagens/morgondagens priser i en serie, båda dagarna hämtas parallellt
+        PriceSeries elpriser = elpriserAPI.getPriser(parsedDate, nextDay, EnumSet.of(prisklass)).get(prisklass);
 
         //Filtrera ut dagens priser
-        List<ElpriserAPI.Elpris> dagensPriser = elpriser.stream()
-                .filter(p -> p.timeStart().toLocalDate().equals(parsedDate)).toList();
-
-
-        if (!sorted) {
-            if (dagensPriser.size() == 96){
-                listWith96Values(dagensPriser);
-            } else {
-                try {
-                    validateElpriserList(dagensPriser);
+        PriceSeries dagensPriser = elpriser.forDate(parsedDate);
 
-                    //Anropar metoder för max/min,medelpris
-                    ElpriserAPI.Elpris maxPrice = getMaxPrice(dagensPriser);
-                    ElpriserAPI.Elpris minPrice = getMinPrice(dagensPriser);
-                    double averagePrice = getAveragePrice(dagensPriser);
 
-                    DateTimeFormatter hourFormatter = DateTimeFormatter.ofPattern("HH");
-                    String maxTime = maxPrice.timeStart().toLocalTime().format(hourFormatter) + "-"
-                            + maxPrice.timeEnd().toLocalTime().format(hourFormatter);
+        if (top > 0 || bottom > 0) {
+            //Dyraste/billigaste timmarna för dagens/morgondagens priser, utan att sortera allt
+            PriceSeries timpriser = elpriser.resample(PriceResampler.Resolution.HOUR);
+            if (top > 0) {
+                ut.info("Dyraste " + top + ":");
+                ut.prices(timpriser, PriceRanking.mostExpensive(timpriser, top), "top");
+            }
+            if (bottom > 0) {
+                ut.info("Billigaste " + bottom + ":");
+                ut.prices(timpriser, PriceRanking.cheapest(timpriser, bottom), "bottom");
+            }
+        } else if (!sorted) {
+            try {
+                validatePriceSeries(dagensPriser);
 
-                    String minTime = minPrice.timeStart().toLocalTime().format(hourFormatter) + "-"
-                            + minPrice.timeEnd().toLocalTime().format(hourFormatter);
+                //Högsta/lägsta pris redovisas per timme, även för dagar med kvartspriser
+                PriceSeries timpriser = dagensPriser.resample(PriceResampler.Resolution.HOUR);
 
-                    System.out.printf("Högsta pris: %s %05.2f öre\n", maxTime, maxPrice.sekPerKWh() * 100);
-                    System.out.printf("Lägsta pris: %s %05.2f öre\n", minTime, minPrice.sekPerKWh() * 100);
-                    System.out.printf("Medelpris: %05.2f öre\n", averagePrice * 100);
+                //Anropar metoder för max/min,medelpris
+                int maxPrice = getMaxPrice(timpriser);
+                int minPrice = getMinPrice(timpriser);
 
-                } catch (IllegalArgumentException e) {
-                    System.out.println("Ingen data hittades vid hämtning eller beräkning av elpriser");
-                    return;
+                //Dagar med kvartspriser redovisas i sitt eget format, med medelpriset över alla kvartar
+                if (periodSekunder(dagensPriser) == 900) {
+                    ut.quarterHourSummary(timpriser, maxPrice, minPrice, getAveragePrice(dagensPriser));
+                } else {
+                    ut.summary(timpriser, maxPrice, minPrice, getAveragePrice(timpriser));
                 }
+
+            } catch (IllegalArgumentException e) {
+                ut.error("Ingen data hittades vid hämtning eller beräkning av elpriser");
+                return;
             }
 
         } else {
-            //Skriver ut dagens/morgondagens priser
-            sortPrices(elpriser);
+            //Skriver ut dagens/morgondagens priser sorterade, med en rad per period
+            ut.prices(elpriser, PriceRanking.sortedDescending(elpriser), "price");
         }
 
         if (charging != null) {
-            if (!charging.equals("2h") && !charging.equals("4h") && !charging.equals("8h")) {
-                System.out.println("Fel: Ogiltig laddningstid. Använd 2h, 4h eller 8h.");
+            Duration laddningstid = parseLaddningstid(charging);
+            if (laddningstid == null) {
+                ut.error("Fel: Ogiltig laddningstid. Ange t.ex. 2h, 4h, 8h eller 90m.");
                 return;
             }
-            System.out.println("Vald laddningstid: " + charging);
-
-            int timmar = Integer.parseInt(charging.replace("h", ""));
+            ut.info("Vald laddningstid: " + charging);
+
+            //Utan --date letar vi från och med innevarande timme, annars från dygnets början
+            //Blandas timmar och kvartar, t.ex. runt en ändrad upplösning, räknas allt om till kvartar
+            PriceSeries sökbaraPriser = elpriser.intervalSeconds() == 0
+                    ? elpriser.resample(PriceResampler.Resolution.QUARTER_HOUR) : elpriser;
+            if (date == null) {
+                long nuvarandeTimme = ZonedDateTime.now(elpriser.zone()).truncatedTo(ChronoUnit.HOURS).toEpochSecond();
+                sökbaraPriser = sökbaraPriser.slice(sökbaraPriser.indexAtOrAfter(nuvarandeTimme), sökbaraPriser.size());
+            }
 
             try {
-                List<ElpriserAPI.Elpris> optimalChargingWindow = findOptimalChargingWindow(elpriser, timmar);
-
-                ElpriserAPI.Elpris forstaTimme = optimalChargingWindow.getFirst();
-
-                LocalDate startDatum = forstaTimme.timeStart().toLocalDate();
-                LocalTime startTime = forstaTimme.timeStart().toLocalTime();
-
-                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-                DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-                String datumStr = startDatum.format(dateFormatter);
-                String startTidStr = startTime.format(timeFormatter);
-
-                System.out.printf("Optimalt laddningsfönster: Påbörja laddning %s kl %s\n", datumStr, startTidStr);
-
-                double totalPrice = 0.0;
-
-                for (ElpriserAPI.Elpris elpris : optimalChargingWindow) {
-                    String datum = elpris.timeStart().toLocalDate().format(dateFormatter);
-                    String timeRange = elpris.timeStart().toLocalTime().format(timeFormatter) + "-" +
-                            elpris.timeEnd().toLocalTime().format(timeFormatter);
-                    double orepris = elpris.sekPerKWh() * 100;
-                    totalPrice += orepris;
-
-                    System.out.printf("%s %s: %.2f öre\n", datum, timeRange, orepris);
-
-                }
-                double averagePrice = totalPrice / timmar;
-                System.out.printf("Medelpris för fönster: %.2f öre\n", averagePrice);
-
+                int perioder = antalPerioder(laddningstid, periodSekunder(sökbaraPriser));
+                PriceSeries optimalChargingWindow = findOptimalChargingWindow(sökbaraPriser, perioder);
+                ut.chargingWindow(optimalChargingWindow);
             } catch (IllegalArgumentException e) {
-                System.out.println("Fel vid beräkning: " + e.getMessage());
+                ut.error("Fel vid beräkning: " + e.getMessage());
             }
         }
     }
     //Metoder
-    public static void validateElpriserList(List<ElpriserAPI.Elpris> elpriser) {
+    public static void validatePriceSeries(PriceSeries elpriser) {
         if (elpriser == null || elpriser.isEmpty()) {
             throw new IllegalArgumentException("Fel: Ingen tillgänglig data kunde hittas");
         }
     }
 
-    public static void sortPrices(List<ElpriserAPI.Elpris> elpriser) {
-        List<ElpriserAPI.Elpris> sorteradePriser = new ArrayList<>(elpriser);
-
-        sorteradePriser.sort(Comparator.comparingDouble(ElpriserAPI.Elpris::sekPerKWh).reversed());
-
-        DateTimeFormatter hourFormatter = DateTimeFormatter.ofPattern("HH");
-
-        for (ElpriserAPI.Elpris elpris : sorteradePriser) {
-            String timeRange = elpris.timeStart().toLocalTime().format(hourFormatter) + "-" +
-                    elpris.timeEnd().toLocalTime().format(hourFormatter);
-
-            double orepris = elpris.sekPerKWh() * 100.0;
-            DecimalFormatSymbols symbols = new DecimalFormatSymbols(new Locale("sv", "SE"));
-            DecimalFormat df = new DecimalFormat("0.00", symbols);
-
-            String formateratPris = df.format(orepris);
-            System.out.printf("%s %s öre\n", timeRange, formateratPris);
-
+    //--format gäller hela utskriften, även välkomsttexten, så det letas upp före övriga argument
+    private static PriceRenderer.Format valtFormat(String[] args) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--format") && PriceRenderer.Format.parse(args[i + 1]) != null) {
+                return PriceRenderer.Format.parse(args[i + 1]);
+            }
         }
+        return PriceRenderer.Format.TEXT;
     }
 
-    public static ElpriserAPI.Elpris getMaxPrice(List<ElpriserAPI.Elpris> elpriser){
-        ElpriserAPI.Elpris max = elpriser.getFirst();
-        for (ElpriserAPI.Elpris elpris : elpriser) {
-            if (elpris.sekPerKWh() > max.sekPerKWh()) {
-                max = elpris;
+    /**
+     * @return Index för det högsta priset, det tidigaste vid lika pris.
+     */
+    public static int getMaxPrice(PriceSeries elpriser){
+        int max = 0;
+        for (int i = 1; i < elpriser.size(); i++) {
+            if (elpriser.sekPerKWh(i) > elpriser.sekPerKWh(max)) {
+                max = i;
             }
         }
         return max;
     }
 
-    public static ElpriserAPI.Elpris getMinPrice(List<ElpriserAPI.Elpris> elpriser){
-        ElpriserAPI.Elpris min = elpriser.getFirst();
-        for (ElpriserAPI.Elpris elpris : elpriser){
-            if (elpris.sekPerKWh() < min.sekPerKWh()) {
-                min = elpris;
+    /**
+     * @return Index för det lägsta priset, det tidigaste vid lika pris.
+     */
+    public static int getMinPrice(PriceSeries elpriser){
+        int min = 0;
+        for (int i = 1; i < elpriser.size(); i++) {
+            if (elpriser.sekPerKWh(i) < elpriser.sekPerKWh(min)) {
+                min = i;
             }
         }
-        return min ;
+        return min;
     }
 
-    public static double getAveragePrice(List<ElpriserAPI.Elpris> elpriser) {
+    public static double getAveragePrice(PriceSeries elpriser) {
         double sum = 0.0;
-        for (ElpriserAPI.Elpris elpris : elpriser) {
-            sum += elpris.sekPerKWh();
+        for (int i = 0; i < elpriser.size(); i++) {
+            sum += elpriser.sekPerKWh(i);
         }
         return sum / elpriser.size();
     }
 
-    public static List<ElpriserAPI.Elpris> findOptimalChargingWindow(List<ElpriserAPI.Elpris> elpriser, int timmar) {
-        if (elpriser.size() < timmar) {
+    /**
+     * Tolkar en laddningstid som "2h", "90m" eller "1h30m".
+     * @return Laddningstiden, eller null om den är ogiltig eller inte positiv.
+     */
+    public static Duration parseLaddningstid(String laddningstid) {
+        Matcher matcher = LADDNINGSTID.matcher(laddningstid.trim().toLowerCase());
+        if (!matcher.matches() || (matcher.group(1) == null && matcher.group(2) == null)) {
+            return null;
+        }
+        try {
+            Duration tid = Duration.ZERO;
+            if (matcher.group(1) != null) {
+                tid = tid.plusHours(Long.parseLong(matcher.group(1)));
+            }
+            if (matcher.group(2) != null) {
+                tid = tid.plusMinutes(Long.parseLong(matcher.group(2)));
+            }
+            return tid.isZero() ? null : tid;
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Periodlängden i sekunder, 3600 om den inte går att avgöra.
+     */
+    public static long periodSekunder(PriceSeries elpriser) {
+        if (elpriser.intervalSeconds() > 0) {
+            return elpriser.intervalSeconds();
+        }
+        //Oregelbunden serie, t.ex. en sista timme med fel sluttid; använd första perioden
+        if (!elpriser.isEmpty() && elpriser.endEpochSecond(0) > elpriser.startEpochSecond(0)) {
+            return elpriser.endEpochSecond(0) - elpriser.startEpochSecond(0);
+        }
+        return 3600;
+    }
+
+    /**
+     * Räknar om en laddningstid till antal perioder, t.ex. 2h till 8 kvartar.
+     */
+    public static int antalPerioder(Duration laddningstid, long periodSekunder) {
+        long sekunder = laddningstid.toSeconds();
+        if (sekunder % periodSekunder != 0) {
+            throw new IllegalArgumentException("Laddningstiden måste vara en multipel av " + periodSekunder / 60 + " minuter");
+        }
+        long perioder = sekunder / periodSekunder;
+        if (perioder > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Laddningstiden är för lång");
+        }
+        return (int) perioder;
+    }
+
+    /**
+     * Hittar det billigaste sammanhängande fönstret om {@code perioder} perioder med en löpande
+     * summa, O(n) oavsett fönstrets längd. Vid lika summa vinner det tidigaste fönstret.
+     * För många frågor mot samma serie (summa, medel, min och max över godtyckliga intervall,
+     * eller kostnad för en viss effekt) finns {@link com.example.analytics.PriceRangeIndex}.
+     */
+    public static PriceSeries findOptimalChargingWindow(PriceSeries elpriser, int perioder) {
+        if (perioder < 1) {
+            throw new IllegalArgumentException("Laddningsfönstret måste omfatta minst en period");
+        }
+        if (elpriser.size() < perioder) {
             throw new IllegalArgumentException("Hittade inte tillräckligt många timmar för att skapa laddningsfönstret");
         }
-        double mySum = Double.MAX_VALUE;
+        double sum = 0.0;
+        for (int i = 0; i < perioder; i++) {
+            sum += elpriser.sekPerKWh(i);
+        }
+        double minSum = sum;
         int startIndex = 0;
 
-        for (int i = 0; i <= elpriser.size() - timmar ; i++) {
-            double sum = 0;
-            for (int j = 0; j < timmar; j++){
-                sum += elpriser.get(i + j).sekPerKWh();
-            }
-            if (sum < mySum){
-                mySum = sum;
-                startIndex = i;
+        //Den löpande summan samlar avrundningsfel, så ett senare fönster måste vara
+        //märkbart billigare för att slå ett tidigare med samma pris
+        double epsilon = 1e-9 * perioder;
+        for (int i = perioder; i < elpriser.size(); i++) {
+            sum += elpriser.sekPerKWh(i) - elpriser.sekPerKWh(i - perioder);
+            if (sum < minSum - epsilon) {
+                minSum = sum;
+                startIndex = i - perioder + 1;
             }
         }
-        return elpriser.subList(startIndex, startIndex + timmar);
+        return elpriser.slice(startIndex, startIndex + perioder);
     }
 
-    public static void listWith96Values(List<ElpriserAPI.Elpris> dagensPriser) {
+    public static void runBackfill(ElpriserAPI elpriserAPI, String from, String to, String zone, int concurrency) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from == null ? to : from);
+            toDate = LocalDate.parse(to == null ? from : to);
+        } catch (DateTimeParseException e) {
+            System.out.println("Ogiltigt datum, använd formatet (yyyy-MM-dd).");
+            return;
+        }
+        if (toDate.isBefore(fromDate)) {
+            System.out.println("Fel: --to kan inte vara före --from.");
+            return;
+        }
+        if (concurrency < 1) {
+            System.out.println("Fel: --concurrency måste vara minst 1.");
+            return;
+        }
 
-        List<Elpris> elpriser = new ArrayList<>();
+        Set<ElpriserAPI.Prisklass> zones;
+        if (zone == null) {
+            zones = EnumSet.allOf(ElpriserAPI.Prisklass.class);
+        } else {
+            try {
+                zones = EnumSet.of(ElpriserAPI.Prisklass.valueOf(zone.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ogiltig zone. Välj någon av följande: SE1, SE2, SE3, SE4");
+                return;
+            }
+        }
 
-        for (int i = 0; i < 24; i++) {
-            int startIndex = i * 4;
-            int endIndex = startIndex + 4;
+        System.out.println("Hämtar historik " + fromDate + " till " + toDate + " för " + zones);
 
-            double sumPrice = 0.0;
+        //Skriv ut lägesrapport ungefär var tionde procent
+        ElpriserAPI.BackfillRapport rapport = elpriserAPI.backfill(fromDate, toDate, zones, concurrency, progress -> {
+            int step = Math.max(1, progress.totalt() / 10);
+            if (progress.klara() % step == 0 || progress.klara() == progress.totalt()) {
+                System.out.printf("Backfill: %d/%d dagar, %d rader, %.0f rader/s\n",
+                        progress.klara(), progress.totalt(), progress.rader(), progress.raderPerSekund());
+            }
+        });
 
-            ZonedDateTime timeStart = dagensPriser.get(startIndex).timeStart();
-            ZonedDateTime timeEnd = dagensPriser.get(endIndex - 1).timeEnd();
+        System.out.printf("Backfill klar på %.1f s: %d hämtade, %d fanns redan i cache, %d utan data, %d misslyckade\n",
+                rapport.tid().toMillis() / 1000.0, rapport.hämtade(), rapport.hoppadeÖver(),
+                rapport.utanData(), rapport.misslyckade());
+        System.out.printf("%d rader, %.0f rader/s\n", rapport.rader(), rapport.raderPerSekund());
+    }
 
-            for (int j = startIndex; j < endIndex; j++) {
-                sumPrice += dagensPriser.get(j).sekPerKWh();
+    /**
+     * Läser laddningsförfrågningar, en per rad: {@code id,zon,ankomst,avfärd,laddning[,kW]}.
+     * Tiderna anges som {@code 2025-09-04T18:00} i svensk tid eller med offset, laddningen som
+     * en laddningstid (t.ex. 4h eller 90m) eller en energimängd (t.ex. 30kWh, kräver kW).
+     * Utan kW räknas kostnaden per kW. Tomma rader, kommentarer (#) och en rubrikrad hoppas över.
+     * Resultatet skrivs som JSON-rader med {@code --format jsonl}, annars som CSV.
+     */
+    public static void runFleet(ElpriserAPI elpriserAPI, Path fil, PriceRenderer ut) {
+        List<FleetOptimizer.ChargingRequest> förfrågningar = new ArrayList<>();
+        try {
+            int radnummer = 0;
+            for (String rad : Files.readAllLines(fil)) {
+                radnummer++;
+                rad = rad.strip();
+                if (rad.isEmpty() || rad.startsWith("#") || (radnummer == 1 && rad.startsWith("id,"))) {
+                    continue;
+                }
+                try {
+                    förfrågningar.add(parseChargingRequest(rad));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    ut.error("Fel: Rad " + radnummer + " i " + fil + ": " + e.getMessage());
+                    return;
+                }
             }
-            double averagePrice = sumPrice / 4;
-
-            Elpris elprisHour = new Elpris(averagePrice, timeStart, timeEnd);
-            elpriser.add(elprisHour);
+        } catch (IOException e) {
+            ut.error("Fel: Kunde inte läsa " + fil + ": " + e.getMessage());
+            return;
+        }
+        if (förfrågningar.isEmpty()) {
+            ut.error("Inga laddningsförfrågningar i " + fil);
+            return;
         }
 
-        Elpris minPriceHour = elpriser.get(0);
-        Elpris maxPriceHour = elpriser.get(0);
+        //Hämta alla berörda zoner för hela perioden på en gång
+        Set<ElpriserAPI.Prisklass> zoner = EnumSet.noneOf(ElpriserAPI.Prisklass.class);
+        LocalDate fromDate = LocalDate.MAX;
+        LocalDate toDate = LocalDate.MIN;
+        ZoneId stockholm = ZoneId.of("Europe/Stockholm");
+        for (FleetOptimizer.ChargingRequest förfrågan : förfrågningar) {
+            zoner.add(förfrågan.zone());
+            LocalDate ankomst = förfrågan.arrival().atZone(stockholm).toLocalDate();
+            LocalDate avfärd = förfrågan.departure().atZone(stockholm).toLocalDate();
+            fromDate = ankomst.isBefore(fromDate) ? ankomst : fromDate;
+            toDate = avfärd.isAfter(toDate) ? avfärd : toDate;
+        }
+        if (toDate.isBefore(fromDate)) {
+            toDate = fromDate;
+        }
+        FleetOptimizer optimizer = FleetOptimizer.of(elpriserAPI.getPriser(fromDate, toDate, zoner));
+        List<FleetOptimizer.ChargingResult> resultat = optimizer.optimize(förfrågningar);
 
-        for (Elpris elpris : elpriser) {
-            if (elpris.sekPerKWh() < minPriceHour.sekPerKWh()) {
-                minPriceHour = elpris;
-            }
-            if (elpris.sekPerKWh() > maxPriceHour.sekPerKWh()) {
-                maxPriceHour = elpris;
+        try {
+            if (ut.format() == PriceRenderer.Format.JSONL) {
+                for (FleetOptimizer.ChargingResult r : resultat) {
+                    FleetOptimizer.writeJsonLine(r, ut.sink());
+                }
+            } else {
+                FleetOptimizer.writeCsvHeader(ut.sink());
+                for (FleetOptimizer.ChargingResult r : resultat) {
+                    FleetOptimizer.writeCsv(r, ut.sink());
+                }
             }
+        } catch (IOException e) {
+            ut.error("Fel: Kunde inte skriva resultatet: " + e.getMessage());
         }
+    }
 
-        double totalSum = 0;
-        for (ElpriserAPI.Elpris kvartalPris : dagensPriser) {
-            totalSum += kvartalPris.sekPerKWh();
+    /**
+     * Tolkar en rad {@code id,zon,ankomst,avfärd,laddning[,kW]}, se {@link #runFleet}.
+     */
+    public static FleetOptimizer.ChargingRequest parseChargingRequest(String rad) {
+        String[] fält = rad.split(",", -1);
+        if (fält.length != 5 && fält.length != 6) {
+            throw new IllegalArgumentException("Förväntade id,zon,ankomst,avfärd,laddning[,kW]");
+        }
+        String id = fält[0].strip();
+        ElpriserAPI.Prisklass zon = ElpriserAPI.Prisklass.valueOf(fält[1].strip().toUpperCase());
+        Instant ankomst = parseTidpunkt(fält[2].strip());
+        Instant avfärd = parseTidpunkt(fält[3].strip());
+        String laddning = fält[4].strip().toLowerCase();
+        Double kilowatt = fält.length == 6 ? Double.valueOf(fält[5].strip()) : null;
+        if (laddning.endsWith("kwh")) {
+            if (kilowatt == null) {
+                throw new IllegalArgumentException("En energimängd kräver en laddeffekt i kW");
+            }
+            double kilowattimmar = Double.parseDouble(laddning.substring(0, laddning.length() - 3));
+            return FleetOptimizer.ChargingRequest.ofEnergy(id, zon, ankomst, avfärd, kilowattimmar, kilowatt);
         }
-        double medelPris = totalSum / dagensPriser.size();
+        Duration laddningstid = parseLaddningstid(laddning);
+        if (laddningstid == null) {
+            throw new IllegalArgumentException("Ogiltig laddning: " + fält[4].strip());
+        }
+        return new FleetOptimizer.ChargingRequest(id, zon, ankomst, avfärd, laddningstid, kilowatt == null ? 1.0 : kilowatt);
+    }
 
-        //Formatera pris till öre (multiplicera med 100 och visa 2 decimaler)
-        String formatOreMin = String.format(Locale.forLanguageTag("sv-SE"), "%.2f", minPriceHour.sekPerKWh() * 100);
-        String formatOreMax = String.format(Locale.forLanguageTag("sv-SE"), "%.2f", maxPriceHour.sekPerKWh() * 100);
-        String formatOreMedel = String.format(Locale.forLanguageTag("sv-SE"), "%.2f", medelPris * 100);
+    private static Instant parseTidpunkt(String tid) {
+        try {
+            return OffsetDateTime.parse(tid).toInstant();
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(tid).atZone(ZoneId.of("Europe/Stockholm")).toInstant();
+        }
+    }
 
-        //Formatera timmar till 00-01
-        String formatHourRangeMin = String.format("%02d-%02d", minPriceHour.timeStart().getHour(), minPriceHour.timeEnd().getHour());
-        String formatHourRangeMax = String.format("%02d-%02d", maxPriceHour.timeStart().getHour(), maxPriceHour.timeEnd().getHour());
+    public static void runCompareZones(ElpriserAPI elpriserAPI, String from, String to) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = from == null ? LocalDate.now() : LocalDate.parse(from);
+            toDate = to == null ? fromDate : LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            System.out.println("Ogiltigt datum, använd formatet (yyyy-MM-dd).");
+            return;
+        }
+        if (toDate.isBefore(fromDate)) {
+            System.out.println("Fel: --to kan inte vara före --from.");
+            return;
+        }
 
+        Map<ElpriserAPI.Prisklass, PriceSeries> perZon =
+                elpriserAPI.getPriser(fromDate, toDate, EnumSet.allOf(ElpriserAPI.Prisklass.class));
+        ZoneComparison jämförelse = ZoneComparison.of(perZon);
+        if (jämförelse.size() == 0) {
+            System.out.println("Ingen data hittades för alla zoner " + fromDate + " till " + toDate);
+            return;
+        }
 
-        System.out.printf("Högsta pris: %s, Pris: %s öre/kWh\n", formatHourRangeMax, formatOreMax);
-        System.out.printf("Lägsta pris: %s, Pris: %s öre/kWh\n", formatHourRangeMin, formatOreMin);
-        System.out.printf("Medelpris: %s öre/kWh\n", formatOreMedel);
+        System.out.println("Jämförelse av zoner " + fromDate + " till " + toDate + " (" + jämförelse.size() + " perioder), öre/kWh");
+        System.out.println("Zon   Medel    Min    Max    P10 Median    P90 Volatilitet/dag");
+        for (ZoneComparison.ZoneStats zon : jämförelse.zoneStats()) {
+            System.out.printf("%-4s %6.2f %6.2f %6.2f %6.2f %6.2f %6.2f %6.2f\n", zon.zone(),
+                    zon.mean() * 100, zon.min() * 100, zon.max() * 100,
+                    zon.p10() * 100, zon.median() * 100, zon.p90() * 100, zon.dailyVolatility() * 100);
+        }
+        System.out.println("Par       Korrelation  Medelskillnad  Största skillnad");
+        for (ZoneComparison.ZonePair par : jämförelse.pairs()) {
+            System.out.printf("%s-%s   %11.3f %14.2f %17.2f\n", par.a(), par.b(),
+                    par.correlation(), par.meanDifference() * 100, par.maxAbsDifference() * 100);
+        }
 
+        int störst = jämförelse.maxSpreadPeriod();
+        DateTimeFormatter tidFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        System.out.printf("Största skillnad: %s %.2f öre (%s billigast, %s dyrast)\n",
+                jämförelse.start(störst).atZone(ZoneId.of("Europe/Stockholm")).format(tidFormat),
+                jämförelse.spread(störst) * 100, jämförelse.cheapestZone(störst), jämförelse.mostExpensiveZone(störst));
+        System.out.printf("Perioder med minst 10 öre skillnad: %d av %d\n",
+                jämförelse.arbitragePeriods(0.10), jämförelse.size());
     }
-    
+
     public static void printHelp() {
         System.out.println("--Användning/usage av Elpriser API--");
         System.out.println("--zone SE1|SE2|SE3|SE4 (Nödvändig)");
         System.out.println("--date YYYY-MM-DD (Valfritt, dagens datum anges som standard)");
         System.out.println("--sorted (Valfritt, visar en sorterad prislista)");
-        System.out.println("--charging 2h|4h|8h (Valfritt, hittar optimala laddningsfönstret)");
+        System.out.println("--top N|--bottom N (Valfritt, visar de N dyraste respektive billigaste timmarna)");
+        System.out.println("--charging 2h|4h|8h|Nh|Nm (Valfritt, hittar optimala laddningsfönstret, från innevarande timme om --date saknas)");
+        System.out.println("--from YYYY-MM-DD --to YYYY-MM-DD (Valfritt, hämtar historik till cachen, alla zoner om --zone saknas)");
+        System.out.println("--concurrency N (Valfritt, antal samtidiga hämtningar vid --from/--to, standard 8)");
+        System.out.println("--serve [--port N] (Valfritt, startar en HTTP-server med /api/prices, /api/stats och /api/charging, standardport 8080, förhämtar morgondagens priser från 13:00)");
+        System.out.println("--compare-zones (Valfritt, jämför SE1-SE4 för --date eller --from/--to)");
+        System.out.println("--fleet FIL (Valfritt, laddningsfönster för många fordon, en rad per fordon: id,zon,ankomst,avfärd,4h|30kWh[,kW])");
+        System.out.println("--format text|csv|jsonl (Valfritt, utskrift som text, CSV eller JSON-rader, standard text; CSV för --fleet)");
         System.out.println("--help Valfritt, visar denna hjälpinformation");
     }
 
-    public record Elpris (double sekPerKWh, ZonedDateTime timeStart, ZonedDateTime timeEnd) {}
-
 }
 
 
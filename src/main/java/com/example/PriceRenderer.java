@@ -0,0 +1,456 @@
+package com.example;
+
+import com.example.api.PriceSeries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+/**
+ * Utskriften från {@link Main}: priser, högsta/lägsta/medelpris och laddningsfönster som svensk
+ * text, CSV eller JSON-rader.
+ * <p>
+ * Allt skrivs till en buffrad ström som töms först med {@link #flush()}. Raderna byggs i en
+ * återanvänd {@link StringBuilder} och tider och örespriser formateras direkt från seriens
+ * primitiva kolumner, utan {@link java.util.Formatter}, {@link DecimalFormat} eller
+ * {@link java.time.ZonedDateTime} per rad.
+ * <p>
+ * Textformatet är byte för byte detsamma som de tidigare {@code printf}-anropen. Därför avrundas
+ * örespriser på två sätt: sammanfattningen och laddningsfönstret som {@code %.2f}, alltså uppåt
+ * vid en halva i den kortaste decimalformen, och prislistorna som {@code DecimalFormat("0.00")},
+ * alltså mot jämnt på det exakta binära värdet och med svenskt minustecken.
+ * <p>
+ * I CSV och JSON-rader skrivs bara data. Informationsrader hoppas över och felmeddelanden och
+ * loggrader går till {@code System.err}. Loggrader kan komma från andra trådar, så alla
+ * utskrifter synkroniseras.
+ */
+public final class PriceRenderer {
+
+    public enum Format {
+        TEXT, CSV, JSONL;
+
+        /**
+         * @return Formatet för {@code text}, {@code csv} eller {@code jsonl}, annars null.
+         */
+        public static Format parse(String namn) {
+            return switch (namn) {
+                case "text" -> TEXT;
+                case "csv" -> CSV;
+                case "jsonl" -> JSONL;
+                default -> null;
+            };
+        }
+    }
+
+    private static final Locale SVENSKA = Locale.forLanguageTag("sv-SE");
+
+    private final Format format;
+    private final Writer ut;
+    private final StringBuilder rad = new StringBuilder(128);
+    private final char minustecken;
+    // Bara för NaN och oändligheter, som inte kan formateras direkt
+    private final DecimalFormat decimalFormat;
+    private boolean rubrikSkriven;
+
+    // Tidszonens offset gäller i [offsetFrån, offsetTill), så att den bara slås upp vid övergångar
+    private ZoneId offsetZon;
+    private long offsetFrån;
+    private long offsetTill;
+    private int offsetSekunder;
+
+    public PriceRenderer(OutputStream ut, Charset charset, Format format) {
+        this.format = format;
+        this.ut = new BufferedWriter(new OutputStreamWriter(ut, charset), 1 << 16);
+        DecimalFormatSymbols symboler = new DecimalFormatSymbols(SVENSKA);
+        this.minustecken = symboler.getMinusSign();
+        this.decimalFormat = new DecimalFormat("0.00", symboler);
+    }
+
+    /**
+     * En renderare för {@code System.out} med dess teckenkodning.
+     */
+    public static PriceRenderer toStdout(Format format) {
+        return new PriceRenderer(System.out, System.out.charset(), format);
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    /**
+     * Strömmen som resultatet skrivs till, för egna rader som t.ex. flottans resultat.
+     */
+    public Appendable sink() {
+        return ut;
+    }
+
+    /**
+     * En informationsrad, skrivs bara i textformat.
+     */
+    public synchronized void info(String text) {
+        if (format == Format.TEXT) {
+            skriv(text);
+        }
+    }
+
+    /**
+     * Ett felmeddelande: i textformat som en vanlig rad, annars till {@code System.err}.
+     */
+    public synchronized void error(String text) {
+        if (format == Format.TEXT) {
+            skriv(text);
+        } else {
+            System.err.println(text);
+        }
+    }
+
+    /**
+     * En loggrad, t.ex. från {@link com.example.api.ElpriserAPI#setLogOutput}: i textformat i tur
+     * och ordning med resten av utskriften, annars till {@code System.err}.
+     */
+    public void log(String text) {
+        error(text);
+    }
+
+    /**
+     * Högsta, lägsta och medelpris för en dag.
+     * @param max Index för perioden med högst pris.
+     * @param min Index för perioden med lägst pris.
+     * @param medelpris Medelpriset i SEK/kWh.
+     */
+    public synchronized void summary(PriceSeries serie, int max, int min, double medelpris) {
+        if (format == Format.TEXT) {
+            rad.setLength(0);
+            rad.append("Högsta pris: ");
+            timintervall(serie, max);
+            rad.append(' ');
+            öreSomPrintf(serie.sekPerKWh(max) * 100, 5);
+            rad.append(" öre\n");
+            rad.append("Lägsta pris: ");
+            timintervall(serie, min);
+            rad.append(' ');
+            öreSomPrintf(serie.sekPerKWh(min) * 100, 5);
+            rad.append(" öre\n");
+            rad.append("Medelpris: ");
+            öreSomPrintf(medelpris * 100, 5);
+            rad.append(" öre\n");
+            skrivRad();
+            return;
+        }
+        dataRad("max", serie, serie.startEpochSecond(max), serie.endEpochSecond(max), serie.sekPerKWh(max));
+        dataRad("min", serie, serie.startEpochSecond(min), serie.endEpochSecond(min), serie.sekPerKWh(min));
+        dataRad("mean", serie, serie.startEpochSecond(0), serie.endEpochSecond(serie.size() - 1), medelpris);
+    }
+
+    /**
+     * Högsta, lägsta och medelpris för en dag med kvartspriser, i den text som alltid använts för
+     * sådana dagar: {@code Högsta pris: HH-HH, Pris: X öre/kWh}. I CSV och JSON-rader som
+     * {@link #summary}.
+     * @param timpriser Dagens priser per timme.
+     * @param max Index i {@code timpriser} för timmen med högst medelpris.
+     * @param min Index i {@code timpriser} för timmen med lägst medelpris.
+     * @param medelpris Medelpriset över alla kvartar i SEK/kWh.
+     */
+    public synchronized void quarterHourSummary(PriceSeries timpriser, int max, int min, double medelpris) {
+        if (format != Format.TEXT) {
+            summary(timpriser, max, min, medelpris);
+            return;
+        }
+        rad.setLength(0);
+        rad.append("Högsta pris: ");
+        timintervall(timpriser, max);
+        rad.append(", Pris: ");
+        öreSomPrintf(timpriser.sekPerKWh(max) * 100, 0);
+        rad.append(" öre/kWh\n");
+        rad.append("Lägsta pris: ");
+        timintervall(timpriser, min);
+        rad.append(", Pris: ");
+        öreSomPrintf(timpriser.sekPerKWh(min) * 100, 0);
+        rad.append(" öre/kWh\n");
+        rad.append("Medelpris: ");
+        öreSomPrintf(medelpris * 100, 0);
+        rad.append(" öre/kWh\n");
+        skrivRad();
+    }
+
+    /**
+     * Perioderna i den givna ordningen, som text {@code HH-HH pris öre}.
+     * @param typ Radtyp i CSV och JSON-rader, t.ex. {@code price}, {@code top} eller {@code bottom}.
+     */
+    public synchronized void prices(PriceSeries serie, int[] ordning, String typ) {
+        for (int i : ordning) {
+            if (format == Format.TEXT) {
+                rad.setLength(0);
+                timintervall(serie, i);
+                rad.append(' ');
+                öreSomDecimalFormat(serie.sekPerKWh(i) * 100.0);
+                rad.append(" öre\n");
+                skrivRad();
+            } else {
+                dataRad(typ, serie, serie.startEpochSecond(i), serie.endEpochSecond(i), serie.sekPerKWh(i));
+            }
+        }
+    }
+
+    /**
+     * Ett laddningsfönster: starttid, varje period och medelpriset.
+     */
+    public synchronized void chargingWindow(PriceSeries fönster) {
+        if (format != Format.TEXT) {
+            double summa = 0.0;
+            for (int i = 0; i < fönster.size(); i++) {
+                dataRad("charging", fönster, fönster.startEpochSecond(i), fönster.endEpochSecond(i), fönster.sekPerKWh(i));
+                summa += fönster.sekPerKWh(i);
+            }
+            dataRad("charging_mean", fönster, fönster.startEpochSecond(0),
+                    fönster.endEpochSecond(fönster.size() - 1), summa / fönster.size());
+            return;
+        }
+        rad.setLength(0);
+        rad.append("Optimalt laddningsfönster: Påbörja laddning ");
+        long start = lokal(fönster, fönster.startEpochSecond(0));
+        datum(start);
+        rad.append(" kl ");
+        klockslag(start);
+        rad.append('\n');
+        skrivRad();
+
+        double totalPrice = 0.0;
+        for (int i = 0; i < fönster.size(); i++) {
+            rad.setLength(0);
+            long periodStart = lokal(fönster, fönster.startEpochSecond(i));
+            datum(periodStart);
+            rad.append(' ');
+            klockslag(periodStart);
+            rad.append('-');
+            klockslag(lokal(fönster, fönster.endEpochSecond(i)));
+            rad.append(": ");
+            double orepris = fönster.sekPerKWh(i) * 100;
+            totalPrice += orepris;
+            öreSomPrintf(orepris, 0);
+            rad.append(" öre\n");
+            skrivRad();
+        }
+        rad.setLength(0);
+        rad.append("Medelpris för fönster: ");
+        öreSomPrintf(totalPrice / fönster.size(), 0);
+        rad.append(" öre\n");
+        skrivRad();
+    }
+
+    public synchronized void flush() {
+        try {
+            ut.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void dataRad(String typ, PriceSeries serie, long start, long slut, double sekPerKWh) {
+        rad.setLength(0);
+        if (format == Format.CSV) {
+            if (!rubrikSkriven) {
+                rad.append("kind,start,end,sek_per_kwh\n");
+                rubrikSkriven = true;
+            }
+            rad.append(typ).append(',');
+            isoTid(serie, start);
+            rad.append(',');
+            isoTid(serie, slut);
+            rad.append(',');
+            decimaler(sekPerKWh, 5);
+            rad.append('\n');
+        } else {
+            rad.append("{\"kind\":\"").append(typ).append("\",\"start\":\"");
+            isoTid(serie, start);
+            rad.append("\",\"end\":\"");
+            isoTid(serie, slut);
+            rad.append("\",\"sekPerKWh\":");
+            decimaler(sekPerKWh, 5);
+            rad.append("}\n");
+        }
+        skrivRad();
+    }
+
+    private void skriv(String text) {
+        rad.setLength(0);
+        rad.append(text).append('\n');
+        skrivRad();
+    }
+
+    private void skrivRad() {
+        try {
+            ut.append(rad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // "HH-HH" för periodens start och slut
+    private void timintervall(PriceSeries serie, int i) {
+        tvåSiffror(Math.floorMod(lokal(serie, serie.startEpochSecond(i)), 86_400) / 3600);
+        rad.append('-');
+        tvåSiffror(Math.floorMod(lokal(serie, serie.endEpochSecond(i)), 86_400) / 3600);
+    }
+
+    // "HH:mm" för en lokal tid i sekunder
+    private void klockslag(long lokalSekund) {
+        int sekundIDygnet = Math.floorMod(lokalSekund, 86_400);
+        tvåSiffror(sekundIDygnet / 3600);
+        rad.append(':');
+        tvåSiffror(sekundIDygnet / 60 % 60);
+    }
+
+    // "yyyy-MM-dd" för en lokal tid i sekunder, enligt den proleptiska gregorianska kalendern
+    private void datum(long lokalSekund) {
+        long z = Math.floorDiv(lokalSekund, 86_400) + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dagIEran = z - era * 146_097;
+        long årIEran = (dagIEran - dagIEran / 1460 + dagIEran / 36_524 - dagIEran / 146_096) / 365;
+        long dagIÅret = dagIEran - (365 * årIEran + årIEran / 4 - årIEran / 100);
+        long mp = (5 * dagIÅret + 2) / 153;
+        int dag = (int) (dagIÅret - (153 * mp + 2) / 5 + 1);
+        int månad = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long år = årIEran + era * 400 + (månad <= 2 ? 1 : 0);
+        if (år >= 0 && år < 1000) {
+            rad.append(år < 10 ? "000" : år < 100 ? "00" : "0");
+        }
+        rad.append(år).append('-');
+        tvåSiffror(månad);
+        rad.append('-');
+        tvåSiffror(dag);
+    }
+
+    // ISO 8601 med offset, t.ex. 2025-09-04T00:00:00+02:00
+    private void isoTid(PriceSeries serie, long epochSecond) {
+        long lokalSekund = lokal(serie, epochSecond);
+        datum(lokalSekund);
+        rad.append('T');
+        klockslag(lokalSekund);
+        rad.append(':');
+        tvåSiffror(Math.floorMod(lokalSekund, 60));
+        if (offsetSekunder == 0) {
+            rad.append('Z');
+            return;
+        }
+        int offset = Math.abs(offsetSekunder);
+        rad.append(offsetSekunder < 0 ? '-' : '+');
+        tvåSiffror(offset / 3600);
+        rad.append(':');
+        tvåSiffror(offset / 60 % 60);
+    }
+
+    private void tvåSiffror(int värde) {
+        if (värde < 10) {
+            rad.append('0');
+        }
+        rad.append(värde);
+    }
+
+    // Lokal tid i sekunder sedan epoken i seriens tidszon; sätter offsetSekunder
+    private long lokal(PriceSeries serie, long epochSecond) {
+        ZoneId zon = serie.zone();
+        if (!zon.equals(offsetZon) || epochSecond < offsetFrån || epochSecond >= offsetTill) {
+            ZoneRules regler = zon.getRules();
+            Instant tid = Instant.ofEpochSecond(epochSecond);
+            ZoneOffsetTransition föregående = regler.previousTransition(tid.plusSeconds(1));
+            ZoneOffsetTransition nästa = regler.nextTransition(tid);
+            offsetZon = zon;
+            offsetSekunder = regler.getOffset(tid).getTotalSeconds();
+            offsetFrån = föregående == null ? Long.MIN_VALUE : föregående.toEpochSecond();
+            offsetTill = nästa == null ? Long.MAX_VALUE : nästa.toEpochSecond();
+        }
+        return epochSecond + offsetSekunder;
+    }
+
+    // Som String.format("%0{bredd}.2f") med svenskt decimaltecken; bredd 0 ger ingen utfyllnad
+    private void öreSomPrintf(double öre, int bredd) {
+        if (!Double.isFinite(öre)) {
+            rad.append(String.format(SVENSKA, bredd > 0 ? "%" + bredd + ".2f" : "%.2f", öre));
+            return;
+        }
+        tvåDecimaler(öre, false, '-', bredd);
+    }
+
+    // Som new DecimalFormat("0.00", svenska symboler).format(öre)
+    private void öreSomDecimalFormat(double öre) {
+        if (!Double.isFinite(öre)) {
+            rad.append(decimalFormat.format(öre));
+            return;
+        }
+        tvåDecimaler(öre, true, minustecken, 0);
+    }
+
+    private void tvåDecimaler(double värde, boolean motJämnt, char minus, int bredd) {
+        long hundradelar = hundradelar(Math.abs(värde), motJämnt);
+        int början = rad.length();
+        if (Math.copySign(1.0, värde) < 0) {
+            rad.append(minus);
+        }
+        int siffrorFrån = rad.length();
+        rad.append(hundradelar / 100).append(',');
+        tvåSiffror((int) (hundradelar % 100));
+        while (rad.length() - början < bredd) {
+            rad.insert(siffrorFrån, '0');
+        }
+    }
+
+    /**
+     * Avrundar ett icke-negativt värde till hundradelar.
+     * <p>
+     * Sidan om närmaste halva avgörs exakt med {@link Math#fma}, eftersom produkten
+     * {@code värde * 100} själv är avrundad. Ligger det exakta värdet på en halva avgör
+     * {@code motJämnt}. Utan {@code motJämnt} avrundas dessutom uppåt när den kortaste
+     * decimalformen av värdet är halvan själv, som i {@code %.2f}: 0,125 blir 0,13 trots att
+     * det binära värdet ligger strax under.
+     */
+    static long hundradelar(double värde, boolean motJämnt) {
+        double golv = Math.floor(värde * 100);
+        double halva = golv + 0.5;
+        if (!motJämnt && halva / 100 == värde) {
+            return (long) golv + 1;
+        }
+        double rest = Math.fma(värde, 100, -halva);
+        if (rest > 0) {
+            return (long) golv + 1;
+        }
+        if (rest < 0) {
+            return (long) golv;
+        }
+        long nedåt = (long) golv;
+        return motJämnt && nedåt % 2 == 0 ? nedåt : nedåt + 1;
+    }
+
+    // Fast antal decimaler med punkt, för CSV och JSON
+    private void decimaler(double värde, int antal) {
+        if (!Double.isFinite(värde)) {
+            rad.append(format == Format.JSONL ? "null" : "");
+            return;
+        }
+        long skala = 1;
+        for (int i = 0; i < antal; i++) {
+            skala *= 10;
+        }
+        long skalat = Math.round(Math.abs(värde) * skala);
+        if (värde < 0 && skalat != 0) {
+            rad.append('-');
+        }
+        rad.append(skalat / skala).append('.');
+        int bråkFrån = rad.length();
+        rad.append(skalat % skala);
+        while (rad.length() - bråkFrån < antal) {
+            rad.insert(bråkFrån, '0');
+        }
+    }
+}
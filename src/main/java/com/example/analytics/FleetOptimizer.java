@@ -0,0 +1,334 @@
+package com.example.analytics;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceResampler;
+import com.example.api.PriceSeries;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Billigaste sammanhängande laddningsfönster för många fordon på en gång, t.ex. en hel flotta
+ * som ska vara laddad till morgonen.
+ * <p>
+ * I stället för att söka igenom serien en gång per bil, som
+ * {@link com.example.Main#findOptimalChargingWindow(PriceSeries, int)}, beräknas fönstersummorna
+ * en gång per zon och fönsterlängd tillsammans med en sparse table över dem. Varje förfrågan
+ * blir sedan en minimumfråga i O(1) över de starttider som ryms mellan ankomst och avfärd.
+ * Tabellerna byggs första gången en längd efterfrågas och delas av alla trådar; förfrågningarna
+ * fördelas över kärnorna med en parallell ström.
+ * <p>
+ * Vid lika summa vinner det tidigaste fönstret. Summor som skiljer sig mindre än
+ * {@code findOptimalChargingWindow}s tolerans för avrundningsfel räknas som lika, men en sådan
+ * jämförelse är inte transitiv: ligger flera fönster inom toleransen från varandra kan tabellen
+ * välja ett annat av dem än den linjära sökningen. Summan skiljer sig då högst med toleransen.
+ * <p>
+ * Saknas perioder i serien, t.ex. en dag som inte kunde hämtas, används bara fönster som
+ * ligger helt på ena sidan om luckan.
+ * <p>
+ * Tiderna i CSV och JSON-rader skrivs i svensk tid med offset, som i {@code --format csv}.
+ */
+public final class FleetOptimizer {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    /**
+     * En laddningsförfrågan. Laddningen sker med jämn effekt i ett sammanhängande fönster som
+     * börjar tidigast vid ankomst och slutar senast vid avfärd.
+     *
+     * @param id Fordonets id, upprepas i resultatet.
+     * @param chargingTime Laddningstid, avrundas uppåt till hela perioder.
+     * @param kilowatt Laddeffekt i kW, används för kostnaden.
+     */
+    public record ChargingRequest(String id, ElpriserAPI.Prisklass zone, Instant arrival, Instant departure,
+                                  Duration chargingTime, double kilowatt) {
+
+        /**
+         * En förfrågan angiven som energi, t.ex. 30 kWh med 11 kW.
+         */
+        public static ChargingRequest ofEnergy(String id, ElpriserAPI.Prisklass zone, Instant arrival,
+                                               Instant departure, double kilowattHours, double kilowatt) {
+            if (!(kilowattHours > 0) || !(kilowatt > 0)) {
+                throw new IllegalArgumentException("Energi och effekt måste vara positiva");
+            }
+            long sekunder = (long) Math.ceil(kilowattHours / kilowatt * 3600);
+            return new ChargingRequest(id, zone, arrival, departure, Duration.ofSeconds(sekunder), kilowatt);
+        }
+    }
+
+    /**
+     * Resultatet för en förfrågan.
+     *
+     * @param start Fönstrets start, null om inget fönster fanns.
+     * @param end Fönstrets slut, null om inget fönster fanns.
+     * @param averagePrice Medelpris i SEK/kWh över fönstrets perioder.
+     * @param cost Kostnad i SEK med förfrågans effekt.
+     * @param error Orsak om inget fönster fanns, annars null.
+     */
+    public record ChargingResult(String id, ElpriserAPI.Prisklass zone, Instant start, Instant end,
+                                 int periods, double averagePrice, double cost, String error) {
+
+        public boolean ok() {
+            return error == null;
+        }
+
+        static ChargingResult fel(ChargingRequest request, String orsak) {
+            return new ChargingResult(request.id(), request.zone(), null, null, 0, Double.NaN, Double.NaN, orsak);
+        }
+    }
+
+    private final Map<ElpriserAPI.Prisklass, Zon> zoner;
+    private final ForkJoinPool pool;
+
+    private FleetOptimizer(Map<ElpriserAPI.Prisklass, Zon> zoner, ForkJoinPool pool) {
+        this.zoner = zoner;
+        this.pool = pool;
+    }
+
+    /**
+     * Optimerar i den gemensamma fork/join-poolen.
+     */
+    public static FleetOptimizer of(Map<ElpriserAPI.Prisklass, PriceSeries> perZon) {
+        return of(perZon, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Optimerar i en egen pool, t.ex. med begränsad parallellism. Serier som blandar timmar och
+     * kvartar räknas om till kvartar.
+     */
+    public static FleetOptimizer of(Map<ElpriserAPI.Prisklass, PriceSeries> perZon, ForkJoinPool pool) {
+        Map<ElpriserAPI.Prisklass, Zon> zoner = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        perZon.forEach((zon, serie) -> {
+            if (!serie.isEmpty()) {
+                zoner.put(zon, new Zon(serie.intervalSeconds() > 0
+                        ? serie : serie.resample(PriceResampler.Resolution.QUARTER_HOUR)));
+            }
+        });
+        return new FleetOptimizer(zoner, pool);
+    }
+
+    /**
+     * Besvarar alla förfrågningar parallellt.
+     * @return Ett resultat per förfrågan, i samma ordning.
+     */
+    public List<ChargingResult> optimize(List<ChargingRequest> requests) {
+        return pool.submit(() -> requests.parallelStream().map(this::optimize).toList()).join();
+    }
+
+    /**
+     * Besvarar en förfrågan, O(1) när tabellen för fönsterlängden redan finns.
+     */
+    public ChargingResult optimize(ChargingRequest request) {
+        Zon zon = zoner.get(request.zone());
+        if (zon == null) {
+            return ChargingResult.fel(request, "Inga priser för " + request.zone());
+        }
+        long sekunder = request.chargingTime().toSeconds();
+        if (sekunder <= 0) {
+            return ChargingResult.fel(request, "Laddningstiden måste vara positiv");
+        }
+        long perioder = (sekunder + zon.periodSekunder - 1) / zon.periodSekunder;
+        PriceSeries serie = zon.serie;
+        int första = serie.indexAtOrAfter(request.arrival().getEpochSecond());
+        int slut = serie.indexAtOrAfter(request.departure().getEpochSecond());
+        while (slut > första && serie.endEpochSecond(slut - 1) > request.departure().getEpochSecond()) {
+            slut--;
+        }
+        if (slut - första < perioder) {
+            return ChargingResult.fel(request, "Hittade inte tillräckligt många perioder för laddningsfönstret");
+        }
+        int längd = (int) perioder;
+        WindowTable fönster = zon.fönster(längd);
+        int start = fönster.billigaste(första, slut - längd + 1);
+        if (Double.isInfinite(fönster.summor[start])) {
+            return ChargingResult.fel(request, "Hittade inget sammanhängande laddningsfönster");
+        }
+        double medel = fönster.summor[start] / längd;
+        double timmar = zon.periodSekunder * längd / 3600.0;
+        return new ChargingResult(request.id(), request.zone(), Instant.ofEpochSecond(serie.startEpochSecond(start)),
+                Instant.ofEpochSecond(serie.endEpochSecond(start + längd - 1)), längd, medel,
+                medel * timmar * request.kilowatt(), null);
+    }
+
+    /**
+     * Skriver rubrikraden för {@link #writeCsv(ChargingResult, Appendable)}.
+     */
+    public static void writeCsvHeader(Appendable ut) throws IOException {
+        ut.append("id,zone,start,end,periods,average_sek_per_kwh,cost_sek,error\n");
+    }
+
+    /**
+     * Skriver ett resultat som en CSV-rad med punkt som decimaltecken.
+     */
+    public static void writeCsv(ChargingResult resultat, Appendable ut) throws IOException {
+        ut.append(csv(resultat.id())).append(',').append(resultat.zone().name()).append(',')
+                .append(resultat.ok() ? tid(resultat.start()) : "").append(',')
+                .append(resultat.ok() ? tid(resultat.end()) : "").append(',')
+                .append(Integer.toString(resultat.periods())).append(',')
+                .append(resultat.ok() ? decimaler(resultat.averagePrice(), 5) : "").append(',')
+                .append(resultat.ok() ? decimaler(resultat.cost(), 4) : "").append(',')
+                .append(resultat.ok() ? "" : csv(resultat.error())).append('\n');
+    }
+
+    /**
+     * Skriver ett resultat som en rad JSON.
+     */
+    public static void writeJsonLine(ChargingResult resultat, Appendable ut) throws IOException {
+        ut.append("{\"id\":").append(json(resultat.id()))
+                .append(",\"zone\":\"").append(resultat.zone().name()).append('"');
+        if (resultat.ok()) {
+            ut.append(",\"start\":\"").append(tid(resultat.start()))
+                    .append("\",\"end\":\"").append(tid(resultat.end()))
+                    .append("\",\"periods\":").append(Integer.toString(resultat.periods()))
+                    .append(",\"averageSekPerKWh\":").append(decimaler(resultat.averagePrice(), 5))
+                    .append(",\"costSek\":").append(decimaler(resultat.cost(), 4));
+        } else {
+            ut.append(",\"error\":").append(json(resultat.error()));
+        }
+        ut.append("}\n");
+    }
+
+    // ISO 8601 i svensk tid med offset, t.ex. 2025-09-04T21:00:00+02:00
+    private static String tid(Instant tidpunkt) {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(tidpunkt.atZone(STOCKHOLM));
+    }
+
+    // Fast antal decimaler med punkt, utan Formatter per rad
+    static String decimaler(double värde, int antal) {
+        long skala = 1;
+        for (int i = 0; i < antal; i++) {
+            skala *= 10;
+        }
+        long skalat = Math.round(Math.abs(värde) * skala);
+        StringBuilder sb = new StringBuilder(24);
+        if (värde < 0 && skalat != 0) {
+            sb.append('-');
+        }
+        sb.append(skalat / skala).append('.');
+        String bråk = Long.toString(skalat % skala);
+        for (int i = bråk.length(); i < antal; i++) {
+            sb.append('0');
+        }
+        return sb.append(bråk).toString();
+    }
+
+    private static String csv(String värde) {
+        if (värde.indexOf(',') < 0 && värde.indexOf('"') < 0 && värde.indexOf('\n') < 0) {
+            return värde;
+        }
+        return '"' + värde.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String värde) {
+        StringBuilder sb = new StringBuilder(värde.length() + 2).append('"');
+        for (int i = 0; i < värde.length(); i++) {
+            char c = värde.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // En zons serie och fönstertabellerna per längd
+    private static final class Zon {
+        final PriceSeries serie;
+        final double[] priser;
+        final long periodSekunder;
+        // luckor[i] är antalet glapp mellan perioderna 0..i, så [a, b] är sammanhängande
+        // om luckor[a] == luckor[b]
+        final int[] luckor;
+        final Map<Integer, WindowTable> perLängd = new ConcurrentHashMap<>();
+
+        Zon(PriceSeries serie) {
+            this.serie = serie;
+            this.priser = serie.sekPerKWhArray();
+            this.periodSekunder = serie.intervalSeconds();
+            this.luckor = new int[serie.size()];
+            for (int i = 1; i < luckor.length; i++) {
+                luckor[i] = luckor[i - 1] + (serie.endEpochSecond(i - 1) != serie.startEpochSecond(i) ? 1 : 0);
+            }
+        }
+
+        WindowTable fönster(int längd) {
+            return perLängd.computeIfAbsent(längd, l -> new WindowTable(priser, luckor, l));
+        }
+    }
+
+    // Summan för varje fönster av en viss längd och en sparse table för billigaste start.
+    // Fönster över ett glapp får summan +oändligheten och väljs bara om inget annat finns.
+    private static final class WindowTable {
+        final double[] summor;
+        final double epsilon;
+        // tabell[k][i] är bästa start i [i, i + 2^k)
+        final int[][] tabell;
+
+        WindowTable(double[] priser, int[] luckor, int längd) {
+            int n = priser.length - längd + 1;
+            summor = new double[n];
+            // Löpande summa som i findOptimalChargingWindow, så att avrundningen blir densamma
+            double summa = 0.0;
+            for (int i = 0; i < längd; i++) {
+                summa += priser[i];
+            }
+            summor[0] = summa;
+            for (int i = längd; i < priser.length; i++) {
+                summa += priser[i] - priser[i - längd];
+                summor[i - längd + 1] = summa;
+            }
+            for (int i = 0; i < n; i++) {
+                if (luckor[i + längd - 1] != luckor[i]) {
+                    summor[i] = Double.POSITIVE_INFINITY;
+                }
+            }
+            epsilon = 1e-9 * längd;
+
+            int nivåer = 32 - Integer.numberOfLeadingZeros(n);
+            tabell = new int[nivåer][];
+            tabell[0] = new int[n];
+            for (int i = 0; i < n; i++) {
+                tabell[0][i] = i;
+            }
+            for (int k = 1; k < nivåer; k++) {
+                int halva = 1 << (k - 1);
+                int[] föregående = tabell[k - 1];
+                int[] nivå = new int[n - (1 << k) + 1];
+                for (int i = 0; i < nivå.length; i++) {
+                    nivå[i] = bäst(föregående[i], föregående[i + halva]);
+                }
+                tabell[k] = nivå;
+            }
+        }
+
+        // a är alltid tidigare än b, så a vinner om b inte är märkbart billigare
+        private int bäst(int a, int b) {
+            return summor[b] < summor[a] - epsilon ? b : a;
+        }
+
+        // Billigaste start i [from, to)
+        int billigaste(int from, int to) {
+            int k = 31 - Integer.numberOfLeadingZeros(to - from);
+            int a = tabell[k][from];
+            int b = tabell[k][to - (1 << k)];
+            return a <= b ? bäst(a, b) : bäst(b, a);
+        }
+    }
+}
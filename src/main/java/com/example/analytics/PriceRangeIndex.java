@@ -0,0 +1,233 @@
+package com.example.analytics;
+
+import com.example.api.PriceSeries;
+
+import java.time.Instant;
+
+/**
+ * Intervallfrågor över en {@link PriceSeries}: summa och medel i O(1) via prefixsummor, och
+ * lägsta/högsta pris i O(1) via sparse tables som byggs första gången de behövs.
+ * <p>
+ * Alla index-intervall är halvöppna, {@code [from, to)}, och gäller seriens perioder oavsett
+ * om de är timmar eller kvartar. Vid lika pris returneras alltid den tidigaste perioden.
+ * Instansen är oföränderlig efter att den byggts och kan delas mellan trådar.
+ */
+public final class PriceRangeIndex {
+
+    private final PriceSeries serie;
+    private final double[] priser;
+    // prefix[i] = summan av priser[0..i)
+    private final double[] prefix;
+    // kostnadsPrefix[i] = summan av pris * timmar för perioderna [0..i), för energikostnad
+    private final double[] kostnadsPrefix;
+    // luckor[i] = antalet glapp mellan perioderna 0..i, så [a, b] är sammanhängande om luckor[a] == luckor[b]
+    private final int[] luckor;
+
+    private volatile int[][] minTabell;
+    private volatile int[][] maxTabell;
+
+    private PriceRangeIndex(PriceSeries serie) {
+        this.serie = serie;
+        this.priser = serie.sekPerKWhArray();
+        int n = priser.length;
+        this.prefix = new double[n + 1];
+        this.kostnadsPrefix = new double[n + 1];
+        this.luckor = new int[n];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + priser[i];
+            double timmar = (serie.endEpochSecond(i) - serie.startEpochSecond(i)) / 3600.0;
+            kostnadsPrefix[i + 1] = kostnadsPrefix[i] + priser[i] * timmar;
+            if (i > 0) {
+                luckor[i] = luckor[i - 1] + (serie.endEpochSecond(i - 1) != serie.startEpochSecond(i) ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * Bygger prefixsummorna, O(n).
+     */
+    public static PriceRangeIndex of(PriceSeries serie) {
+        return new PriceRangeIndex(serie);
+    }
+
+    public PriceSeries series() {
+        return serie;
+    }
+
+    public int size() {
+        return priser.length;
+    }
+
+    /**
+     * @return Summan av SEK-priserna för perioderna {@code [from, to)}.
+     */
+    public double sum(int from, int to) {
+        kontrollera(from, to);
+        return prefix[to] - prefix[from];
+    }
+
+    /**
+     * @return Medelpriset för perioderna {@code [from, to)}.
+     */
+    public double average(int from, int to) {
+        kontrolleraIckeTomt(from, to);
+        return sum(from, to) / (to - from);
+    }
+
+    /**
+     * @return Index för den tidigaste perioden med lägst pris i {@code [from, to)}.
+     */
+    public int minIndex(int from, int to) {
+        kontrolleraIckeTomt(from, to);
+        int[][] tabell = minTabell;
+        if (tabell == null) {
+            tabell = minTabell = byggTabell(true);
+        }
+        return fråga(tabell, from, to, true);
+    }
+
+    /**
+     * @return Index för den tidigaste perioden med högst pris i {@code [from, to)}.
+     */
+    public int maxIndex(int from, int to) {
+        kontrolleraIckeTomt(from, to);
+        int[][] tabell = maxTabell;
+        if (tabell == null) {
+            tabell = maxTabell = byggTabell(false);
+        }
+        return fråga(tabell, from, to, false);
+    }
+
+    public double min(int from, int to) {
+        return priser[minIndex(from, to)];
+    }
+
+    public double max(int from, int to) {
+        return priser[maxIndex(from, to)];
+    }
+
+    /**
+     * @return Index för perioden som innehåller tidpunkten, eller -1 om ingen gör det.
+     */
+    public int indexAt(Instant tidpunkt) {
+        long sekund = tidpunkt.getEpochSecond();
+        int i = serie.indexAtOrAfter(sekund + 1) - 1;
+        return i >= 0 && sekund < serie.endEpochSecond(i) ? i : -1;
+    }
+
+    /**
+     * Kostnaden för en jämn effekt under ett tidsintervall, t.ex. en bastu på 3,5 kW mellan
+     * 18:15 och 20:45. Perioder som bara delvis ligger inom intervallet räknas proportionellt.
+     *
+     * @param från Start (inklusive).
+     * @param till Slut (exklusive).
+     * @param kilowatt Effekten i kW.
+     * @return Kostnaden i SEK.
+     * @throws IllegalArgumentException Om serien inte täcker hela intervallet.
+     */
+    public double cost(Instant från, Instant till, double kilowatt) {
+        if (!till.isAfter(från)) {
+            return 0.0;
+        }
+        int första = indexAt(från);
+        int sista = indexAt(till.minusNanos(1));
+        if (första < 0 || sista < 0 || luckor[första] != luckor[sista]) {
+            throw new IllegalArgumentException("Serien täcker inte " + från + " - " + till);
+        }
+        double startSekund = från.getEpochSecond() + från.getNano() / 1e9;
+        double slutSekund = till.getEpochSecond() + till.getNano() / 1e9;
+        double kostnad;
+        if (första == sista) {
+            kostnad = priser[första] * (slutSekund - startSekund) / 3600.0;
+        } else {
+            // Hela perioder däremellan via prefixsummor, delar av första och sista perioden separat
+            kostnad = kostnadsPrefix[sista] - kostnadsPrefix[första + 1]
+                    + priser[första] * (serie.endEpochSecond(första) - startSekund) / 3600.0
+                    + priser[sista] * (slutSekund - serie.startEpochSecond(sista)) / 3600.0;
+        }
+        return kostnad * kilowatt;
+    }
+
+    /**
+     * @return Det billigaste sammanhängande fönstret om {@code perioder} perioder i hela serien.
+     */
+    public PriceSeries cheapestWindow(int perioder) {
+        return cheapestWindow(0, priser.length, perioder);
+    }
+
+    /**
+     * Det billigaste sammanhängande fönstret om {@code perioder} perioder som ryms i
+     * {@code [from, to)}, O(to - from). Vid lika summa vinner det tidigaste fönstret.
+     */
+    public PriceSeries cheapestWindow(int from, int to, int perioder) {
+        kontrollera(from, to);
+        if (perioder < 1) {
+            throw new IllegalArgumentException("Fönstret måste omfatta minst en period");
+        }
+        if (to - from < perioder) {
+            throw new IllegalArgumentException("Hittade inte tillräckligt många perioder för fönstret");
+        }
+        int bästa = from;
+        double minSum = prefix[from + perioder] - prefix[from];
+        // Prefixsummorna har avrundningsfel, så ett senare fönster måste vara märkbart billigare
+        double epsilon = 1e-9 * perioder;
+        for (int i = from + 1; i <= to - perioder; i++) {
+            double summa = prefix[i + perioder] - prefix[i];
+            if (summa < minSum - epsilon) {
+                minSum = summa;
+                bästa = i;
+            }
+        }
+        return serie.slice(bästa, bästa + perioder);
+    }
+
+    // Sparse table: tabell[k][i] är index för bästa perioden i [i, i + 2^k)
+    private int[][] byggTabell(boolean minsta) {
+        int n = priser.length;
+        int nivåer = 32 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+        int[][] tabell = new int[nivåer][];
+        tabell[0] = new int[n];
+        for (int i = 0; i < n; i++) {
+            tabell[0][i] = i;
+        }
+        for (int k = 1; k < nivåer; k++) {
+            int halva = 1 << (k - 1);
+            int längd = n - (1 << k) + 1;
+            int[] föregående = tabell[k - 1];
+            int[] nivå = new int[längd];
+            for (int i = 0; i < längd; i++) {
+                nivå[i] = bäst(föregående[i], föregående[i + halva], minsta);
+            }
+            tabell[k] = nivå;
+        }
+        return tabell;
+    }
+
+    private int fråga(int[][] tabell, int from, int to, boolean minsta) {
+        int k = 31 - Integer.numberOfLeadingZeros(to - from);
+        return bäst(tabell[k][from], tabell[k][to - (1 << k)], minsta);
+    }
+
+    // Lika pris ger det lägsta indexet, oavsett ordning på argumenten
+    private int bäst(int a, int b, boolean minsta) {
+        double pa = priser[a];
+        double pb = priser[b];
+        if (pa == pb) {
+            return Math.min(a, b);
+        }
+        return (minsta ? pa < pb : pa > pb) ? a : b;
+    }
+
+    private void kontrollera(int from, int to) {
+        if (from < 0 || to > priser.length || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") för serie med " + priser.length + " perioder");
+        }
+    }
+
+    private void kontrolleraIckeTomt(int from, int to) {
+        kontrollera(from, to);
+        if (from == to) {
+            throw new IllegalArgumentException("Intervallet är tomt");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.analytics;
+
+import com.example.api.PriceSeries;
+
+import java.util.Arrays;
+
+/**
+ * Rangordning av en {@link PriceSeries} utan boxning: de K billigaste eller dyraste perioderna
+ * via en begränsad heap i O(n log K), och en fullständig sortering via en stabil mergesort över
+ * primitiva index.
+ * <p>
+ * Alla metoder returnerar index i serien. Vid lika pris kommer den tidigaste perioden först,
+ * både i urvalet och i ordningen.
+ */
+public final class PriceRanking {
+
+    private PriceRanking() {
+    }
+
+    /**
+     * @return Index för de högst {@code k} billigaste perioderna, billigast först.
+     */
+    public static int[] cheapest(PriceSeries serie, int k) {
+        return minsta(serie.sekPerKWhArray(), k);
+    }
+
+    /**
+     * @return Index för de högst {@code k} dyraste perioderna, dyrast först.
+     */
+    public static int[] mostExpensive(PriceSeries serie, int k) {
+        return minsta(negerade(serie.sekPerKWhArray()), k);
+    }
+
+    /**
+     * @return Index för alla perioder, dyrast först. Sorteringen är stabil, så perioder med
+     *         samma pris behåller tidsordningen.
+     */
+    public static int[] sortedDescending(PriceSeries serie) {
+        int[] index = new int[serie.size()];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = i;
+        }
+        mergesort(index, negerade(serie.sekPerKWhArray()));
+        return index;
+    }
+
+    // Index för de k minsta nycklarna. Heapen har den sämsta kvarvarande perioden i roten: högst
+    // nyckel och, vid lika, senast. Eftersom perioderna gås igenom i tidsordning kan en senare
+    // period med samma nyckel aldrig tränga ut en tidigare.
+    static int[] minsta(double[] nyckel, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("K kan inte vara negativt");
+        }
+        int n = Math.min(k, nyckel.length);
+        int[] heap = new int[n];
+        if (n == 0) {
+            return heap;
+        }
+        for (int i = 0; i < n; i++) {
+            heap[i] = i;
+        }
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(heap, n, i, nyckel);
+        }
+        for (int i = n; i < nyckel.length; i++) {
+            if (nyckel[i] < nyckel[heap[0]]) {
+                heap[0] = i;
+                siftDown(heap, n, 0, nyckel);
+            }
+        }
+        // Tidsordning först så att den stabila sorteringen ger tidigast först vid lika nyckel
+        Arrays.sort(heap);
+        mergesort(heap, nyckel);
+        return heap;
+    }
+
+    private static boolean sämre(int a, int b, double[] nyckel) {
+        return nyckel[a] > nyckel[b] || (nyckel[a] == nyckel[b] && a > b);
+    }
+
+    private static void siftDown(int[] heap, int storlek, int i, double[] nyckel) {
+        while (true) {
+            int vänster = 2 * i + 1;
+            if (vänster >= storlek) {
+                return;
+            }
+            int störst = vänster;
+            int höger = vänster + 1;
+            if (höger < storlek && sämre(heap[höger], heap[vänster], nyckel)) {
+                störst = höger;
+            }
+            if (!sämre(heap[störst], heap[i], nyckel)) {
+                return;
+            }
+            int tmp = heap[i];
+            heap[i] = heap[störst];
+            heap[störst] = tmp;
+            i = störst;
+        }
+    }
+
+    // Stabil mergesort av index efter stigande nyckel, nedifrån och upp med en hjälparray
+    static void mergesort(int[] index, double[] nyckel) {
+        int n = index.length;
+        int[] från = index;
+        int[] till = new int[n];
+        for (int bredd = 1; bredd < n; bredd *= 2) {
+            for (int vänster = 0; vänster < n; vänster += 2 * bredd) {
+                int mitt = Math.min(vänster + bredd, n);
+                int slut = Math.min(vänster + 2 * bredd, n);
+                int i = vänster;
+                int j = mitt;
+                int pos = vänster;
+                while (i < mitt && j < slut) {
+                    till[pos++] = nyckel[från[j]] < nyckel[från[i]] ? från[j++] : från[i++];
+                }
+                while (i < mitt) {
+                    till[pos++] = från[i++];
+                }
+                while (j < slut) {
+                    till[pos++] = från[j++];
+                }
+            }
+            int[] tmp = från;
+            från = till;
+            till = tmp;
+        }
+        if (från != index) {
+            System.arraycopy(från, 0, index, 0, n);
+        }
+    }
+
+    private static double[] negerade(double[] priser) {
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = -priser[i];
+        }
+        return priser;
+    }
+}
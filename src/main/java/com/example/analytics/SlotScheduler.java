@@ -0,0 +1,167 @@
+package com.example.analytics;
+
+import com.example.api.PriceSeries;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Schemaläggning av flexibla laster, t.ex. värmepumpar, varmvattenberedare och batterier, som
+ * kan köras i vilka perioder som helst före en deadline. Till skillnad från
+ * {@link PriceRangeIndex#cheapestWindow(int)} behöver perioderna inte vara sammanhängande.
+ * <p>
+ * Serien sorteras efter pris en gång när schemaläggaren byggs, O(n log n). Varje fråga går
+ * sedan igenom den sorterade ordningen och tar de billigaste perioderna inom tidsfönstret, O(n)
+ * i värsta fall och ofta betydligt färre steg. Samma instans kan delas av tusentals laster i
+ * samma zon och dygn, även mellan trådar. Vid lika pris väljs den tidigaste perioden.
+ */
+public final class SlotScheduler {
+
+    /**
+     * Ett schema.
+     *
+     * @param slots Valda perioder i tidsordning, som index i {@link #series()}.
+     * @param kilowattHours Energi per vald period, i samma ordning som {@code slots}.
+     * @param totalKilowattHours Total energi.
+     * @param cost Total kostnad i SEK.
+     */
+    public record Schedule(PriceSeries series, int[] slots, double[] kilowattHours,
+                           double totalKilowattHours, double cost) {
+
+        /**
+         * @return Den valda perioden som en serie med ett element.
+         */
+        public PriceSeries slot(int i) {
+            return series.slice(slots[i], slots[i] + 1);
+        }
+
+        public int size() {
+            return slots.length;
+        }
+    }
+
+    private final PriceSeries serie;
+    private final double[] priser;
+    // Alla index sorterade efter stigande pris, tidigast först vid lika pris
+    private final int[] ordning;
+
+    private SlotScheduler(PriceSeries serie) {
+        this.serie = serie;
+        this.priser = serie.sekPerKWhArray();
+        this.ordning = new int[priser.length];
+        for (int i = 0; i < ordning.length; i++) {
+            ordning[i] = i;
+        }
+        PriceRanking.mergesort(ordning, priser);
+    }
+
+    /**
+     * Sorterar seriens perioder efter pris, O(n log n).
+     */
+    public static SlotScheduler of(PriceSeries serie) {
+        return new SlotScheduler(serie);
+    }
+
+    public PriceSeries series() {
+        return serie;
+    }
+
+    /**
+     * De {@code perioder} billigaste perioderna som ligger helt inom {@code [tidigast, deadline)},
+     * med en jämn effekt under varje vald period.
+     *
+     * @param kilowatt Effekten i kW, används bara för energi och kostnad.
+     * @throws IllegalArgumentException Om fönstret har färre än {@code perioder} perioder.
+     */
+    public Schedule cheapestSlots(int perioder, double kilowatt, Instant tidigast, Instant deadline) {
+        if (perioder < 1) {
+            throw new IllegalArgumentException("Schemat måste omfatta minst en period");
+        }
+        int från = serie.indexAtOrAfter(tidigast.getEpochSecond());
+        int till = slutIndex(från, deadline);
+        if (till - från < perioder) {
+            throw new IllegalArgumentException("Hittade inte tillräckligt många perioder före " + deadline);
+        }
+        int[] valda = new int[perioder];
+        int antal = 0;
+        for (int k = 0; antal < perioder; k++) {
+            int i = ordning[k];
+            if (i >= från && i < till) {
+                valda[antal++] = i;
+            }
+        }
+        Arrays.sort(valda);
+        double[] energi = new double[perioder];
+        double totalEnergi = 0.0;
+        double kostnad = 0.0;
+        for (int j = 0; j < perioder; j++) {
+            energi[j] = kilowatt * timmar(valda[j]);
+            totalEnergi += energi[j];
+            kostnad += energi[j] * priser[valda[j]];
+        }
+        return new Schedule(serie, valda, energi, totalEnergi, kostnad);
+    }
+
+    /**
+     * Den billigaste fördelningen av {@code kilowattimmar} över perioderna som ligger helt inom
+     * {@code [tidigast, deadline)}, med högst {@code maxKilowatt} i varje period. De billigaste
+     * perioderna fylls helt och den dyraste valda perioden bara med det som återstår.
+     *
+     * @throws IllegalArgumentException Om fönstret inte räcker för hela energimängden.
+     */
+    public Schedule cheapestEnergy(double kilowattimmar, double maxKilowatt, Instant tidigast, Instant deadline) {
+        if (!(kilowattimmar > 0) || !(maxKilowatt > 0)) {
+            throw new IllegalArgumentException("Energi och effekt måste vara positiva");
+        }
+        int från = serie.indexAtOrAfter(tidigast.getEpochSecond());
+        int till = slutIndex(från, deadline);
+        int[] valda = new int[till - från];
+        int antal = 0;
+        int delvis = -1;
+        double delvisEnergi = 0.0;
+        double kvar = kilowattimmar;
+        // Relativ tolerans så att avrundning i kW * timmar inte ger en extra period
+        double epsilon = kilowattimmar * 1e-12;
+        for (int k = 0; k < ordning.length && kvar > epsilon; k++) {
+            int i = ordning[k];
+            if (i < från || i >= till) {
+                continue;
+            }
+            double kapacitet = maxKilowatt * timmar(i);
+            valda[antal++] = i;
+            if (kapacitet >= kvar) {
+                delvis = i;
+                delvisEnergi = kvar;
+            }
+            kvar -= kapacitet;
+        }
+        if (kvar > epsilon) {
+            throw new IllegalArgumentException("Hittade inte tillräckligt många perioder före " + deadline
+                    + " för " + kilowattimmar + " kWh");
+        }
+        valda = Arrays.copyOf(valda, antal);
+        Arrays.sort(valda);
+        double[] energi = new double[antal];
+        double totalEnergi = 0.0;
+        double kostnad = 0.0;
+        for (int j = 0; j < antal; j++) {
+            energi[j] = valda[j] == delvis ? delvisEnergi : maxKilowatt * timmar(valda[j]);
+            totalEnergi += energi[j];
+            kostnad += energi[j] * priser[valda[j]];
+        }
+        return new Schedule(serie, valda, energi, totalEnergi, kostnad);
+    }
+
+    // Första index efter fönstret: perioder som slutar efter deadline räknas inte med
+    private int slutIndex(int från, Instant deadline) {
+        int till = serie.indexAtOrAfter(deadline.getEpochSecond());
+        while (till > från && serie.endEpochSecond(till - 1) > deadline.getEpochSecond()) {
+            till--;
+        }
+        return till;
+    }
+
+    private double timmar(int i) {
+        return (serie.endEpochSecond(i) - serie.startEpochSecond(i)) / 3600.0;
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.analytics;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Statistik per prisområde och mellan prisområden över samma perioder: medel, spridning,
+ * percentiler, volatilitet per dag, korrelation och prisskillnad per period.
+ * <p>
+ * Serierna läggs först på en gemensam tidsaxel med de starttider som finns i alla områden.
+ * Beräkningarna delas sedan upp på oberoende delar (perioder, dagar, områden och par av
+ * områden) som körs parallellt i en {@link ForkJoinPool}. Varje del räknas sekventiellt och
+ * delarna slås ihop i fast ordning, så resultatet är bit för bit detsamma som en sekventiell
+ * beräkning oavsett antal kärnor. Instansen är oföränderlig.
+ */
+public final class ZoneComparison {
+
+    /**
+     * Nyckeltal för ett prisområde, i SEK per kWh.
+     * @param dailyVolatility Medelvärdet av standardavvikelsen inom varje dag.
+     */
+    public record ZoneStats(ElpriserAPI.Prisklass zone, int count, double mean, double stdDev, double min,
+                            double max, double p10, double median, double p90, double dailyVolatility) {}
+
+    /**
+     * Jämförelse mellan två prisområden.
+     * @param meanDifference Medelvärdet av {@code b - a}.
+     * @param maxAbsDifference Största skillnaden i en period, oavsett riktning.
+     */
+    public record ZonePair(ElpriserAPI.Prisklass a, ElpriserAPI.Prisklass b, double correlation,
+                           double meanDifference, double maxAbsDifference) {}
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    private final List<ElpriserAPI.Prisklass> zoner;
+    private final long[] start;
+    // priser[z][i] = priset för zoner.get(z) i period i
+    private final double[][] priser;
+    private final double[] spread;
+    private final int[] billigast;
+    private final int[] dyrast;
+    private final List<ZoneStats> zoneStats;
+    private final List<ZonePair> pairs;
+
+    private ZoneComparison(List<ElpriserAPI.Prisklass> zoner, long[] start, double[][] priser, ForkJoinPool pool) {
+        this.zoner = zoner;
+        this.start = start;
+        this.priser = priser;
+        int m = start.length;
+        this.spread = new double[m];
+        this.billigast = new int[m];
+        this.dyrast = new int[m];
+        int[] dagsgränser = dagsgränser(start);
+        int antalPar = zoner.size() * (zoner.size() - 1) / 2;
+
+        this.zoneStats = pool.submit(() -> {
+            IntStream.range(0, m).parallel().forEach(this::beräknaSpread);
+            return IntStream.range(0, zoner.size()).parallel()
+                    .mapToObj(z -> zonStatistik(zoner.get(z), priser[z], dagsgränser))
+                    .toList();
+        }).join();
+        this.pairs = pool.submit(() -> IntStream.range(0, antalPar).parallel()
+                .mapToObj(this::par)
+                .toList()).join();
+    }
+
+    /**
+     * Jämför prisområdena i den gemensamma fork/join-poolen.
+     */
+    public static ZoneComparison of(Map<ElpriserAPI.Prisklass, PriceSeries> perZon) {
+        return of(perZon, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Jämför prisområdena i en egen pool, t.ex. med begränsad parallellism.
+     * @param perZon Serierna per prisområde, minst ett.
+     */
+    public static ZoneComparison of(Map<ElpriserAPI.Prisklass, PriceSeries> perZon, ForkJoinPool pool) {
+        if (perZon.isEmpty()) {
+            throw new IllegalArgumentException("Minst ett prisområde krävs");
+        }
+        List<ElpriserAPI.Prisklass> zoner = perZon.keySet().stream().sorted().toList();
+        List<PriceSeries> serier = zoner.stream().map(perZon::get).toList();
+        long[] gemensamma = gemensammaStarttider(serier);
+        double[][] priser = new double[zoner.size()][];
+        for (int z = 0; z < zoner.size(); z++) {
+            priser[z] = justera(serier.get(z), gemensamma);
+        }
+        return new ZoneComparison(zoner, gemensamma, priser, pool);
+    }
+
+    public List<ElpriserAPI.Prisklass> zones() {
+        return zoner;
+    }
+
+    /**
+     * @return Antal perioder på den gemensamma tidsaxeln.
+     */
+    public int size() {
+        return start.length;
+    }
+
+    public Instant start(int period) {
+        return Instant.ofEpochSecond(start[period]);
+    }
+
+    /**
+     * @return Skillnaden mellan dyraste och billigaste området i perioden.
+     */
+    public double spread(int period) {
+        return spread[period];
+    }
+
+    /**
+     * @return Området med lägst pris i perioden, det första i zonordning vid lika pris.
+     */
+    public ElpriserAPI.Prisklass cheapestZone(int period) {
+        return zoner.get(billigast[period]);
+    }
+
+    /**
+     * @return Området med högst pris i perioden, det första i zonordning vid lika pris.
+     */
+    public ElpriserAPI.Prisklass mostExpensiveZone(int period) {
+        return zoner.get(dyrast[period]);
+    }
+
+    /**
+     * @return Perioden med störst skillnad mellan områdena (den tidigaste vid lika), eller -1 om
+     *         tidsaxeln är tom.
+     */
+    public int maxSpreadPeriod() {
+        int bästa = -1;
+        for (int i = 0; i < spread.length; i++) {
+            if (bästa < 0 || spread[i] > spread[bästa]) {
+                bästa = i;
+            }
+        }
+        return bästa;
+    }
+
+    /**
+     * @return Antal perioder där skillnaden mellan dyraste och billigaste området är minst
+     *         {@code minSpread}, dvs. perioder där det lönar sig att flytta förbrukning mellan områden.
+     */
+    public int arbitragePeriods(double minSpread) {
+        int antal = 0;
+        for (double s : spread) {
+            if (s >= minSpread) {
+                antal++;
+            }
+        }
+        return antal;
+    }
+
+    public List<ZoneStats> zoneStats() {
+        return zoneStats;
+    }
+
+    /**
+     * @return Alla par av områden i zonordning, (SE1, SE2), (SE1, SE3) osv.
+     */
+    public List<ZonePair> pairs() {
+        return pairs;
+    }
+
+    private void beräknaSpread(int i) {
+        int min = 0;
+        int max = 0;
+        for (int z = 1; z < priser.length; z++) {
+            if (priser[z][i] < priser[min][i]) {
+                min = z;
+            }
+            if (priser[z][i] > priser[max][i]) {
+                max = z;
+            }
+        }
+        billigast[i] = min;
+        dyrast[i] = max;
+        spread[i] = priser[max][i] - priser[min][i];
+    }
+
+    private static ZoneStats zonStatistik(ElpriserAPI.Prisklass zon, double[] värden, int[] dagsgränser) {
+        int n = värden.length;
+        if (n == 0) {
+            return new ZoneStats(zon, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                    Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        double medel = medel(värden, 0, n);
+        double[] sorterade = värden.clone();
+        Arrays.sort(sorterade);
+        double[] dagsavvikelse = new double[dagsgränser.length - 1];
+        IntStream.range(0, dagsavvikelse.length).parallel()
+                .forEach(d -> dagsavvikelse[d] = standardavvikelse(värden, dagsgränser[d], dagsgränser[d + 1]));
+        return new ZoneStats(zon, n, medel, standardavvikelse(värden, 0, n), sorterade[0], sorterade[n - 1],
+                percentil(sorterade, 0.10), percentil(sorterade, 0.50), percentil(sorterade, 0.90),
+                medel(dagsavvikelse, 0, dagsavvikelse.length));
+    }
+
+    private ZonePair par(int index) {
+        // Index 0, 1, 2 ... motsvarar (0,1), (0,2) ... (1,2) ...
+        int a = 0;
+        int kvar = index;
+        while (kvar >= zoner.size() - 1 - a) {
+            kvar -= zoner.size() - 1 - a;
+            a++;
+        }
+        int b = a + 1 + kvar;
+        double[] x = priser[a];
+        double[] y = priser[b];
+        int n = x.length;
+        double medelX = medel(x, 0, n);
+        double medelY = medel(y, 0, n);
+        double kovarians = 0.0;
+        double variansX = 0.0;
+        double variansY = 0.0;
+        double skillnad = 0.0;
+        double störst = 0.0;
+        for (int i = 0; i < n; i++) {
+            double dx = x[i] - medelX;
+            double dy = y[i] - medelY;
+            kovarians += dx * dy;
+            variansX += dx * dx;
+            variansY += dy * dy;
+            skillnad += y[i] - x[i];
+            störst = Math.max(störst, Math.abs(y[i] - x[i]));
+        }
+        double korrelation = variansX == 0.0 || variansY == 0.0
+                ? Double.NaN : kovarians / Math.sqrt(variansX * variansY);
+        return new ZonePair(zoner.get(a), zoner.get(b), korrelation,
+                n == 0 ? Double.NaN : skillnad / n, störst);
+    }
+
+    static double medel(double[] värden, int from, int to) {
+        double summa = 0.0;
+        for (int i = from; i < to; i++) {
+            summa += värden[i];
+        }
+        return summa / (to - from);
+    }
+
+    // Populationens standardavvikelse för [from, to)
+    static double standardavvikelse(double[] värden, int from, int to) {
+        double medel = medel(värden, from, to);
+        double summa = 0.0;
+        for (int i = from; i < to; i++) {
+            double d = värden[i] - medel;
+            summa += d * d;
+        }
+        return Math.sqrt(summa / (to - from));
+    }
+
+    // Linjär interpolation mellan närmaste rangerna, p i [0, 1]
+    static double percentil(double[] sorterade, double p) {
+        double position = p * (sorterade.length - 1);
+        int lägre = (int) Math.floor(position);
+        int övre = Math.min(lägre + 1, sorterade.length - 1);
+        return sorterade[lägre] + (position - lägre) * (sorterade[övre] - sorterade[lägre]);
+    }
+
+    // Index där en ny dag (svensk tid) börjar, med seriens längd sist
+    private static int[] dagsgränser(long[] start) {
+        List<Integer> gränser = new ArrayList<>();
+        LocalDate föregående = null;
+        for (int i = 0; i < start.length; i++) {
+            LocalDate dag = LocalDate.ofInstant(Instant.ofEpochSecond(start[i]), STOCKHOLM);
+            if (!dag.equals(föregående)) {
+                gränser.add(i);
+                föregående = dag;
+            }
+        }
+        gränser.add(start.length);
+        return gränser.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Starttider som finns i alla serier; serierna är sorterade så det blir en sammanslagning
+    private static long[] gemensammaStarttider(List<PriceSeries> serier) {
+        PriceSeries första = serier.getFirst();
+        long[] gemensamma = new long[första.size()];
+        int m = 0;
+        int[] pos = new int[serier.size()];
+        yttre:
+        for (int i = 0; i < första.size(); i++) {
+            long t = första.startEpochSecond(i);
+            for (int s = 1; s < serier.size(); s++) {
+                PriceSeries serie = serier.get(s);
+                while (pos[s] < serie.size() && serie.startEpochSecond(pos[s]) < t) {
+                    pos[s]++;
+                }
+                if (pos[s] == serie.size() || serie.startEpochSecond(pos[s]) != t) {
+                    continue yttre;
+                }
+            }
+            gemensamma[m++] = t;
+        }
+        return Arrays.copyOf(gemensamma, m);
+    }
+
+    private static double[] justera(PriceSeries serie, long[] gemensamma) {
+        double[] värden = new double[gemensamma.length];
+        int j = 0;
+        for (int i = 0; i < gemensamma.length; i++) {
+            while (serie.startEpochSecond(j) != gemensamma[i]) {
+                j++;
+            }
+            värden[i] = serie.sekPerKWh(j);
+        }
+        return värden;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+/**
+ * Index med ett {@link DailyAggregate} per dag och prisområde. Fylls på när en dag tolkas eller
+ * läses från disk-cachen och sparas i samma katalog, en fil per prisområde
+ * ({@code aggregat_SE3.idx}), så att intervallfrågor inte behöver läsa några prisrader.
+ * <p>
+ * Filen är append-only: varje post är längd, CRC32 och innehåll. Vid inläsning vinner den
+ * senaste posten för en dag, och läsningen stannar vid en avbruten eller trasig post.
+ */
+final class AggregateIndex {
+
+    private static final String FILE_PREFIX = "aggregat_";
+    private static final String FILE_SUFFIX = ".idx";
+    // datum, antal, summa, min, min-tid, max, max-tid, antal timmar
+    private static final int FAST_DEL = Long.BYTES + Integer.BYTES + 3 * Double.BYTES + 2 * Long.BYTES + Integer.BYTES;
+
+    // null om indexet bara ska finnas i minnet
+    private final Path directory;
+    private final Map<ElpriserAPI.Prisklass, ConcurrentSkipListMap<LocalDate, DailyAggregate>> perZon = new ConcurrentHashMap<>();
+
+    AggregateIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Lägger till eller ersätter en dag. Med {@code persist} sparas den även på disk, om den
+     * skiljer sig från det som redan finns.
+     */
+    void record(ElpriserAPI.Prisklass prisklass, DailyAggregate aggregat, boolean persist) {
+        ConcurrentSkipListMap<LocalDate, DailyAggregate> index = zon(prisklass);
+        DailyAggregate tidigare = index.put(aggregat.datum(), aggregat);
+        if (persist && directory != null && !aggregat.equals(tidigare)) {
+            append(prisklass, aggregat);
+        }
+    }
+
+    DailyAggregate get(ElpriserAPI.Prisklass prisklass, LocalDate datum) {
+        return zon(prisklass).get(datum);
+    }
+
+    /**
+     * @return Dagarna i {@code [från, till]} som finns i indexet, i datumordning.
+     */
+    SortedMap<LocalDate, DailyAggregate> range(ElpriserAPI.Prisklass prisklass, LocalDate från, LocalDate till) {
+        if (till.isBefore(från)) {
+            return Collections.emptySortedMap();
+        }
+        NavigableMap<LocalDate, DailyAggregate> dagar = zon(prisklass).subMap(från, true, till, true);
+        return Collections.unmodifiableSortedMap(dagar);
+    }
+
+    private ConcurrentSkipListMap<LocalDate, DailyAggregate> zon(ElpriserAPI.Prisklass prisklass) {
+        return perZon.computeIfAbsent(prisklass, this::load);
+    }
+
+    private Path fileFor(ElpriserAPI.Prisklass prisklass) {
+        return directory.resolve(FILE_PREFIX + prisklass.name() + FILE_SUFFIX);
+    }
+
+    private ConcurrentSkipListMap<LocalDate, DailyAggregate> load(ElpriserAPI.Prisklass prisklass) {
+        ConcurrentSkipListMap<LocalDate, DailyAggregate> index = new ConcurrentSkipListMap<>();
+        if (directory == null) {
+            return index;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(fileFor(prisklass));
+        } catch (NoSuchFileException e) {
+            return index;
+        } catch (IOException e) {
+            Logg.warn("Kunde inte läsa aggregatindex för " + prisklass + ": " + e.getMessage());
+            return index;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+            int längd = buffer.getInt();
+            int crc = buffer.getInt();
+            if (längd < FAST_DEL || längd > buffer.remaining()) {
+                break;
+            }
+            CRC32 kontroll = new CRC32();
+            kontroll.update(bytes, buffer.position(), längd);
+            if ((int) kontroll.getValue() != crc) {
+                break;
+            }
+            DailyAggregate aggregat = decode(buffer.slice(buffer.position(), längd));
+            buffer.position(buffer.position() + längd);
+            index.put(aggregat.datum(), aggregat);
+        }
+        if (buffer.hasRemaining()) {
+            Logg.warn("Aggregatindex för " + prisklass + " har en trasig post, resten av filen ignoreras.");
+        }
+        return index;
+    }
+
+    private synchronized void append(ElpriserAPI.Prisklass prisklass, DailyAggregate aggregat) {
+        byte[] innehåll = encode(aggregat);
+        CRC32 crc = new CRC32();
+        crc.update(innehåll);
+        ByteBuffer post = ByteBuffer.allocate(2 * Integer.BYTES + innehåll.length);
+        post.putInt(innehåll.length).putInt((int) crc.getValue()).put(innehåll);
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = Files.newOutputStream(fileFor(prisklass),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(post.array());
+            }
+        } catch (IOException e) {
+            Logg.warn("Kunde inte spara aggregat för " + aggregat.datum() + " " + prisklass + ": " + e.getMessage());
+        }
+    }
+
+    static byte[] encode(DailyAggregate aggregat) {
+        double[] timmar = aggregat.hourlyAverages();
+        ByteBuffer buffer = ByteBuffer.allocate(FAST_DEL + timmar.length * Double.BYTES);
+        buffer.putLong(aggregat.datum().toEpochDay())
+                .putInt(aggregat.count())
+                .putDouble(aggregat.sum())
+                .putDouble(aggregat.min())
+                .putLong(aggregat.minStartEpochSecond())
+                .putDouble(aggregat.max())
+                .putLong(aggregat.maxStartEpochSecond())
+                .putInt(timmar.length);
+        for (double medel : timmar) {
+            buffer.putDouble(medel);
+        }
+        return buffer.array();
+    }
+
+    static DailyAggregate decode(ByteBuffer buffer) {
+        LocalDate datum = LocalDate.ofEpochDay(buffer.getLong());
+        int count = buffer.getInt();
+        double sum = buffer.getDouble();
+        double min = buffer.getDouble();
+        long minStart = buffer.getLong();
+        double max = buffer.getDouble();
+        long maxStart = buffer.getLong();
+        double[] timmar = new double[buffer.getInt()];
+        for (int i = 0; i < timmar.length; i++) {
+            timmar[i] = buffer.getDouble();
+        }
+        return new DailyAggregate(datum, count, sum, min, minStart, max, maxStart, timmar);
+    }
+}
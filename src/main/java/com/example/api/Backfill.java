@@ -0,0 +1,96 @@
+package com.example.api;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Motorn bakom {@link ElpriserAPI#backfill}. En virtuell tråd per dag och prisområde,
+ * begränsad av en semafor så att API:t inte överbelastas. Tillfälliga fel försöks igen av
+ * {@link ElpriserAPI} med dess vanliga omförsök, inte en gång till här.
+ */
+final class Backfill {
+
+    private final ElpriserAPI api;
+    private final Semaphore platser;
+    private final Consumer<ElpriserAPI.BackfillProgress> progress;
+
+    private final AtomicInteger klara = new AtomicInteger();
+    private final AtomicInteger hämtade = new AtomicInteger();
+    private final AtomicInteger utanData = new AtomicInteger();
+    private final AtomicInteger misslyckade = new AtomicInteger();
+    private final LongAdder rader = new LongAdder();
+
+    Backfill(ElpriserAPI api, int maxSamtidiga, Consumer<ElpriserAPI.BackfillProgress> progress) {
+        this.api = api;
+        this.platser = new Semaphore(maxSamtidiga);
+        this.progress = progress;
+    }
+
+    ElpriserAPI.BackfillRapport kör(LocalDate från, LocalDate till, Set<ElpriserAPI.Prisklass> prisklasser) {
+        long start = System.nanoTime();
+        int dagar = (int) (till.toEpochDay() - från.toEpochDay() + 1);
+        int totalt = dagar * prisklasser.size();
+        int hoppadeÖver = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ElpriserAPI.Prisklass prisklass : prisklasser) {
+                for (LocalDate dag = från; !dag.isAfter(till); dag = dag.plusDays(1)) {
+                    if (api.isCached(dag, prisklass)) {
+                        hoppadeÖver++;
+                        rapportera(totalt, start);
+                        continue;
+                    }
+                    LocalDate datum = dag;
+                    executor.submit(() -> {
+                        hämta(datum, prisklass);
+                        rapportera(totalt, start);
+                    });
+                }
+            }
+        }
+        return new ElpriserAPI.BackfillRapport(hämtade.get(), hoppadeÖver, utanData.get(), misslyckade.get(),
+                rader.sum(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // Omförsök och backoff sköts av ElpriserAPI, så ett fel här är slutgiltigt för dagen
+    private void hämta(LocalDate datum, ElpriserAPI.Prisklass prisklass) {
+        try {
+            platser.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            misslyckade.incrementAndGet();
+            return;
+        }
+        try {
+            PriceSeries priser = api.hämtaAsync(datum, prisklass).join();
+            if (priser.isEmpty()) {
+                utanData.incrementAndGet();
+            } else {
+                hämtade.incrementAndGet();
+                rader.add(priser.size());
+            }
+        } catch (CompletionException e) {
+            Logg.warn("Backfill misslyckades för " + datum + " " + prisklass + ": "
+                    + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+            misslyckade.incrementAndGet();
+        } finally {
+            platser.release();
+        }
+    }
+
+    private void rapportera(int totalt, long start) {
+        int klart = klara.incrementAndGet();
+        if (progress != null) {
+            progress.accept(new ElpriserAPI.BackfillProgress(klart, totalt, rader.sum(),
+                    Duration.ofNanos(System.nanoTime() - start)));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.api;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Kretsbrytare framför nätverket. Efter {@code tröskel} misslyckade anrop i rad öppnas den och
+ * alla anrop nekas direkt i {@code öppenTid}. Därefter släpps ett provanrop igenom: lyckas det
+ * stängs brytaren, annars öppnas den igen.
+ * <p>
+ * Ett anrop räknas som misslyckat vid IO-fel, timeout, HTTP 5xx och 429. Alla andra svar,
+ * även 404, visar att servern svarar och räknas som lyckade.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int tröskel;
+    private final Duration öppenTid;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int misslyckandenIRad;
+    private Instant öppnades;
+    private boolean provanropPågår;
+
+    CircuitBreaker(int tröskel, Duration öppenTid, Clock clock) {
+        if (tröskel < 1) {
+            throw new IllegalArgumentException("Tröskeln måste vara minst 1");
+        }
+        this.tröskel = tröskel;
+        this.öppenTid = öppenTid;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true om ett anrop får skickas. I halvöppet läge släpps bara ett anrop i taget igenom.
+     */
+    synchronized boolean tillåt() {
+        if (state == State.OPEN && !clock.instant().isBefore(öppnades.plus(öppenTid))) {
+            state = State.HALF_OPEN;
+            provanropPågår = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (provanropPågår) {
+                    yield false;
+                }
+                provanropPågår = true;
+                yield true;
+            }
+        };
+    }
+
+    synchronized void lyckades() {
+        state = State.CLOSED;
+        misslyckandenIRad = 0;
+        provanropPågår = false;
+    }
+
+    synchronized void misslyckades() {
+        misslyckandenIRad++;
+        if (state == State.HALF_OPEN || misslyckandenIRad >= tröskel) {
+            if (state != State.OPEN) {
+                Logg.warn("Kretsbrytaren öppnas efter " + misslyckandenIRad + " misslyckade anrop i rad");
+            }
+            state = State.OPEN;
+            öppnades = clock.instant();
+            provanropPågår = false;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.api;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Förberäknade nyckeltal för en dag och ett prisområde, så att rapporter över långa perioder
+ * inte behöver läsa varje prisrad.
+ *
+ * @param datum Dagen.
+ * @param count Antal perioder (t.ex. 24, 96, eller 92/100 vid sommar- och vintertid).
+ * @param sum Summan av SEK-priserna.
+ * @param min Lägsta SEK-pris.
+ * @param minStartEpochSecond Starttid för den tidigaste perioden med lägsta priset.
+ * @param max Högsta SEK-pris.
+ * @param maxStartEpochSecond Starttid för den tidigaste perioden med högsta priset.
+ * @param hourlyAverages Medelpris per timme i tidsordning, NaN för timmar utan data.
+ */
+public record DailyAggregate(
+        LocalDate datum,
+        int count,
+        double sum,
+        double min,
+        long minStartEpochSecond,
+        double max,
+        long maxStartEpochSecond,
+        double[] hourlyAverages
+) {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    /**
+     * Beräknar nyckeltalen för en dags serie i ett svep.
+     */
+    public static DailyAggregate of(LocalDate datum, PriceSeries priser) {
+        int n = priser.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("Kan inte aggregera en tom serie");
+        }
+        double sum = 0.0;
+        int minIndex = 0;
+        int maxIndex = 0;
+        // Timmarna räknas från första periodens timme; svenska tidszoner har hela timmar som offset
+        long förstaTimme = Math.floorDiv(priser.startEpochSecond(0), 3600);
+        long sistaTimme = Math.floorDiv(priser.startEpochSecond(n - 1), 3600);
+        int timmar = (int) Math.max(1, sistaTimme - förstaTimme + 1);
+        double[] timSummor = new double[timmar];
+        int[] timAntal = new int[timmar];
+        for (int i = 0; i < n; i++) {
+            double pris = priser.sekPerKWh(i);
+            sum += pris;
+            if (pris < priser.sekPerKWh(minIndex)) {
+                minIndex = i;
+            }
+            if (pris > priser.sekPerKWh(maxIndex)) {
+                maxIndex = i;
+            }
+            int timme = (int) (Math.floorDiv(priser.startEpochSecond(i), 3600) - förstaTimme);
+            if (timme >= 0 && timme < timmar) {
+                timSummor[timme] += pris;
+                timAntal[timme]++;
+            }
+        }
+        double[] medel = new double[timmar];
+        for (int h = 0; h < timmar; h++) {
+            medel[h] = timAntal[h] == 0 ? Double.NaN : timSummor[h] / timAntal[h];
+        }
+        return new DailyAggregate(datum, n, sum, priser.sekPerKWh(minIndex), priser.startEpochSecond(minIndex),
+                priser.sekPerKWh(maxIndex), priser.startEpochSecond(maxIndex), medel);
+    }
+
+    public double mean() {
+        return sum / count;
+    }
+
+    public ZonedDateTime minTime() {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(minStartEpochSecond), STOCKHOLM);
+    }
+
+    public ZonedDateTime maxTime() {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(maxStartEpochSecond), STOCKHOLM);
+    }
+
+    @Override
+    public double[] hourlyAverages() {
+        return hourlyAverages.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DailyAggregate other
+                && datum.equals(other.datum) && count == other.count
+                && Double.compare(sum, other.sum) == 0
+                && Double.compare(min, other.min) == 0 && minStartEpochSecond == other.minStartEpochSecond
+                && Double.compare(max, other.max) == 0 && maxStartEpochSecond == other.maxStartEpochSecond
+                && Arrays.equals(hourlyAverages, other.hourlyAverages);
+    }
+
+    @Override
+    public int hashCode() {
+        return datum.hashCode() * 31 + Double.hashCode(sum);
+    }
+
+    @Override
+    public String toString() {
+        return "DailyAggregate[" + datum + ", " + count + " perioder, min " + min + ", max " + max + ", medel " + mean() + "]";
+    }
+
+    /**
+     * Nyckeltal över flera dagar, från {@link ElpriserAPI#getRangeAggregate}.
+     *
+     * @param dagar Antal dagar med data i intervallet.
+     */
+    public record Range(LocalDate från, LocalDate till, int dagar, long count, double sum,
+                        double min, long minStartEpochSecond, double max, long maxStartEpochSecond) {
+
+        public double mean() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        public ZonedDateTime minTime() {
+            return ZonedDateTime.ofInstant(Instant.ofEpochSecond(minStartEpochSecond), STOCKHOLM);
+        }
+
+        public ZonedDateTime maxTime() {
+            return ZonedDateTime.ofInstant(Instant.ofEpochSecond(maxStartEpochSecond), STOCKHOLM);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent disk-cache, en fil per cache-nyckel (t.ex. "2025-08-30_SE3.bin"). Filändelsen
+ * anger formatet på innehållet: {@code .bin} för {@link PriceBinaryFormat} och {@code .json}
+ * för rådata från API:t i äldre cachar.
+ * <p>
+ * Varje fil inleds med en header-rad som innehåller längd och CRC32 för innehållet, så att
+ * avbrutna eller trasiga filer upptäcks och kastas i stället för att tolkas. Skrivningar sker
+ * till en temporär fil som sedan flyttas atomärt på plats. När katalogens totala storlek
+ * överstiger {@code maxBytes} tas de äldsta filerna bort.
+ * <p>
+ * Totalstorleken räknas fram med en genomläsning av katalogen första gången den behövs och
+ * hålls sedan uppdaterad vid skrivningar och borttagningar, så att en skrivning inte behöver
+ * gå igenom alla filer. Ändringar från andra processer märks först vid nästa rensning.
+ */
+final class DiskCache {
+
+    /** Systemegenskap för att välja cache-katalog, t.ex. {@code -Delpriser.cache.dir=/var/cache/elpriser}. */
+    static final String CACHE_DIR_PROPERTY = "elpriser.cache.dir";
+    /** Systemegenskap för maximal total storlek på cachen i byte. */
+    static final String MAX_BYTES_PROPERTY = "elpriser.cache.maxBytes";
+
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    static final String JSON_SUFFIX = ".json";
+    static final String BINARY_SUFFIX = ".bin";
+    // Retention räknar alla cache-filer i katalogen, oavsett format
+    private static final String ALL_FILES_GLOB = "*.{json,bin}";
+    private static final String HEADER_MAGIC = "ELPRISER-CACHE 1";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final String suffix;
+    // Delas av alla instanser för samma katalog, se withSuffix
+    private final TotalSize totalSize;
+
+    // Katalogens totala storlek i byte, -1 tills katalogen har räknats igenom
+    private static final class TotalSize {
+        private long bytes = -1;
+    }
+
+    DiskCache(Path directory, long maxBytes) {
+        this(directory, maxBytes, JSON_SUFFIX, new TotalSize());
+    }
+
+    private DiskCache(Path directory, long maxBytes, String suffix, TotalSize totalSize) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.suffix = suffix;
+        this.totalSize = totalSize;
+    }
+
+    /**
+     * @return En cache i samma katalog och med samma storleksgräns, men för ett annat format.
+     */
+    DiskCache withSuffix(String suffix) {
+        return new DiskCache(directory, maxBytes, suffix, totalSize);
+    }
+
+    /**
+     * Skapar en disk-cache enligt systemegenskaperna, eller {@code ~/.elpriser_cache} som standard.
+     */
+    static DiskCache fromSystemProperties() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        Path path = dir != null && !dir.isBlank()
+                ? Paths.get(dir)
+                : Paths.get(System.getProperty("user.home"), ".elpriser_cache");
+        long maxBytes = Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES);
+        return new DiskCache(path, maxBytes);
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Läser rådata för en nyckel.
+     * @return Innehållet, eller null om filen saknas eller är korrupt (korrupta filer tas bort).
+     */
+    byte[] read(String cacheKey) throws IOException {
+        Path file = fileFor(cacheKey);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        byte[] content = decode(bytes);
+        if (content == null) {
+            Logg.warn("Korrupt cache-fil togs bort: " + file);
+            remove(file);
+        }
+        return content;
+    }
+
+    /**
+     * Läser innehållet för en nyckel via en minnesmappad {@link FileChannel}, utan att kopiera det.
+     * @return En buffert över innehållet, eller null om filen saknas eller är korrupt.
+     */
+    ByteBuffer map(String cacheKey) throws IOException {
+        Path file = fileFor(cacheKey);
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer content = decode(mapped);
+        if (content == null) {
+            Logg.warn("Korrupt cache-fil togs bort: " + file);
+            remove(file);
+        }
+        return content;
+    }
+
+    void delete(String cacheKey) throws IOException {
+        remove(fileFor(cacheKey));
+    }
+
+    /**
+     * Skriver rådata för en nyckel atomärt och rensar därefter cachen om den blivit för stor.
+     */
+    void write(String cacheKey, byte[] content) throws IOException {
+        Files.createDirectories(directory);
+        Path target = fileFor(cacheKey);
+        Path tmp = Files.createTempFile(directory, cacheKey, ".tmp");
+        try {
+            byte[] encoded = encode(content);
+            Files.write(tmp, encoded);
+            synchronized (totalSize) {
+                long total = totalBytes();
+                long previous = sizeOrZero(target);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                totalSize.bytes = total - previous + encoded.length;
+                if (totalSize.bytes > maxBytes) {
+                    enforceRetention();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    boolean contains(String cacheKey) {
+        return Files.exists(fileFor(cacheKey));
+    }
+
+    private Path fileFor(String cacheKey) {
+        return directory.resolve(cacheKey + suffix);
+    }
+
+    // Header: "ELPRISER-CACHE 1 <crc32 hex> <längd>\n" följt av innehållet
+    static byte[] encode(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        byte[] header = (HEADER_MAGIC + " " + Long.toHexString(crc.getValue()) + " " + body.length + "\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        byte[] out = new byte[header.length + body.length];
+        System.arraycopy(header, 0, out, 0, header.length);
+        System.arraycopy(body, 0, out, header.length, body.length);
+        return out;
+    }
+
+    static byte[] decode(byte[] bytes) {
+        ByteBuffer body = decode(ByteBuffer.wrap(bytes));
+        if (body == null) {
+            return null;
+        }
+        byte[] content = new byte[body.remaining()];
+        body.get(content);
+        return content;
+    }
+
+    /**
+     * @return En vy över innehållet efter headern, eller null om headern eller CRC:n inte stämmer.
+     */
+    static ByteBuffer decode(ByteBuffer bytes) {
+        int newline = -1;
+        for (int i = 0; i < bytes.limit() && i < 64; i++) {
+            if (bytes.get(i) == '\n') {
+                newline = i;
+                break;
+            }
+        }
+        if (newline < 0) {
+            return null;
+        }
+        byte[] headerBytes = new byte[newline];
+        bytes.get(0, headerBytes);
+        String[] header = new String(headerBytes, StandardCharsets.US_ASCII).split(" ");
+        if (header.length != 4 || !HEADER_MAGIC.equals(header[0] + " " + header[1])) {
+            return null;
+        }
+        try {
+            long expectedCrc = Long.parseLong(header[2], 16);
+            int expectedLength = Integer.parseInt(header[3]);
+            int bodyLength = bytes.limit() - newline - 1;
+            if (bodyLength != expectedLength) {
+                return null;
+            }
+            ByteBuffer body = bytes.slice(newline + 1, bodyLength);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != expectedCrc) {
+                return null;
+            }
+            return body;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void remove(Path file) throws IOException {
+        synchronized (totalSize) {
+            long size = sizeOrZero(file);
+            if (Files.deleteIfExists(file) && totalSize.bytes >= 0) {
+                totalSize.bytes -= size;
+            }
+        }
+    }
+
+    private static long sizeOrZero(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    // Anropas med låset på totalSize
+    private long totalBytes() throws IOException {
+        if (totalSize.bytes < 0) {
+            long total = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, ALL_FILES_GLOB)) {
+                for (Path p : stream) {
+                    total += sizeOrZero(p);
+                }
+            }
+            totalSize.bytes = total;
+        }
+        return totalSize.bytes;
+    }
+
+    // Anropas med låset på totalSize. Läser om hela katalogen, så att även ändringar från andra
+    // processer kommer med, och tar bort de äldsta filerna tills cachen ryms igen.
+    private void enforceRetention() throws IOException {
+        record Entry(Path path, long size, FileTime modified) {}
+
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, ALL_FILES_GLOB)) {
+            for (Path p : stream) {
+                try {
+                    long size = Files.size(p);
+                    entries.add(new Entry(p, size, Files.getLastModifiedTime(p)));
+                    total += size;
+                } catch (NoSuchFileException e) {
+                    // Borttagen av en annan process under tiden, ignorera
+                }
+            }
+        }
+        if (total > maxBytes) {
+            entries.sort(Comparator.comparing(Entry::modified));
+            for (Entry entry : entries) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                Files.deleteIfExists(entry.path());
+                total -= entry.size();
+            }
+        }
+        totalSize.bytes = total;
+    }
+}
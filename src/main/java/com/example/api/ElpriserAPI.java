@@ -1,18 +1,36 @@
 package com.example.api;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
 import java.util.function.Supplier;
 
 /**
@@ -25,14 +43,50 @@ public final class ElpriserAPI {
     private static final String API_BASE_URL = "https://www.elprisetjustnu.se/api/v1/prices";
     private static final DateTimeFormatter URL_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM-dd");
 
-    // En återanvändbar HttpClient-instans
-    private final HttpClient httpClient;
+    // Transport mot API:t, standard en återanvändbar HttpClient med HTTP/2 och gzip
+    private final HttpTransport transport;
+    private final String baseUrl;
+
+    // Timeout per anrop, antal omförsök vid tillfälliga fel och första väntetiden mellan dem
+    private final Duration requestTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final CircuitBreaker kretsbrytare;
     
     // Flagga för att styra cachlagring
     private final boolean cachingEnabled;
     
-    // Ett enkelt minnes-cache. Nyckeln är en kombination av datum och prisklass, t.ex. "2025-08-30_SE3"
-    private final Map<String, List<Elpris>> inMemoryCache;
+    // Minnes-cache med LRU och livslängd per post. Nyckeln är en kombination av datum och prisklass, t.ex. "2025-08-30_SE3"
+    private final PriceCache inMemoryCache;
+
+    // Livslängd i minnes-cachen för passerade dagar, idag/imorgon och för dagar som saknade data (HTTP 404)
+    private final Duration historiskTtl;
+    private final Duration aktuellTtl;
+    private final Duration negativTtl;
+
+    // Klocka för att avgöra vad som är "idag", utbytbar i tester
+    private final Clock clock;
+
+    // Persistent cache på disk, delas mellan JVM-körningar
+    private final DiskCache diskCache;
+    // Äldre cachar sparade rådata som JSON; de konverteras till binärformat vid första läsning
+    private final DiskCache jsonDiskCache;
+
+    // Pågående hämtningar per cache-nyckel, så att samtidiga anrop för samma dag delar på ett anrop
+    private final Map<String, CompletableFuture<PriceSeries>> pågåendeHämtningar = new ConcurrentHashMap<>();
+    private final LongAdder utfärdadeHämtningar = new LongAdder();
+    private final LongAdder sammanslagnaHämtningar = new LongAdder();
+
+    // ETag, Last-Modified och hash av senaste svaret för idag och framåt, för villkorliga hämtningar
+    private final Map<String, Validering> valideringar = new ConcurrentHashMap<>();
+
+    // Mätpunkter för latens, statuskoder, cache-träffar och tolkning
+    private final ElpriserMetrics metrics;
+
+    // Nyckeltal per dag och prisområde, sparas bredvid disk-cachen
+    private final AggregateIndex aggregatIndex;
+    // null när cachning är avstängd
+    private final PriceArchive arkiv;
 
     /**
      * En record som representerar ett enskilt elpris för en given tidsperiod.
@@ -106,13 +160,182 @@ public final class ElpriserAPI {
      * @param enableCaching Sätt till true för att aktivera minnes-cachning, annars false.
      */
     public ElpriserAPI(boolean enableCaching) {
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
-        this.cachingEnabled = enableCaching;
-        // ConcurrentHashMap är trådsäker om klassen skulle användas i flera trådar
-        this.inMemoryCache = new ConcurrentHashMap<>();
-        System.out.println("ElpriserAPI initialiserat. Cachning: " + (enableCaching ? "På" : "Av"));
+        this(builder().caching(enableCaching));
+    }
+
+    /**
+     * Konstruktor med en explicit katalog för disk-cachen.
+     * Standardkatalogen är {@code ~/.elpriser_cache} och kan även ändras med systemegenskapen
+     * {@code elpriser.cache.dir}.
+     * @param enableCaching Sätt till true för att aktivera minnes- och disk-cachning, annars false.
+     * @param diskCacheDir Katalogen där hämtade dagar sparas.
+     */
+    public ElpriserAPI(boolean enableCaching, Path diskCacheDir) {
+        this(builder().caching(enableCaching).diskCacheDir(diskCacheDir));
+    }
+
+    private ElpriserAPI(Builder builder) {
+        this.transport = builder.transport != null ? builder.transport : HttpTransport.jdk(builder.connectTimeout);
+        this.baseUrl = builder.baseUrl;
+        this.requestTimeout = builder.requestTimeout;
+        this.maxRetries = builder.maxRetries;
+        this.retryBackoff = builder.retryBackoff;
+        this.kretsbrytare = new CircuitBreaker(builder.circuitBreakerThreshold, builder.circuitBreakerOpenTime, builder.clock);
+        this.cachingEnabled = builder.caching;
+        this.clock = builder.clock;
+        this.inMemoryCache = new PriceCache(builder.maxCachedDays, builder.clock);
+        this.historiskTtl = builder.historiskTtl;
+        this.aktuellTtl = builder.aktuellTtl;
+        this.negativTtl = builder.negativTtl;
+        this.jsonDiskCache = builder.diskCacheDir == null
+                ? DiskCache.fromSystemProperties()
+                : new DiskCache(builder.diskCacheDir, Long.getLong(DiskCache.MAX_BYTES_PROPERTY, DiskCache.DEFAULT_MAX_BYTES));
+        this.diskCache = jsonDiskCache.withSuffix(DiskCache.BINARY_SUFFIX);
+        this.metrics = builder.metrics;
+        this.aggregatIndex = new AggregateIndex(cachingEnabled ? diskCache.directory() : null);
+        this.arkiv = cachingEnabled ? new PriceArchive(diskCache.directory()) : null;
+        Logg.debug(() -> "ElpriserAPI initialiserat. Cachning: " + (cachingEnabled ? "På" : "Av"));
+    }
+
+    /**
+     * Anger vart loggningens DEBUG- och INFO-rader skrivs, t.ex. till samma buffrade utskrift som
+     * resultatet eller till {@code System.err} när resultatet ska kunna läsas maskinellt.
+     * @param utskrift Tar emot en rad i taget, null för {@code System.out}.
+     */
+    public static void setLogOutput(Consumer<String> utskrift) {
+        Logg.setUtskrift(utskrift);
+    }
+
+    /**
+     * @return En builder för att konfigurera cachning och andra inställningar.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Inställningar för {@link ElpriserAPI}. Alla värden har rimliga standardvärden.
+     */
+    public static final class Builder {
+        private boolean caching = true;
+        private Path diskCacheDir;
+        private int maxCachedDays = 1024;
+        private Duration historiskTtl = Duration.ofDays(30);
+        private Duration aktuellTtl = Duration.ofHours(1);
+        private Duration negativTtl = Duration.ofMinutes(5);
+        private Clock clock = Clock.system(ZoneId.of("Europe/Stockholm"));
+        private ElpriserMetrics metrics = new InMemoryMetrics();
+        private HttpTransport transport;
+        private String baseUrl = API_BASE_URL;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(10);
+        private int maxRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(200);
+        private int circuitBreakerThreshold = 5;
+        private Duration circuitBreakerOpenTime = Duration.ofSeconds(30);
+
+        private Builder() {
+        }
+
+        /** Aktiverar eller stänger av minnes- och disk-cachning (standard på). */
+        public Builder caching(boolean enabled) {
+            this.caching = enabled;
+            return this;
+        }
+
+        /** Katalog för disk-cachen (standard {@code ~/.elpriser_cache} eller {@code elpriser.cache.dir}). */
+        public Builder diskCacheDir(Path dir) {
+            this.diskCacheDir = dir;
+            return this;
+        }
+
+        /** Maximalt antal dagar, totalt över alla prisområden, i minnes-cachen innan de äldst använda trängs undan. */
+        public Builder maxCachedDays(int maxCachedDays) {
+            this.maxCachedDays = maxCachedDays;
+            return this;
+        }
+
+        /** Livslängd i minnet för dagar före idag, vars priser inte längre ändras. */
+        public Builder historiskTtl(Duration ttl) {
+            this.historiskTtl = ttl;
+            return this;
+        }
+
+        /** Livslängd i minnet för idag och framåt. */
+        public Builder aktuellTtl(Duration ttl) {
+            this.aktuellTtl = ttl;
+            return this;
+        }
+
+        /** Hur länge en dag utan data (HTTP 404) ska cachas innan den efterfrågas igen. */
+        public Builder negativTtl(Duration ttl) {
+            this.negativTtl = ttl;
+            return this;
+        }
+
+        /** Klockan som avgör vilket datum som är idag. */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /** Var mätvärden ska registreras (standard en ny {@link InMemoryMetrics}). */
+        public Builder metrics(ElpriserMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /** Transporten som anropen skickas med (standard {@link HttpTransport#jdk(Duration)}). */
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /** Bas-URL för API:t, t.ex. en lokal stubbserver i tester. */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            return this;
+        }
+
+        /** Längsta tid för att öppna en anslutning med standardtransporten (standard 5 s). */
+        public Builder connectTimeout(Duration timeout) {
+            this.connectTimeout = timeout;
+            return this;
+        }
+
+        /** Längsta tid att vänta på ett svar, per försök (standard 10 s). */
+        public Builder requestTimeout(Duration timeout) {
+            this.requestTimeout = timeout;
+            return this;
+        }
+
+        /**
+         * Omförsök vid IO-fel, timeout, HTTP 5xx och 429 (standard 2 omförsök, 200 ms). Väntetiden
+         * dubblas för varje försök och slumpas mellan noll och det värdet.
+         */
+        public Builder retries(int maxRetries, Duration backoff) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries kan inte vara negativt");
+            }
+            this.maxRetries = maxRetries;
+            this.retryBackoff = backoff;
+            return this;
+        }
+
+        /**
+         * Kretsbrytaren öppnas efter {@code threshold} misslyckade anrop i rad och nekar sedan
+         * anrop i {@code openTime} (standard 5 anrop, 30 s). Under tiden används utgångna
+         * priser ur minnes-cachen om sådana finns.
+         */
+        public Builder circuitBreaker(int threshold, Duration openTime) {
+            this.circuitBreakerThreshold = threshold;
+            this.circuitBreakerOpenTime = openTime;
+            return this;
+        }
+
+        public ElpriserAPI build() {
+            return new ElpriserAPI(this);
+        }
     }
 
     /**
@@ -128,7 +351,7 @@ public final class ElpriserAPI {
             LocalDate datum = LocalDate.parse(datumStr, DateTimeFormatter.ISO_LOCAL_DATE);
             return getPriser(datum, prisklass);
         } catch (Exception e) {
-            System.err.println("Ogiltigt datumformat. Använd YYYY-MM-DD. Fel: " + e.getMessage());
+            Logg.warn("Ogiltigt datumformat. Använd YYYY-MM-DD. Fel: " + e.getMessage());
             return Collections.emptyList();
         }
     }
@@ -141,161 +364,720 @@ public final class ElpriserAPI {
      * @return En lista av {@link Elpris}-objekt, eller en tom lista om data inte kunde hämtas.
      */
     public List<Elpris> getPriser(LocalDate datum, Prisklass prisklass) {
+        return getPriserAsync(datum, prisklass).join();
+    }
+
+    /**
+     * Hämtar elpriser asynkront för ett specifikt datum och prisklass.
+     * Cachade dagar returneras som en redan avslutad future, annars skickas anropet med
+     * {@link HttpTransport#send} utan att blockera anropande tråd.
+     *
+     * @param datum Dagen att hämta priser för.
+     * @param prisklass Elprisområdet (SE1, SE2, SE3 eller SE4).
+     * @return En future med listan av {@link Elpris}-objekt. Den avslutas aldrig med ett fel,
+     *         utan med en tom lista om data inte kunde hämtas.
+     */
+    public CompletableFuture<List<Elpris>> getPriserAsync(LocalDate datum, Prisklass prisklass) {
+        return getPriceSeriesAsync(datum, prisklass).thenApply(PriceSeries::asList);
+    }
+
+    /**
+     * Hämtar elpriser som en kolumnbaserad {@link PriceSeries}, utan att skapa ett objekt per period.
+     *
+     * @param datum Dagen att hämta priser för.
+     * @param prisklass Elprisområdet (SE1, SE2, SE3 eller SE4).
+     * @return Dagens priser, eller en tom serie om data inte kunde hämtas.
+     */
+    public PriceSeries getPriceSeries(LocalDate datum, Prisklass prisklass) {
+        return getPriceSeriesAsync(datum, prisklass).join();
+    }
+
+    /**
+     * Asynkron variant av {@link #getPriceSeries(LocalDate, Prisklass)}.
+     * Futuren avslutas aldrig med ett fel, utan med en tom serie om data inte kunde hämtas.
+     */
+    public CompletableFuture<PriceSeries> getPriceSeriesAsync(LocalDate datum, Prisklass prisklass) {
+        return hämtaAsync(datum, prisklass)
+                .exceptionally(e -> {
+                    // I ett produktionssystem skulle man vilja logga detta fel mer utförligt
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    Logg.error("Ett fel inträffade vid hämtning av elpriser: " + cause.getMessage());
+                    return PriceSeries.empty();
+                });
+    }
+
+    /**
+     * Samma som {@link #getPriserAsync(LocalDate, Prisklass)}, men tillfälliga fel (IO-fel,
+     * HTTP 5xx och 429) avslutar futuren med ett {@link IOException} i stället för en tom serie,
+     * så att anroparen kan försöka igen.
+     */
+    CompletableFuture<PriceSeries> hämtaAsync(LocalDate datum, Prisklass prisklass) {
         String cacheKey = getCacheKey(datum, prisklass);
 
         // Steg 1: Kolla minnes-cachen
-        if (cachingEnabled && inMemoryCache.containsKey(cacheKey)) {
-            System.out.println("Hämtar från minnes-cache för " + cacheKey);
-            return inMemoryCache.get(cacheKey);
+        PriceSeries cachade = cachingEnabled ? inMemoryCache.get(cacheKey) : null;
+        if (cachade != null) {
+            metrics.recordCacheHit(ElpriserMetrics.CacheTier.MEMORY);
+            if (cachade.isEmpty()) {
+                Logg.debug(() -> "Inga priser för " + cacheKey + " (cachat svar).");
+            } else {
+                Logg.debug(() -> "Hämtar från minnes-cache för " + cacheKey);
+            }
+            return CompletableFuture.completedFuture(cachade);
+        }
+        if (cachingEnabled) {
+            metrics.recordCacheMiss(ElpriserMetrics.CacheTier.MEMORY);
+        }
+
+        // Finns redan en hämtning för samma nyckel väntar vi på den i stället för att starta en till
+        CompletableFuture<PriceSeries> hämtning = new CompletableFuture<>();
+        CompletableFuture<PriceSeries> pågående = pågåendeHämtningar.putIfAbsent(cacheKey, hämtning);
+        if (pågående != null) {
+            sammanslagnaHämtningar.increment();
+            return pågående;
+        }
+        // En annan tråd kan ha hunnit bli klar mellan cache-kontrollen och putIfAbsent
+        cachade = cachingEnabled ? inMemoryCache.peek(cacheKey) : null;
+        if (cachade != null) {
+            pågåendeHämtningar.remove(cacheKey, hämtning);
+            hämtning.complete(cachade);
+            return hämtning;
+        }
+        utfärdadeHämtningar.increment();
+        try {
+            laddaAsync(datum, prisklass, cacheKey).whenComplete((priser, fel) -> {
+                pågåendeHämtningar.remove(cacheKey, hämtning);
+                if (fel != null) {
+                    hämtning.completeExceptionally(fel);
+                } else {
+                    hämtning.complete(priser);
+                }
+            });
+        } catch (RuntimeException e) {
+            pågåendeHämtningar.remove(cacheKey, hämtning);
+            hämtning.completeExceptionally(e);
         }
+        return hämtning;
+    }
 
-        // Steg 2: Försök ladda från disk-cache (framtida implementation)
-        var priserFrånDisk = loadFromDiskCache(cacheKey);
-        if (cachingEnabled && priserFrånDisk != null && !priserFrånDisk.isEmpty()) {
-             System.out.println("Hämtar från disk-cache för " + cacheKey);
-             inMemoryCache.put(cacheKey, priserFrånDisk); // Lägg i minnes-cachen för snabbare åtkomst nästa gång
-             return priserFrånDisk;
+    /**
+     * Som {@link #hämtaAsync}, men en cachad miss (HTTP 404) tas bort först så att dagen
+     * efterfrågas på nytt. Används av {@link Prefetcher} medan morgondagen inte är publicerad.
+     */
+    CompletableFuture<PriceSeries> hämtaFörbiNegativCache(LocalDate datum, Prisklass prisklass) {
+        if (cachingEnabled) {
+            String cacheKey = getCacheKey(datum, prisklass);
+            PriceSeries cachade = inMemoryCache.peek(cacheKey);
+            if (cachade != null && cachade.isEmpty()) {
+                inMemoryCache.invalidate(cacheKey);
+            }
         }
+        return hämtaAsync(datum, prisklass);
+    }
 
+    /**
+     * Statistik för sammanslagning av samtidiga hämtningar.
+     * @return Antal hämtningar som faktiskt gjorts mot disk/nätverk, och antal anrop som i stället
+     *         väntade på en redan pågående hämtning för samma dag och prisområde.
+     */
+    public FetchStats getFetchStats() {
+        return new FetchStats(utfärdadeHämtningar.sum(), sammanslagnaHämtningar.sum());
+    }
+
+    /**
+     * Räknare för {@link #getFetchStats()}.
+     */
+    public record FetchStats(long issued, long coalesced) {}
+
+    // Steg 2 och 3, anropas bara av den tråd som äger hämtningen för nyckeln
+    private CompletableFuture<PriceSeries> laddaAsync(LocalDate datum, Prisklass prisklass, String cacheKey) {
         // Check for a mock response before making a network call ---
-        if (mockResponseSupplier != null || !datedMockResponses.isEmpty()) {
-            System.out.println("!!! ANVÄNDER MOCK-DATA FÖR TEST !!!");
+        // (mock-data ska aldrig blandas ihop med riktig data på disk)
+        boolean mockActive = isMockActive();
+
+        // Dagar som kan ändras och som redan hämtats kontrolleras mot servern i stället för disk
+        Validering validering = cachingEnabled && !mockActive ? aktuellValidering(datum, cacheKey) : null;
+        if (validering != null) {
+            Logg.debug(() -> "Kontrollerar om " + cacheKey + " har ändrats");
+            return hämtaFrånNätverket(datum, prisklass, cacheKey, validering);
+        }
+
+        // Steg 2: Försök ladda från arkivet och sedan disk-cachen
+        if (cachingEnabled && !mockActive) {
+            var priserFrånArkiv = arkiv.get(prisklass, datum);
+            if (priserFrånArkiv != null) {
+                metrics.recordCacheHit(ElpriserMetrics.CacheTier.ARCHIVE);
+                Logg.debug(() -> "Hämtar från prisarkivet för " + cacheKey);
+                inMemoryCache.put(cacheKey, priserFrånArkiv, ttlFör(datum));
+                return CompletableFuture.completedFuture(priserFrånArkiv);
+            }
+            metrics.recordCacheMiss(ElpriserMetrics.CacheTier.ARCHIVE);
+
+            var priserFrånDisk = loadFromDiskCache(datum, prisklass, cacheKey);
+            if (priserFrånDisk != null && !priserFrånDisk.isEmpty()) {
+                metrics.recordCacheHit(ElpriserMetrics.CacheTier.DISK);
+                indexera(datum, prisklass, priserFrånDisk, true);
+                Logg.debug(() -> "Hämtar från disk-cache för " + cacheKey);
+                inMemoryCache.put(cacheKey, priserFrånDisk, ttlFör(datum)); // Lägg i minnes-cachen för snabbare åtkomst nästa gång
+                return CompletableFuture.completedFuture(priserFrånDisk);
+            }
+            metrics.recordCacheMiss(ElpriserMetrics.CacheTier.DISK);
+        }
+
+        if (mockActive) {
+            Logg.info("!!! ANVÄNDER MOCK-DATA FÖR TEST !!!");
             String mockJson = datedMockResponses.getOrDefault(datum, mockResponseSupplier == null ? null : mockResponseSupplier.get());
             if (mockJson == null || mockJson.isBlank()) {
-                return Collections.emptyList();
+                return CompletableFuture.completedFuture(PriceSeries.empty());
             }
-            List<Elpris> priser = parseSimpleJson(mockJson);
+            PriceSeries priser = parse(mockJson.getBytes(StandardCharsets.UTF_8));
+            indexera(datum, prisklass, priser, false);
             if (cachingEnabled && !priser.isEmpty()) {
-                inMemoryCache.put(cacheKey, priser);
+                inMemoryCache.put(cacheKey, priser, ttlFör(datum));
             }
-            return priser;
+            return CompletableFuture.completedFuture(priser);
         }
         // --- End of mock check ---
 
         // Steg 3: Hämta från nätverket om det inte finns i cachen
-        System.out.println("Hämtar från nätverket för " + cacheKey);
-        String url = buildUrl(datum, prisklass);
-        try {
-            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Logg.info("Hämtar från nätverket för " + cacheKey);
+        return hämtaFrånNätverket(datum, prisklass, cacheKey, null);
+    }
 
-            // Om sidan inte finns (t.ex. priser för morgondagen) returneras 404
-            if (response.statusCode() == 404) {
-                System.out.println("Inga priser hittades för " + cacheKey + " (HTTP 404).");
-                return Collections.emptyList();
+    /**
+     * Hämtar en dag från nätverket. Med en {@link Validering} blir anropet villkorligt och ett
+     * oförändrat svar återanvänder de redan tolkade priserna.
+     */
+    private CompletableFuture<PriceSeries> hämtaFrånNätverket(LocalDate datum, Prisklass prisklass, String cacheKey,
+                                                              Validering validering) {
+        Map<String, String> headers = new TreeMap<>();
+        if (validering != null && validering.etag() != null) {
+            headers.put("If-None-Match", validering.etag());
+        }
+        if (validering != null && validering.lastModified() != null) {
+            headers.put("If-Modified-Since", validering.lastModified());
+        }
+        HttpTransport.Request request = new HttpTransport.Request(
+                URI.create(buildUrl(datum, prisklass)), headers, requestTimeout);
+        return skickaMedOmförsök(request, 0)
+                .thenApply(response -> handleResponse(datum, prisklass, cacheKey, response, validering))
+                .exceptionally(e -> {
+                    // Hellre gamla priser än inga när nätverket inte svarar
+                    PriceSeries utgångna = cachingEnabled ? inMemoryCache.stale(cacheKey) : null;
+                    if (utgångna == null && validering != null) {
+                        utgångna = validering.priser();
+                    }
+                    if (utgångna == null || !(orsak(e) instanceof IOException)) {
+                        throw e instanceof CompletionException ce ? ce : new CompletionException(e);
+                    }
+                    Logg.warn("Använder utgångna priser ur cachen för " + cacheKey + ": " + orsak(e).getMessage());
+                    return utgångna;
+                });
+    }
+
+    /**
+     * Skickar ett anrop och försöker igen vid IO-fel, timeout, HTTP 5xx och 429, med
+     * exponentiellt växande och slumpad väntetid. När kretsbrytaren är öppen misslyckas
+     * anropet direkt med ett {@link IOException}.
+     */
+    private CompletableFuture<HttpTransport.Response> skickaMedOmförsök(HttpTransport.Request request, int försök) {
+        if (!kretsbrytare.tillåt()) {
+            return CompletableFuture.failedFuture(new IOException("Kretsbrytaren är öppen, " + request.uri() + " anropas inte"));
+        }
+        long skickat = System.nanoTime();
+        CompletableFuture<HttpTransport.Response> svar;
+        try {
+            svar = transport.send(request);
+        } catch (RuntimeException e) {
+            svar = CompletableFuture.failedFuture(e);
+        }
+        return svar.handle((response, fel) -> {
+            metrics.recordFetch(System.nanoTime() - skickat, response == null ? 0 : response.statusCode());
+            boolean tillfälligt = fel != null
+                    ? orsak(fel) instanceof IOException
+                    : response.statusCode() >= 500 || response.statusCode() == 429;
+            if (!tillfälligt) {
+                if (fel == null) {
+                    kretsbrytare.lyckades();
+                    return CompletableFuture.completedFuture(response);
+                }
+                return CompletableFuture.<HttpTransport.Response>failedFuture(orsak(fel));
             }
-            if (response.statusCode() != 200) {
-                 System.err.println("Misslyckades med att hämta priser. Statuskod: " + response.statusCode());
-                 return Collections.emptyList();
+            kretsbrytare.misslyckades();
+            if (försök >= maxRetries) {
+                return fel != null
+                        ? CompletableFuture.<HttpTransport.Response>failedFuture(orsak(fel))
+                        : CompletableFuture.completedFuture(response);
             }
+            // "Full jitter": slumpad väntan upp till backoff * 2^försök
+            long tak = retryBackoff.toMillis() << Math.min(försök, 16);
+            long väntan = ThreadLocalRandom.current().nextLong(tak + 1);
+            Logg.debug(() -> "Försöker igen om " + väntan + " ms: " + request.uri()
+                    + (fel != null ? " (" + orsak(fel).getMessage() + ")" : " (HTTP " + response.statusCode() + ")"));
+            Executor senare = CompletableFuture.delayedExecutor(väntan, TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> request, senare)
+                    .thenCompose(r -> skickaMedOmförsök(r, försök + 1));
+        }).thenCompose(f -> f);
+    }
 
-            List<Elpris> priser = parseSimpleJson(response.body());
+    private static Throwable orsak(Throwable fel) {
+        return fel instanceof CompletionException && fel.getCause() != null ? fel.getCause() : fel;
+    }
 
-            // Steg 4: Spara i cache om cachning är på
-            if (cachingEnabled && !priser.isEmpty()) {
-                inMemoryCache.put(cacheKey, priser);
-                saveToDiskCache(cacheKey, response.body()); // Spara rådata till disk (framtida implementation)
+    /**
+     * Hämtar historik för ett datumintervall och flera prisområden, t.ex. för att fylla disk-cachen.
+     * Dagarna hämtas på virtuella trådar med högst {@code maxSamtidiga} pågående anrop,
+     * tillfälliga fel försöks igen enligt {@link Builder#retries(int, Duration)} och dagar som
+     * redan finns i cachen hoppas över.
+     *
+     * @param från Första dagen (inklusive).
+     * @param till Sista dagen (inklusive).
+     * @param prisklasser Prisområdena att hämta.
+     * @param maxSamtidiga Maximalt antal samtidiga anrop.
+     * @param progress Anropas efter varje färdig dag, från godtycklig tråd.
+     * @return En sammanfattning av körningen.
+     */
+    public BackfillRapport backfill(LocalDate från, LocalDate till, Set<Prisklass> prisklasser,
+                                    int maxSamtidiga, Consumer<BackfillProgress> progress) {
+        if (till.isBefore(från)) {
+            throw new IllegalArgumentException("Slutdatum " + till + " är före startdatum " + från);
+        }
+        if (maxSamtidiga < 1) {
+            throw new IllegalArgumentException("maxSamtidiga måste vara minst 1");
+        }
+        return new Backfill(this, maxSamtidiga, progress).kör(från, till, prisklasser);
+    }
+
+    /**
+     * Sammanfattning av en {@link #backfill}-körning.
+     */
+    public record BackfillRapport(
+        int hämtade,
+        int hoppadeÖver,
+        int utanData,
+        int misslyckade,
+        long rader,
+        Duration tid
+    ) {
+        public double raderPerSekund() {
+            return perSekund(rader, tid);
+        }
+    }
+
+    /**
+     * Lägesrapport under en {@link #backfill}-körning.
+     */
+    public record BackfillProgress(int klara, int totalt, long rader, Duration tid) {
+        public double raderPerSekund() {
+            return perSekund(rader, tid);
+        }
+    }
+
+    private static double perSekund(long rader, Duration tid) {
+        long nanos = tid.toNanos();
+        return nanos == 0 ? 0 : rader * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * @return true om dagen redan finns i minnes- eller disk-cachen.
+     */
+    boolean isCached(LocalDate datum, Prisklass prisklass) {
+        if (!cachingEnabled) {
+            return false;
+        }
+        String cacheKey = getCacheKey(datum, prisklass);
+        PriceSeries cachade = inMemoryCache.peek(cacheKey);
+        return (cachade != null && !cachade.isEmpty()) || (!isMockActive() && (arkiv.contains(prisklass, datum)
+                || diskCache.contains(cacheKey) || jsonDiskCache.contains(cacheKey)));
+    }
+
+    /**
+     * Startar förhämtning av morgondagens priser för alla prisområden från klockslaget
+     * {@code från} varje dag (i klockans tidszon, standard Europe/Stockholm). Försöker igen efter
+     * 5 minuter, med fördubbling upp till en timme, så länge priserna inte är publicerade.
+     *
+     * @param från T.ex. 13:00, när nästa dags priser brukar publiceras.
+     * @return Schemaläggaren, som stoppas med {@link Prefetcher#close()}.
+     */
+    public Prefetcher startPrefetch(LocalTime från) {
+        return startPrefetch(från, Duration.ofMinutes(5), Duration.ofHours(1));
+    }
+
+    /**
+     * Som {@link #startPrefetch(LocalTime)} med egen backoff mellan försöken.
+     */
+    public Prefetcher startPrefetch(LocalTime från, Duration förstaBackoff, Duration maxBackoff) {
+        return Prefetcher.start(this, clock, från, förstaBackoff, maxBackoff);
+    }
+
+    /**
+     * Nyckeltal per dag ur aggregatindexet, utan att läsa några prisrader. Indexet fylls på
+     * när en dag hämtas från nätverket eller disk-cachen (t.ex. av {@link #backfill}) och
+     * sparas mellan körningar.
+     *
+     * @param från Första dagen (inklusive).
+     * @param till Sista dagen (inklusive).
+     * @return Dagarna i intervallet som finns i indexet, i datumordning.
+     */
+    public SortedMap<LocalDate, DailyAggregate> getDailyAggregates(LocalDate från, LocalDate till, Prisklass prisklass) {
+        return aggregatIndex.range(prisklass, från, till);
+    }
+
+    /**
+     * Lägsta, högsta och medelpris över ett datumintervall, beräknat från aggregatindexet.
+     * Vid lika pris gäller den tidigaste perioden.
+     *
+     * @return Nyckeltalen, eller tomt om ingen dag i intervallet finns i indexet.
+     */
+    public Optional<DailyAggregate.Range> getRangeAggregate(LocalDate från, LocalDate till, Prisklass prisklass) {
+        SortedMap<LocalDate, DailyAggregate> dagar = aggregatIndex.range(prisklass, från, till);
+        if (dagar.isEmpty()) {
+            return Optional.empty();
+        }
+        long count = 0;
+        double sum = 0.0;
+        DailyAggregate min = null;
+        DailyAggregate max = null;
+        for (DailyAggregate dag : dagar.values()) {
+            count += dag.count();
+            sum += dag.sum();
+            if (min == null || dag.min() < min.min()) {
+                min = dag;
             }
-            return priser;
+            if (max == null || dag.max() > max.max()) {
+                max = dag;
+            }
+        }
+        return Optional.of(new DailyAggregate.Range(från, till, dagar.size(), count, sum,
+                min.min(), min.minStartEpochSecond(), max.max(), max.maxStartEpochSecond()));
+    }
 
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Ett fel inträffade vid hämtning av elpriser: " + e.getMessage());
-            // I ett produktionssystem skulle man vilja logga detta fel mer utförligt
-            Thread.currentThread().interrupt(); // Bra praxis vid InterruptedException
-            return Collections.emptyList();
+    /**
+     * Alla arkiverade priser för ett prisområde i ett datumintervall, lästa i ett svep ur
+     * prisarkivet utan nätverksanrop. Arkivet fylls på när en dag hämtas från nätverket eller
+     * disk-cachen, t.ex. av {@link #backfill}.
+     *
+     * @param från Första dagen (inklusive).
+     * @param till Sista dagen (inklusive).
+     * @return Perioderna för de arkiverade dagarna i intervallet, tom om cachning är avstängd.
+     */
+    public PriceSeries getArchivedPrices(LocalDate från, LocalDate till, Prisklass prisklass) {
+        return arkiv == null ? PriceSeries.empty() : arkiv.range(prisklass, från, till);
+    }
+
+    // Mock-data hålls utanför indexet och arkivet på disk, precis som utanför disk-cachen
+    private void indexera(LocalDate datum, Prisklass prisklass, PriceSeries priser, boolean persist) {
+        if (!priser.isEmpty()) {
+            aggregatIndex.record(prisklass, DailyAggregate.of(datum, priser), persist);
+            // Arkivet skrivs bara en gång per dag, så dagar som fortfarande kan ändras väntar
+            if (persist && arkiv != null && datum.isBefore(LocalDate.now(clock))) {
+                arkiv.record(prisklass, datum, priser);
+            }
         }
     }
 
-    // --- Privata hjälpmetoder ---
+    /**
+     * @return Mätpunkterna som API:t registrerar i. Med standardinställningen är det en
+     *         {@link InMemoryMetrics} vars {@link InMemoryMetrics#snapshot()} kan exporteras
+     *         med {@link MetricsExporter}.
+     */
+    public ElpriserMetrics getMetrics() {
+        return metrics;
+    }
 
-    private String buildUrl(LocalDate datum, Prisklass prisklass) {
-        String formattedDate = datum.format(URL_DATE_FORMATTER);
-        return String.format("%s/%s_%s.json", API_BASE_URL, formattedDate, prisklass.name());
+    /**
+     * @return Träffar, missar och undanträngda poster i minnes-cachen.
+     */
+    public CacheStats getCacheStats() {
+        return inMemoryCache.stats();
     }
-    
-    private String getCacheKey(LocalDate datum, Prisklass prisklass) {
-        return datum.format(DateTimeFormatter.ISO_LOCAL_DATE) + "_" + prisklass.name();
+
+    /**
+     * Räknare för minnes-cachen.
+     * @param hits Träffar med priser.
+     * @param negativeHits Träffar på en cachad miss (HTTP 404).
+     * @param misses Missar, inklusive utgångna poster.
+     * @param evictions Poster som trängts undan för att cachen var full.
+     * @param expirations Poster som tagits bort för att deras livslängd gått ut.
+     * @param size Antal poster just nu.
+     * @param maxSize Maximalt antal poster.
+     */
+    public record CacheStats(long hits, long negativeHits, long misses, long evictions, long expirations,
+                             int size, int maxSize) {}
+
+    // Passerade dagar ändras inte, medan idag och imorgon cachas kortare tid
+    private Duration ttlFör(LocalDate datum) {
+        return datum.isBefore(LocalDate.now(clock)) ? historiskTtl : aktuellTtl;
+    }
+
+    private static boolean isMockActive() {
+        return mockResponseSupplier != null || !datedMockResponses.isEmpty();
     }
 
     /**
-     * En mycket enkel JSON-parser som är skräddarsydd för just detta API:s svarsformat.
-     * Denna metod är inte en generell JSON-parser och är känslig för ändringar i formatet.
+     * Hämtar flera dagar och prisområden samtidigt. Alla anrop skickas direkt och resultatet
+     * blir klart när det sista har besvarats.
+     *
+     * @param datum Dagarna att hämta.
+     * @param prisklasser Prisområdena att hämta för varje dag.
+     * @return En future med priserna per prisområde och dag, i datumordning.
+     *         Dagar utan data finns med som tomma listor. Misslyckas en dag även efter
+     *         omförsöken avslutas futuren med det felet.
      */
-    private List<Elpris> parseSimpleJson(String json) {
-        List<Elpris> priser = new ArrayList<>();
-        // Ta bort yttre [ och ], samt eventuella blanksteg
-        String trimmedJson = json.trim();
-        if (!trimmedJson.startsWith("[") || !trimmedJson.endsWith("]")) {
-            return Collections.emptyList();
+    public CompletableFuture<Map<Prisklass, SortedMap<LocalDate, List<Elpris>>>> getPriserAsync(
+            Collection<LocalDate> datum, Collection<Prisklass> prisklasser) {
+        Map<Prisklass, SortedMap<LocalDate, CompletableFuture<List<Elpris>>>> pågående = new EnumMap<>(Prisklass.class);
+        List<CompletableFuture<List<Elpris>>> alla = new ArrayList<>();
+        for (Prisklass prisklass : prisklasser) {
+            SortedMap<LocalDate, CompletableFuture<List<Elpris>>> perDag = new TreeMap<>();
+            for (LocalDate dag : datum) {
+                var future = hämtaAsync(dag, prisklass).thenApply(PriceSeries::asList);
+                perDag.put(dag, future);
+                alla.add(future);
+            }
+            pågående.put(prisklass, perDag);
         }
-        String content = trimmedJson.substring(1, trimmedJson.length() - 1).trim();
-        if (content.isEmpty()) {
-            return Collections.emptyList();
+        return CompletableFuture.allOf(alla.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<Prisklass, SortedMap<LocalDate, List<Elpris>>> resultat = new EnumMap<>(Prisklass.class);
+            pågående.forEach((prisklass, perDag) -> {
+                SortedMap<LocalDate, List<Elpris>> priser = new TreeMap<>();
+                perDag.forEach((dag, future) -> priser.put(dag, future.join()));
+                resultat.put(prisklass, priser);
+            });
+            return resultat;
+        });
+    }
+
+    /**
+     * Hämtar alla dagar i ett intervall för flera prisområden parallellt och slår ihop dem till
+     * en serie per prisområde, i tidsordning.
+     *
+     * @param från Första dagen (inklusive).
+     * @param till Sista dagen (inklusive).
+     * @return Priserna per prisområde. Dagar utan data hoppas över, så serien kan ha luckor
+     *         eller vara tom.
+     */
+    public Map<Prisklass, PriceSeries> getPriser(LocalDate från, LocalDate till, Set<Prisklass> prisklasser) {
+        return getPriceSeriesAsync(från, till, prisklasser).join();
+    }
+
+    /**
+     * Asynkron variant av {@link #getPriser(LocalDate, LocalDate, Set)}. Alla dagar och
+     * prisområden hämtas samtidigt.
+     */
+    public CompletableFuture<Map<Prisklass, PriceSeries>> getPriceSeriesAsync(LocalDate från, LocalDate till,
+                                                                             Set<Prisklass> prisklasser) {
+        if (till.isBefore(från)) {
+            throw new IllegalArgumentException("Slutdatum " + till + " är före startdatum " + från);
+        }
+        Map<Prisklass, List<CompletableFuture<PriceSeries>>> pågående = new EnumMap<>(Prisklass.class);
+        List<CompletableFuture<PriceSeries>> alla = new ArrayList<>();
+        for (Prisklass prisklass : prisklasser) {
+            List<CompletableFuture<PriceSeries>> perDag = new ArrayList<>();
+            for (LocalDate dag = från; !dag.isAfter(till); dag = dag.plusDays(1)) {
+                perDag.add(getPriceSeriesAsync(dag, prisklass));
+            }
+            pågående.put(prisklass, perDag);
+            alla.addAll(perDag);
         }
+        return CompletableFuture.allOf(alla.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<Prisklass, PriceSeries> resultat = new EnumMap<>(Prisklass.class);
+            pågående.forEach((prisklass, perDag) -> resultat.put(prisklass, slåIhop(perDag)));
+            return resultat;
+        });
+    }
 
-        // Dela upp i enskilda JSON-objekt
-        String[] objects = content.split("}\\s*,\\s*\\{");
-
-        for (String objStr : objects) {
-            // Rensa bort resterande { och }
-            String cleanObjStr = objStr.replace("{", "").replace("}", "");
-            
-            try {
-                // Skapa en temporär map för att hålla värdena för ett objekt
-                Map<String, String> valueMap = new java.util.HashMap<>();
-                String[] pairs = cleanObjStr.split(",");
-                for (String pair : pairs) {
-                    String[] keyValue = pair.split(":", 2);
-                    String key = keyValue[0].trim().replace("\"", "");
-                    String value = keyValue[1].trim().replace("\"", "");
-                    valueMap.put(key, value);
-                }
+    /**
+     * Priserna från perioden som pågår nu och {@code längd} framåt, t.ex. de kommande 12 timmarna.
+     * Dagarna som behövs hämtas parallellt. Är morgondagens priser inte publicerade ännu blir
+     * serien kortare än begärt.
+     */
+    public PriceSeries getUpcomingPrices(Duration längd, Prisklass prisklass) {
+        return getUpcomingPricesAsync(längd, prisklass).join();
+    }
+
+    /**
+     * Asynkron variant av {@link #getUpcomingPrices(Duration, Prisklass)}.
+     */
+    public CompletableFuture<PriceSeries> getUpcomingPricesAsync(Duration längd, Prisklass prisklass) {
+        if (längd.isNegative() || längd.isZero()) {
+            throw new IllegalArgumentException("Längden måste vara positiv: " + längd);
+        }
+        long nu = clock.instant().getEpochSecond();
+        long slut = nu + längd.toSeconds();
+        LocalDate idag = LocalDate.ofInstant(clock.instant(), clock.getZone());
+        LocalDate sistaDag = LocalDate.ofInstant(clock.instant().plus(längd), clock.getZone());
+        return getPriceSeriesAsync(idag, sistaDag, Set.of(prisklass)).thenApply(perZon -> {
+            PriceSeries serie = perZon.get(prisklass);
+            int första = serie.indexAtOrAfter(nu);
+            // Ta med perioden som redan har börjat
+            if (första > 0 && serie.endEpochSecond(första - 1) > nu) {
+                första--;
+            }
+            return serie.slice(första, Math.max(första, serie.indexAtOrAfter(slut)));
+        });
+    }
 
-                // Skapa ett Elpris-objekt från värdena i mappen
-                priser.add(new Elpris(
-                    Double.parseDouble(valueMap.get("SEK_per_kWh")),
-                    Double.parseDouble(valueMap.get("EUR_per_kWh")),
-                    Double.parseDouble(valueMap.get("EXR")),
-                    ZonedDateTime.parse(valueMap.get("time_start")),
-                    ZonedDateTime.parse(valueMap.get("time_end"))
-                ));
-            } catch (Exception e) {
-                // Hoppa över objekt som inte kan parsas, logga ett fel
-                System.err.println("Kunde inte tolka ett elpris-objekt: " + cleanObjStr + " - Fel: " + e.getMessage());
+    // Dagarna är redan i tidsordning; en enda dag med data returneras som den är, utan kopiering
+    private static PriceSeries slåIhop(List<CompletableFuture<PriceSeries>> dagar) {
+        List<PriceSeries> medData = new ArrayList<>(dagar.size());
+        for (CompletableFuture<PriceSeries> dag : dagar) {
+            PriceSeries serie = dag.join();
+            if (!serie.isEmpty()) {
+                medData.add(serie);
             }
         }
+        return switch (medData.size()) {
+            case 0 -> PriceSeries.empty();
+            case 1 -> medData.getFirst();
+            default -> PriceSeries.concat(medData);
+        };
+    }
+
+    private PriceSeries handleResponse(LocalDate datum, Prisklass prisklass, String cacheKey,
+                                       HttpTransport.Response response, Validering validering) {
+        // Oförändrat sedan förra hämtningen, ingen body att tolka
+        if (response.statusCode() == 304 && validering != null) {
+            metrics.recordRevalidation(ElpriserMetrics.Revalidation.NOT_MODIFIED);
+            Logg.debug(() -> cacheKey + " har inte ändrats (HTTP 304)");
+            inMemoryCache.put(cacheKey, validering.priser(), ttlFör(datum));
+            return validering.priser();
+        }
+        // Om sidan inte finns (t.ex. priser för morgondagen) returneras 404
+        if (response.statusCode() == 404) {
+            Logg.info("Inga priser hittades för " + cacheKey + " (HTTP 404).");
+            if (cachingEnabled) {
+                inMemoryCache.putNegative(cacheKey, negativTtl);
+            }
+            return PriceSeries.empty();
+        }
+        // Serverfel och överbelastning är tillfälliga och kan försökas igen
+        if (response.statusCode() >= 500 || response.statusCode() == 429) {
+            throw new CompletionException(new IOException(
+                    "Misslyckades med att hämta priser. Statuskod: " + response.statusCode()));
+        }
+        if (response.statusCode() != 200) {
+             Logg.warn("Misslyckades med att hämta priser. Statuskod: " + response.statusCode());
+             return PriceSeries.empty();
+        }
+
+        // Samma body som förra gången behöver varken tolkas eller sparas igen
+        long hash = bodyHash(response.body());
+        if (validering != null && validering.bodyHash() == hash) {
+            metrics.recordRevalidation(ElpriserMetrics.Revalidation.UNCHANGED);
+            spara(datum, cacheKey, response, hash, validering.priser());
+            inMemoryCache.put(cacheKey, validering.priser(), ttlFör(datum));
+            return validering.priser();
+        }
+        if (validering != null) {
+            metrics.recordRevalidation(ElpriserMetrics.Revalidation.CHANGED);
+            Logg.info("Priserna för " + cacheKey + " har ändrats");
+        }
+
+        PriceSeries priser = parse(response.body());
+        indexera(datum, prisklass, priser, cachingEnabled);
+
+        // Steg 4: Spara i cache om cachning är på
+        if (cachingEnabled && !priser.isEmpty()) {
+            inMemoryCache.put(cacheKey, priser, ttlFör(datum));
+            saveToDiskCache(datum, prisklass, cacheKey, priser); // Spara binärt till disk
+            spara(datum, cacheKey, response, hash, priser);
+        }
         return priser;
     }
+
+    /**
+     * Det som behövs för att fråga servern om en dag har ändrats sedan den hämtades.
+     * @param bodyHash CRC32C och längd för senaste svarets body.
+     */
+    private record Validering(LocalDate datum, String etag, String lastModified, long bodyHash, PriceSeries priser) {}
+
+    // Sparar validering för idag och framåt; passerade dagar ändras inte och rensas bort
+    private void spara(LocalDate datum, String cacheKey, HttpTransport.Response response, long hash, PriceSeries priser) {
+        LocalDate idag = LocalDate.now(clock);
+        valideringar.values().removeIf(v -> v.datum().isBefore(idag));
+        if (!datum.isBefore(idag)) {
+            valideringar.put(cacheKey, new Validering(datum, response.header("ETag").orElse(null),
+                    response.header("Last-Modified").orElse(null), hash, priser));
+        }
+    }
+
+    private Validering aktuellValidering(LocalDate datum, String cacheKey) {
+        Validering validering = valideringar.get(cacheKey);
+        if (validering != null && datum.isBefore(LocalDate.now(clock))) {
+            valideringar.remove(cacheKey);
+            return null;
+        }
+        return validering;
+    }
+
+    private static long bodyHash(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return crc.getValue() << 32 | body.length;
+    }
+
+    // --- Privata hjälpmetoder ---
+
+    private String buildUrl(LocalDate datum, Prisklass prisklass) {
+        String formattedDate = datum.format(URL_DATE_FORMATTER);
+        return String.format("%s/%s_%s.json", baseUrl, formattedDate, prisklass.name());
+    }
     
-    // --- Stub-metoder för disk-cache ---
-    
+    private String getCacheKey(LocalDate datum, Prisklass prisklass) {
+        return datum.format(DateTimeFormatter.ISO_LOCAL_DATE) + "_" + prisklass.name();
+    }
+
+    // --- Disk-cache ---
+
     /**
-     * STUB: Spara data till en fil i en dold katalog i användarens hemkatalog.
-     * Oimplementerad tills vidare.
+     * Sparar priserna i disk-cachen i {@link PriceBinaryFormat}. Fel loggas men stoppar aldrig hämtningen.
      */
-    private void saveToDiskCache(String cacheKey, String jsonData) {
-        // Framtida implementation:
-        // Path cacheDir = Paths.get(System.getProperty("user.home"), ".elpriser_cache");
-        // Files.createDirectories(cacheDir);
-        // Path cacheFile = cacheDir.resolve(cacheKey + ".json");
-        // Files.writeString(cacheFile, jsonData);
-        // System.out.println("Simulerar: Sparar " + cacheKey + " till disk.");
+    private void saveToDiskCache(LocalDate datum, Prisklass prisklass, String cacheKey, PriceSeries priser) {
+        try {
+            diskCache.write(cacheKey, PriceBinaryFormat.encode(prisklass, datum, priser));
+        } catch (IOException | IllegalArgumentException e) {
+            Logg.warn("Kunde inte spara " + cacheKey + " till disk-cache: " + e.getMessage());
+        }
     }
 
     /**
-     * STUB: Läs data från en fil i en dold katalog i användarens hemkatalog.
-     * Oimplementerad tills vidare.
-     * @return En lista av Elpris-objekt om filen finns och kan läsas, annars null.
+     * Läser data från disk-cachen. Binärfilen mappas direkt till minnet; finns bara en äldre
+     * JSON-fil tolkas den och skrivs om binärt.
+     * @return Priserna om filen finns och är hel, annars null.
      */
-    private List<Elpris> loadFromDiskCache(String cacheKey) {
-        // Framtida implementation:
-        // Path cacheFile = Paths.get(System.getProperty("user.home"), ".elpriser_cache", cacheKey + ".json");
-        // if (Files.exists(cacheFile)) {
-        //     String jsonData = Files.readString(cacheFile);
-        //     return parseSimpleJson(jsonData);
-        // }
-        // System.out.println("Simulerar: Försöker läsa " + cacheKey + " från disk. Fanns ej.");
-        return null;
+    private PriceSeries loadFromDiskCache(LocalDate datum, Prisklass prisklass, String cacheKey) {
+        try {
+            ByteBuffer binär = diskCache.map(cacheKey);
+            if (binär != null) {
+                long start = System.nanoTime();
+                PriceSeries priser = PriceBinaryFormat.decode(binär);
+                metrics.recordParse(System.nanoTime() - start, priser.size());
+                return priser;
+            }
+            byte[] jsonData = jsonDiskCache.read(cacheKey);
+            if (jsonData == null) {
+                return null;
+            }
+            PriceSeries priser = parse(jsonData);
+            if (!priser.isEmpty()) {
+                saveToDiskCache(datum, prisklass, cacheKey, priser);
+                jsonDiskCache.delete(cacheKey);
+                Logg.debug(() -> "Konverterade " + cacheKey + " från JSON till binärformat");
+            }
+            return priser;
+        } catch (IOException | IllegalArgumentException e) {
+            Logg.warn("Kunde inte läsa " + cacheKey + " från disk-cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Tolkar ett JSON-svar och registrerar tid och antal rader
+    private PriceSeries parse(byte[] json) {
+        long start = System.nanoTime();
+        PriceSeries priser = PriceSeries.of(PriceJsonParser.parse(json));
+        metrics.recordParse(System.nanoTime() - start, priser.size());
+        return priser;
     }
 
 
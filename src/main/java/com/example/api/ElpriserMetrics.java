@@ -0,0 +1,61 @@
+package com.example.api;
+
+/**
+ * Mätpunkter i {@link ElpriserAPI}. Implementationer anropas från godtyckliga trådar, ofta på
+ * den heta vägen, och ska därför vara trådsäkra och billiga.
+ * <p>
+ * Standard är {@link InMemoryMetrics}. En egen implementation kan sättas med
+ * {@link ElpriserAPI.Builder#metrics(ElpriserMetrics)}, t.ex. för att skicka vidare till ett
+ * externt övervakningssystem, eller {@link #NOOP} för att inte mäta alls. Alla metoder gör
+ * ingenting som standard, så en implementation behöver bara ta de mätpunkter den bryr sig om
+ * och fortsätter att fungera när nya mätpunkter läggs till.
+ */
+public interface ElpriserMetrics {
+
+    /** Cache-nivåerna som slås upp före nätverket. */
+    enum CacheTier {
+        MEMORY, ARCHIVE, DISK
+    }
+
+    /** Utfallet när en redan hämtad dag kontrolleras mot servern igen. */
+    enum Revalidation {
+        /** Servern svarade 304 Not Modified. */
+        NOT_MODIFIED,
+        /** Servern skickade hela svaret, men det var identiskt med det förra. */
+        UNCHANGED,
+        /** Svaret hade ändrats och tolkades om. */
+        CHANGED
+    }
+
+    /** Implementation som inte gör något. */
+    ElpriserMetrics NOOP = new ElpriserMetrics() {
+    };
+
+    /**
+     * Ett avslutat anrop mot nätverket.
+     * @param latencyNanos Tid från att anropet skickades till att svaret (eller felet) kom.
+     * @param statusCode HTTP-statuskoden, eller 0 om inget svar kom (t.ex. IO-fel).
+     */
+    default void recordFetch(long latencyNanos, int statusCode) {
+    }
+
+    default void recordCacheHit(CacheTier tier) {
+    }
+
+    default void recordCacheMiss(CacheTier tier) {
+    }
+
+    /**
+     * En tolkning av ett JSON-svar, från nätverket, disk-cachen eller mock-data.
+     * @param nanos Tiden för tolkningen.
+     * @param rows Antal tolkade prisrader.
+     */
+    default void recordParse(long nanos, int rows) {
+    }
+
+    /**
+     * En villkorlig hämtning (If-None-Match/If-Modified-Since) av en dag som redan fanns i cachen.
+     */
+    default void recordRevalidation(Revalidation result) {
+    }
+}
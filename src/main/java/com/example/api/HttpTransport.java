@@ -0,0 +1,68 @@
+package com.example.api;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transportlagret under {@link ElpriserAPI}: skickar en GET och levererar hela svaret.
+ * <p>
+ * Standard är {@link #jdk(Duration)}, byggd på {@link java.net.http.HttpClient} med HTTP/2 och
+ * gzip. En egen implementation kan sättas med {@link ElpriserAPI.Builder#transport(HttpTransport)},
+ * t.ex. i tester. Omförsök, timeout per anrop och kretsbrytare hanteras av {@link ElpriserAPI},
+ * inte av transporten.
+ */
+public interface HttpTransport {
+
+    /**
+     * Ett GET-anrop.
+     * @param headers Extra headers att skicka med.
+     * @param timeout Längsta tid att vänta på svaret.
+     */
+    record Request(URI uri, Map<String, String> headers, Duration timeout) {
+        public Request {
+            headers = Map.copyOf(headers);
+        }
+    }
+
+    /**
+     * Ett svar med okomprimerad body.
+     * @param headers Headers med gemena namn.
+     */
+    record Response(int statusCode, Map<String, List<String>> headers, byte[] body) {
+        public Response {
+            TreeMap<String, List<String>> gemena = new TreeMap<>();
+            headers.forEach((namn, värden) -> gemena.put(namn.toLowerCase(Locale.ROOT), List.copyOf(värden)));
+            headers = Collections.unmodifiableMap(gemena);
+        }
+
+        /**
+         * @return Första värdet för headern, oavsett skiftläge i namnet.
+         */
+        public Optional<String> header(String namn) {
+            List<String> värden = headers.get(namn.toLowerCase(Locale.ROOT));
+            return värden == null || värden.isEmpty() ? Optional.empty() : Optional.of(värden.getFirst());
+        }
+    }
+
+    /**
+     * Skickar anropet. Futuren avslutas med ett {@link java.io.IOException} vid nätverksfel och
+     * timeout, och med ett svar för alla statuskoder.
+     */
+    CompletableFuture<Response> send(Request request);
+
+    /**
+     * Standardtransporten: en delad {@link java.net.http.HttpClient} som föredrar HTTP/2, följer
+     * omdirigeringar och ber om gzip-komprimerade svar.
+     * @param connectTimeout Längsta tid för att öppna en anslutning.
+     */
+    static HttpTransport jdk(Duration connectTimeout) {
+        return new JdkHttpTransport(connectTimeout);
+    }
+}
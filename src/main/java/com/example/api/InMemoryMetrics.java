@@ -0,0 +1,74 @@
+package com.example.api;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Standardimplementationen av {@link ElpriserMetrics}: räknare och histogram i minnet, utan
+ * lås på den heta vägen. {@link #snapshot()} ger en konsistent nog bild för export.
+ */
+public final class InMemoryMetrics implements ElpriserMetrics {
+
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+    private final Map<Integer, LongAdder> httpStatus = new ConcurrentHashMap<>();
+    private final EnumMap<CacheTier, LongAdder> hits = new EnumMap<>(CacheTier.class);
+    private final EnumMap<CacheTier, LongAdder> misses = new EnumMap<>(CacheTier.class);
+    private final LongAdder rowsParsed = new LongAdder();
+    private final EnumMap<Revalidation, LongAdder> revalidations = new EnumMap<>(Revalidation.class);
+
+    public InMemoryMetrics() {
+        for (CacheTier tier : CacheTier.values()) {
+            hits.put(tier, new LongAdder());
+            misses.put(tier, new LongAdder());
+        }
+        for (Revalidation result : Revalidation.values()) {
+            revalidations.put(result, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordFetch(long latencyNanos, int statusCode) {
+        fetchLatency.record(latencyNanos);
+        httpStatus.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordCacheHit(CacheTier tier) {
+        hits.get(tier).increment();
+    }
+
+    @Override
+    public void recordCacheMiss(CacheTier tier) {
+        misses.get(tier).increment();
+    }
+
+    @Override
+    public void recordParse(long nanos, int rows) {
+        parseLatency.record(nanos);
+        rowsParsed.add(rows);
+    }
+
+    @Override
+    public void recordRevalidation(Revalidation result) {
+        revalidations.get(result).increment();
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<Integer, Long> status = new TreeMap<>();
+        httpStatus.forEach((kod, antal) -> status.put(kod, antal.sum()));
+        EnumMap<CacheTier, MetricsSnapshot.TierCounts> tiers = new EnumMap<>(CacheTier.class);
+        for (CacheTier tier : CacheTier.values()) {
+            tiers.put(tier, new MetricsSnapshot.TierCounts(hits.get(tier).sum(), misses.get(tier).sum()));
+        }
+        EnumMap<Revalidation, Long> revalideringar = new EnumMap<>(Revalidation.class);
+        revalidations.forEach((result, antal) -> revalideringar.put(result, antal.sum()));
+        return new MetricsSnapshot(fetchLatency.snapshot(), Collections.unmodifiableMap(status),
+                Collections.unmodifiableMap(tiers), parseLatency.snapshot(), rowsParsed.sum(),
+                Collections.unmodifiableMap(revalideringar));
+    }
+}
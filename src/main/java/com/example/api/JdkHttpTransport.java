@@ -0,0 +1,61 @@
+package com.example.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link HttpTransport} över {@link HttpClient}. Klienten återanvänder anslutningar och
+ * multiplexar anrop över HTTP/2 när servern stöder det, annars används HTTP/1.1.
+ * <p>
+ * {@link HttpClient} packar inte upp komprimerade svar själv, så det görs här när servern
+ * svarar med {@code Content-Encoding: gzip}.
+ */
+final class JdkHttpTransport implements HttpTransport {
+
+    private final HttpClient httpClient;
+
+    JdkHttpTransport(Duration connectTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<Response> send(Request request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+                .timeout(request.timeout())
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        request.headers().forEach(builder::header);
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenCompose(response -> {
+                    try {
+                        return CompletableFuture.completedFuture(
+                                new Response(response.statusCode(), response.headers().map(), packaUpp(response)));
+                    } catch (IOException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                });
+    }
+
+    private static byte[] packaUpp(HttpResponse<byte[]> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(kodning -> kodning.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzip || response.body().length == 0) {
+            return response.body();
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lås-fritt histogram över latenser med hinkar i tvåpotenser av mikrosekunder
+ * (&lt;1 µs, &lt;2 µs, &lt;4 µs, ...). Den sista hinken tar allt över drygt en halvtimme.
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long värde = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketFor(värde));
+        count.increment();
+        sumNanos.add(värde);
+        maxNanos.accumulate(värde);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(count.sum(), sumNanos.sum(), maxNanos.get(), counts);
+    }
+
+    // Hink i där värdet är mindre än 2^i mikrosekunder
+    static int bucketFor(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * @return Övre gränsen för hink {@code i} i nanosekunder.
+     */
+    static long upperBoundNanos(int bucket) {
+        return (1L << bucket) * 1000;
+    }
+
+    /**
+     * Ett ögonblicksvärde av histogrammet.
+     * @param bucketCounts Antal värden per hink, se {@link LatencyHistogram}.
+     */
+    public record Snapshot(long count, long sumNanos, long maxNanos, long[] bucketCounts) {
+
+        public double meanMillis() {
+            return count == 0 ? 0.0 : sumNanos / (double) count / 1_000_000.0;
+        }
+
+        /**
+         * @param quantile T.ex. 0.5 eller 0.99.
+         * @return En övre uppskattning av kvantilen i millisekunder, högst det största uppmätta värdet.
+         */
+        public double percentileMillis(double quantile) {
+            if (count == 0) {
+                return 0.0;
+            }
+            long mål = (long) Math.ceil(quantile * count);
+            long ackumulerat = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                ackumulerat += bucketCounts[i];
+                if (ackumulerat >= mål) {
+                    return Math.min(upperBoundNanos(i), maxNanos) / 1_000_000.0;
+                }
+            }
+            return maxNanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.api;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Enkel nivåstyrd loggning till konsolen. Nivån sätts med systemegenskapen
+ * {@code elpriser.logLevel} (DEBUG, INFO, WARN, ERROR eller OFF), standard är INFO.
+ * DEBUG och INFO skrivs till {@code System.out}, eller dit {@link #setUtskrift(Consumer)} anger,
+ * WARN och ERROR till {@code System.err}.
+ */
+final class Logg {
+
+    static final String LOG_LEVEL_PROPERTY = "elpriser.logLevel";
+
+    enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static volatile Level nivå = frånEgenskap(System.getProperty(LOG_LEVEL_PROPERTY));
+    // null betyder System.out, som slås upp vid varje rad eftersom den kan bytas ut
+    private static volatile Consumer<String> utskrift;
+
+    private Logg() {
+    }
+
+    static Level frånEgenskap(String värde) {
+        if (värde == null || värde.isBlank()) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(värde.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Okänd loggnivå " + värde + ", använder INFO.");
+            return Level.INFO;
+        }
+    }
+
+    static void setNivå(Level ny) {
+        nivå = ny;
+    }
+
+    /**
+     * Anger vart DEBUG och INFO skrivs, null för {@code System.out}.
+     */
+    static void setUtskrift(Consumer<String> ny) {
+        utskrift = ny;
+    }
+
+    static boolean isEnabled(Level n) {
+        return n.compareTo(nivå) >= 0 && n != Level.OFF;
+    }
+
+    /** Meddelandet byggs bara om DEBUG är påslaget. */
+    static void debug(Supplier<String> meddelande) {
+        if (isEnabled(Level.DEBUG)) {
+            skriv(meddelande.get());
+        }
+    }
+
+    static void info(String meddelande) {
+        if (isEnabled(Level.INFO)) {
+            skriv(meddelande);
+        }
+    }
+
+    static void warn(String meddelande) {
+        if (isEnabled(Level.WARN)) {
+            System.err.println(meddelande);
+        }
+    }
+
+    static void error(String meddelande) {
+        if (isEnabled(Level.ERROR)) {
+            System.err.println(meddelande);
+        }
+    }
+
+    private static void skriv(String meddelande) {
+        Consumer<String> ut = utskrift;
+        if (ut == null) {
+            System.out.println(meddelande);
+        } else {
+            ut.accept(meddelande);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.api;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Formaterar en {@link MetricsSnapshot} som läsbar text eller som ett JSON-objekt.
+ */
+public final class MetricsExporter {
+
+    private MetricsExporter() {
+    }
+
+    public static String toText(MetricsSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Nätverksanrop: ").append(histogram(snapshot.fetchLatency())).append('\n');
+        sb.append("HTTP-status:");
+        if (snapshot.httpStatus().isEmpty()) {
+            sb.append(" -");
+        }
+        snapshot.httpStatus().forEach((kod, antal) -> sb.append(' ').append(kod).append('=').append(antal));
+        sb.append('\n');
+        snapshot.cache().forEach((tier, counts) -> sb.append("Cache ")
+                .append(tier.name().toLowerCase(Locale.ROOT)).append(": ")
+                .append(counts.hits()).append(" träffar, ")
+                .append(counts.misses()).append(" missar\n"));
+        sb.append("Tolkning: ").append(histogram(snapshot.parseLatency()))
+                .append(", ").append(snapshot.rowsParsed()).append(" rader\n");
+        sb.append("Omvalidering:");
+        snapshot.revalidations().forEach((utfall, antal) -> sb.append(' ')
+                .append(utfall.name().toLowerCase(Locale.ROOT)).append('=').append(antal));
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    public static String toJson(MetricsSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"fetchLatency\":");
+        histogramJson(sb, snapshot.fetchLatency());
+        sb.append(",\"httpStatus\":{");
+        boolean först = true;
+        for (Map.Entry<Integer, Long> entry : snapshot.httpStatus().entrySet()) {
+            if (!först) {
+                sb.append(',');
+            }
+            sb.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            först = false;
+        }
+        sb.append("},\"cache\":{");
+        först = true;
+        for (var entry : snapshot.cache().entrySet()) {
+            if (!först) {
+                sb.append(',');
+            }
+            sb.append('"').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append("\":{\"hits\":")
+                    .append(entry.getValue().hits()).append(",\"misses\":").append(entry.getValue().misses()).append('}');
+            först = false;
+        }
+        sb.append("},\"revalidations\":{");
+        först = true;
+        for (var entry : snapshot.revalidations().entrySet()) {
+            if (!först) {
+                sb.append(',');
+            }
+            sb.append('"').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append("\":").append(entry.getValue());
+            först = false;
+        }
+        sb.append("},\"parseLatency\":");
+        histogramJson(sb, snapshot.parseLatency());
+        sb.append(",\"rowsParsed\":").append(snapshot.rowsParsed()).append('}');
+        return sb.toString();
+    }
+
+    private static String histogram(LatencyHistogram.Snapshot h) {
+        return String.format(Locale.ROOT, "%d st, medel %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                h.count(), h.meanMillis(), h.percentileMillis(0.5), h.percentileMillis(0.99), h.maxNanos() / 1_000_000.0);
+    }
+
+    private static void histogramJson(StringBuilder sb, LatencyHistogram.Snapshot h) {
+        sb.append(String.format(Locale.ROOT,
+                "{\"count\":%d,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f,\"buckets\":[",
+                h.count(), h.meanMillis(), h.percentileMillis(0.5), h.percentileMillis(0.99), h.maxNanos() / 1_000_000.0));
+        long[] buckets = h.bucketCounts();
+        for (int i = 0; i < buckets.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(buckets[i]);
+        }
+        sb.append("]}");
+    }
+}
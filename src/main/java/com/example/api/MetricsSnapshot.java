@@ -0,0 +1,25 @@
+package com.example.api;
+
+import java.util.Map;
+
+/**
+ * Ett ögonblicksvärde av {@link InMemoryMetrics}.
+ *
+ * @param fetchLatency Latens för anrop mot nätverket.
+ * @param httpStatus Antal svar per HTTP-statuskod, 0 för anrop utan svar.
+ * @param cache Träffar och missar per cache-nivå.
+ * @param parseLatency Tid för att tolka JSON-svar.
+ * @param rowsParsed Totalt antal tolkade prisrader.
+ * @param revalidations Antal villkorliga hämtningar per utfall.
+ */
+public record MetricsSnapshot(
+        LatencyHistogram.Snapshot fetchLatency,
+        Map<Integer, Long> httpStatus,
+        Map<ElpriserMetrics.CacheTier, TierCounts> cache,
+        LatencyHistogram.Snapshot parseLatency,
+        long rowsParsed,
+        Map<ElpriserMetrics.Revalidation, Long> revalidations
+) {
+
+    public record TierCounts(long hits, long misses) {}
+}
@@ -0,0 +1,148 @@
+package com.example.api;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hämtar morgondagens priser för alla prisområden i förväg, så att cacharna är varma när
+ * användarna frågar. Startas med {@link ElpriserAPI#startPrefetch(LocalTime)}.
+ * <p>
+ * Från klockslaget {@code från} varje dag försöker den hämta nästa dag. Så länge någon zon
+ * svarar 404 (priserna är inte publicerade än) eller med ett tillfälligt fel försöker den igen
+ * med exponentiell backoff, och när alla zoner är hämtade väntar den till samma klockslag
+ * nästa dag. En cachad 404 hoppas förbi, annars skulle den negativa cachen dölja att priserna
+ * publicerats.
+ * <p>
+ * All tid tas från API:ts {@link Clock}, och {@link #runOnce()} kan anropas direkt i tester.
+ */
+public final class Prefetcher implements AutoCloseable {
+
+    private final ElpriserAPI api;
+    private final Clock clock;
+    private final LocalTime från;
+    private final Duration förstaBackoff;
+    private final Duration maxBackoff;
+    private final ScheduledExecutorService scheduler;
+
+    // Tillstånd för aktuell måldag, ändras bara av runOnce
+    private LocalDate måldag;
+    private final EnumSet<ElpriserAPI.Prisklass> klara = EnumSet.noneOf(ElpriserAPI.Prisklass.class);
+    private Duration backoff;
+
+    Prefetcher(ElpriserAPI api, Clock clock, LocalTime från, Duration förstaBackoff, Duration maxBackoff,
+               ScheduledExecutorService scheduler) {
+        if (förstaBackoff.isNegative() || förstaBackoff.isZero() || maxBackoff.compareTo(förstaBackoff) < 0) {
+            throw new IllegalArgumentException("Backoff måste vara positiv och maxBackoff minst förstaBackoff");
+        }
+        this.api = api;
+        this.clock = clock;
+        this.från = från;
+        this.förstaBackoff = förstaBackoff;
+        this.maxBackoff = maxBackoff;
+        this.scheduler = scheduler;
+        this.backoff = förstaBackoff;
+    }
+
+    static Prefetcher start(ElpriserAPI api, Clock clock, LocalTime från, Duration förstaBackoff, Duration maxBackoff) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("elpriser-prefetch").factory());
+        Prefetcher prefetcher = new Prefetcher(api, clock, från, förstaBackoff, maxBackoff, scheduler);
+        scheduler.execute(prefetcher::körOchSchemalägg);
+        return prefetcher;
+    }
+
+    private void körOchSchemalägg() {
+        Duration vänta;
+        try {
+            vänta = runOnce();
+        } catch (RuntimeException e) {
+            Logg.warn("Förhämtning misslyckades: " + e.getMessage());
+            vänta = maxBackoff;
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::körOchSchemalägg, vänta.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gör ett försök att hämta morgondagen för de zoner som saknas.
+     * @return Hur länge det är till nästa försök.
+     */
+    synchronized Duration runOnce() {
+        ZonedDateTime nu = ZonedDateTime.now(clock);
+        LocalDate imorgon = nu.toLocalDate().plusDays(1);
+        if (!imorgon.equals(måldag)) {
+            måldag = imorgon;
+            klara.clear();
+            backoff = förstaBackoff;
+        }
+        if (klara.size() == ElpriserAPI.Prisklass.values().length || nu.toLocalTime().isBefore(från)) {
+            return tillNästaStart(nu);
+        }
+
+        // Alla saknade zoner hämtas samtidigt
+        Map<ElpriserAPI.Prisklass, CompletableFuture<PriceSeries>> hämtningar = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        for (ElpriserAPI.Prisklass prisklass : EnumSet.complementOf(klara)) {
+            hämtningar.put(prisklass, api.hämtaFörbiNegativCache(måldag, prisklass));
+        }
+        hämtningar.forEach((prisklass, hämtning) -> {
+            try {
+                if (!hämtning.join().isEmpty()) {
+                    klara.add(prisklass);
+                }
+            } catch (CompletionException e) {
+                Logg.debug(() -> "Förhämtning av " + måldag + " " + prisklass + " misslyckades: "
+                        + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+            }
+        });
+
+        if (klara.size() == ElpriserAPI.Prisklass.values().length) {
+            Logg.info("Förhämtade priser för " + måldag + " i alla zoner.");
+            return tillNästaStart(nu);
+        }
+        Duration vänta = backoff;
+        backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0 ? maxBackoff : backoff.multipliedBy(2);
+        Logg.debug(() -> "Priser för " + måldag + " saknas för " + (ElpriserAPI.Prisklass.values().length - klara.size())
+                + " zoner, försöker igen om " + vänta.toMinutes() + " min.");
+        return vänta;
+    }
+
+    // Till klockslaget idag om det inte passerats, annars samma klockslag imorgon
+    private Duration tillNästaStart(ZonedDateTime nu) {
+        ZonedDateTime start = nu.toLocalDate().atTime(från).atZone(nu.getZone());
+        if (!start.isAfter(nu)) {
+            start = nu.toLocalDate().plusDays(1).atTime(från).atZone(nu.getZone());
+        }
+        return Duration.between(nu, start);
+    }
+
+    /**
+     * @return Dagen som senast förhämtats eller försökts, eller null innan första försöket.
+     */
+    public synchronized LocalDate måldag() {
+        return måldag;
+    }
+
+    /**
+     * @return true om måldagen är hämtad för alla prisområden.
+     */
+    public synchronized boolean isComplete() {
+        return klara.size() == ElpriserAPI.Prisklass.values().length;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
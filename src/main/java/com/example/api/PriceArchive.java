@@ -0,0 +1,285 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Arkiv med alla dagar för ett prisområde i en enda minnesmappad fil ({@code arkiv_SE3.dat}).
+ * <p>
+ * Varje dag har en post med fast storlek och plats för {@value #MAX_PERIODER} perioder, så att
+ * dag N ligger på {@code HEADER + (N - första dagen) * POST}. En intervallfråga blir därmed en
+ * sammanhängande del av filen, oavsett om dagen har 23, 24, 25, 92, 96 eller 100 perioder.
+ * Tomma poster (antal 0) är dagar som inte arkiverats. Filen är append-only i den meningen att
+ * en dag bara skrivs en gång; en trasig post (fel CRC) räknas som saknad och får skrivas om.
+ * <p>
+ * Post (big-endian): antal, CRC32 över resten av posten, första starttid, tidszon
+ * (offset i sekunder eller {@code Integer.MIN_VALUE} för Europe/Stockholm), reserverad,
+ * sedan SEK, EUR och EXR som double och periodlängden i sekunder som int, för varje plats.
+ */
+final class PriceArchive {
+
+    static final int MAX_PERIODER = 100;
+    static final LocalDate FÖRSTA_DAGEN = LocalDate.of(2021, 1, 1);
+
+    private static final String FILE_PREFIX = "arkiv_";
+    private static final String FILE_SUFFIX = ".dat";
+    private static final int MAGIC = 0x454C5041;
+    private static final int VERSION = 1;
+    // magi, version, första dagen (epoch-dag), poststorlek
+    private static final int HEADER = 4 * Integer.BYTES;
+    private static final int POST_HEADER = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    static final int POST = POST_HEADER + MAX_PERIODER * (3 * Double.BYTES + Integer.BYTES);
+    private static final int STOCKHOLM_MARKER = Integer.MIN_VALUE;
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    private final Path directory;
+    private final Map<ElpriserAPI.Prisklass, Arkivfil> filer = new EnumMap<>(ElpriserAPI.Prisklass.class);
+
+    PriceArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return Priserna för dagen, eller null om dagen inte finns i arkivet.
+     */
+    PriceSeries get(ElpriserAPI.Prisklass prisklass, LocalDate datum) {
+        PriceSeries serie = range(prisklass, datum, datum);
+        return serie.isEmpty() ? null : serie;
+    }
+
+    /**
+     * Läser alla arkiverade dagar i {@code [från, till]} som en serie. Saknade dagar hoppas över.
+     */
+    PriceSeries range(ElpriserAPI.Prisklass prisklass, LocalDate från, LocalDate till) {
+        if (från.isBefore(FÖRSTA_DAGEN)) {
+            från = FÖRSTA_DAGEN;
+        }
+        if (till.isBefore(från)) {
+            return PriceSeries.empty();
+        }
+        ByteBuffer karta;
+        try {
+            karta = fil(prisklass).karta();
+        } catch (IOException e) {
+            Logg.warn("Kunde inte läsa prisarkivet för " + prisklass + ": " + e.getMessage());
+            return PriceSeries.empty();
+        }
+        if (karta == null) {
+            return PriceSeries.empty();
+        }
+        int förstaPost = (int) (från.toEpochDay() - FÖRSTA_DAGEN.toEpochDay());
+        int antalPoster = (int) Math.min(till.toEpochDay() - från.toEpochDay() + 1,
+                (long) (karta.limit() - HEADER) / POST - förstaPost);
+        if (antalPoster <= 0) {
+            return PriceSeries.empty();
+        }
+
+        // Första varvet räknar perioderna så att kolumnerna kan allokeras en gång
+        int n = 0;
+        for (int p = 0; p < antalPoster; p++) {
+            n += giltigtAntal(karta, HEADER + (förstaPost + p) * POST);
+        }
+        if (n == 0) {
+            return PriceSeries.empty();
+        }
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long[] end = new long[n];
+        int zonKod = 0;
+        boolean sammaZon = true;
+        int pos = 0;
+        for (int p = 0; p < antalPoster; p++) {
+            int bas = HEADER + (förstaPost + p) * POST;
+            int antal = giltigtAntal(karta, bas);
+            if (antal == 0) {
+                continue;
+            }
+            int kod = karta.getInt(bas + 16);
+            sammaZon &= pos == 0 || kod == zonKod;
+            zonKod = kod;
+            long tid = karta.getLong(bas + 8);
+            int data = bas + POST_HEADER;
+            for (int i = 0; i < antal; i++) {
+                sek[pos] = karta.getDouble(data + i * Double.BYTES);
+                eur[pos] = karta.getDouble(data + (MAX_PERIODER + i) * Double.BYTES);
+                exr[pos] = karta.getDouble(data + (2 * MAX_PERIODER + i) * Double.BYTES);
+                start[pos] = tid;
+                tid += karta.getInt(data + 3 * MAX_PERIODER * Double.BYTES + i * Integer.BYTES);
+                end[pos] = tid;
+                pos++;
+            }
+        }
+        return PriceSeries.ofColumns(sek, eur, exr, start, end, sammaZon ? zon(zonKod) : STOCKHOLM);
+    }
+
+    boolean contains(ElpriserAPI.Prisklass prisklass, LocalDate datum) {
+        return get(prisklass, datum) != null;
+    }
+
+    /**
+     * Arkiverar en dag om den inte redan finns. Dagar före {@link #FÖRSTA_DAGEN}, med fler än
+     * {@value #MAX_PERIODER} perioder eller med glapp mellan perioderna arkiveras inte.
+     * @return true om dagen skrevs.
+     */
+    boolean record(ElpriserAPI.Prisklass prisklass, LocalDate datum, PriceSeries priser) {
+        int n = priser.size();
+        if (n == 0 || n > MAX_PERIODER || datum.isBefore(FÖRSTA_DAGEN) || !sammanhängande(priser)) {
+            return false;
+        }
+        Integer kod = zonKod(priser.zone());
+        if (kod == null) {
+            return false;
+        }
+        try {
+            return fil(prisklass).skriv(datum, post(priser, kod));
+        } catch (IOException e) {
+            Logg.warn("Kunde inte arkivera " + datum + " " + prisklass + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean sammanhängande(PriceSeries priser) {
+        for (int i = 1; i < priser.size(); i++) {
+            if (priser.startEpochSecond(i) != priser.endEpochSecond(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer post(PriceSeries priser, int zonKod) {
+        int n = priser.size();
+        ByteBuffer post = ByteBuffer.allocate(POST);
+        post.putInt(0, n)
+                .putLong(8, priser.startEpochSecond(0))
+                .putInt(16, zonKod);
+        int data = POST_HEADER;
+        for (int i = 0; i < n; i++) {
+            post.putDouble(data + i * Double.BYTES, priser.sekPerKWh(i));
+            post.putDouble(data + (MAX_PERIODER + i) * Double.BYTES, priser.eurPerKWh(i));
+            post.putDouble(data + (2 * MAX_PERIODER + i) * Double.BYTES, priser.exr(i));
+            post.putInt(data + 3 * MAX_PERIODER * Double.BYTES + i * Integer.BYTES,
+                    (int) (priser.endEpochSecond(i) - priser.startEpochSecond(i)));
+        }
+        post.putInt(4, crc(post, 0));
+        return post;
+    }
+
+    // Antal perioder i posten, eller 0 om posten är tom eller trasig
+    private static int giltigtAntal(ByteBuffer karta, int bas) {
+        int antal = karta.getInt(bas);
+        if (antal <= 0 || antal > MAX_PERIODER) {
+            return 0;
+        }
+        return crc(karta, bas) == karta.getInt(bas + 4) ? antal : 0;
+    }
+
+    // CRC över antal och allt efter CRC-fältet
+    private static int crc(ByteBuffer buffer, int bas) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(bas, Integer.BYTES));
+        crc.update(buffer.slice(bas + 2 * Integer.BYTES, POST - 2 * Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static Integer zonKod(ZoneId zon) {
+        if (zon instanceof ZoneOffset offset) {
+            return offset.getTotalSeconds();
+        }
+        return zon.equals(STOCKHOLM) ? STOCKHOLM_MARKER : null;
+    }
+
+    private static ZoneId zon(int kod) {
+        return kod == STOCKHOLM_MARKER ? STOCKHOLM : ZoneOffset.ofTotalSeconds(kod);
+    }
+
+    private synchronized Arkivfil fil(ElpriserAPI.Prisklass prisklass) {
+        return filer.computeIfAbsent(prisklass,
+                p -> new Arkivfil(directory.resolve(FILE_PREFIX + p.name() + FILE_SUFFIX)));
+    }
+
+    /**
+     * En arkivfil. Läsningar går mot en delad skrivskyddad mappning som byts ut när filen växer.
+     */
+    private static final class Arkivfil {
+
+        private final Path fil;
+        private volatile MappedByteBuffer karta;
+
+        Arkivfil(Path fil) {
+            this.fil = fil;
+        }
+
+        /**
+         * @return En vy över hela filen, eller null om filen inte finns.
+         */
+        ByteBuffer karta() throws IOException {
+            MappedByteBuffer aktuell = karta;
+            if (aktuell == null) {
+                synchronized (this) {
+                    if (karta == null && Files.exists(fil)) {
+                        mappa();
+                    }
+                    aktuell = karta;
+                }
+            }
+            return aktuell == null ? null : aktuell.duplicate();
+        }
+
+        synchronized boolean skriv(LocalDate datum, ByteBuffer post) throws IOException {
+            long position = HEADER + (datum.toEpochDay() - FÖRSTA_DAGEN.toEpochDay()) * POST;
+            Files.createDirectories(fil.getParent());
+            try (FileChannel kanal = FileChannel.open(fil, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (kanal.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER)
+                            .putInt(MAGIC).putInt(VERSION).putInt((int) FÖRSTA_DAGEN.toEpochDay()).putInt(POST)
+                            .flip();
+                    kanal.write(header, 0);
+                } else {
+                    kontrolleraHeader(kanal);
+                }
+                if (position + POST <= kanal.size()) {
+                    ByteBuffer befintlig = ByteBuffer.allocate(POST);
+                    kanal.read(befintlig, position);
+                    if (giltigtAntal(befintlig, 0) > 0) {
+                        return false;
+                    }
+                }
+                kanal.write(post.duplicate().clear(), position);
+            }
+            mappa();
+            return true;
+        }
+
+        private void mappa() throws IOException {
+            try (FileChannel kanal = FileChannel.open(fil, StandardOpenOption.READ)) {
+                kontrolleraHeader(kanal);
+                karta = kanal.map(FileChannel.MapMode.READ_ONLY, 0, kanal.size());
+            }
+        }
+
+        private void kontrolleraHeader(FileChannel kanal) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            kanal.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getInt(8) != (int) FÖRSTA_DAGEN.toEpochDay() || header.getInt(12) != POST) {
+                throw new IOException("Okänt format på prisarkivet " + fil);
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * Kompakt binärformat för en dags priser i ett prisområde.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ *  0  int   magi "ELPB"
+ *  4  byte  version (1)
+ *  5  byte  prisområde (ordinal i {@link ElpriserAPI.Prisklass}, -1 om okänt)
+ *  6  byte  flaggor: 1 = sammanhängande starttider, 2 = egna sluttider
+ *  7  byte  reserverad
+ *  8  int   datum (epoch-dag)
+ * 12  int   periodlängd i sekunder (0 om perioderna är olika långa)
+ * 16  int   antal perioder
+ * 20  long  första starttid (epoch-sekund)
+ * 28  int   tidszon: offset i sekunder, eller Integer.MIN_VALUE för Europe/Stockholm
+ * 32  byte  decimaler för SEK, EUR och EXR (-1 = råa double)
+ * 35  byte  reserverad
+ * 36  int   längd på datadelen
+ * 40  ...   data: SEK, EUR och EXR, sedan starttider och sluttider om de behövs
+ *     int   CRC32 över header och data
+ * </pre>
+ * Priserna lagras som heltal i fast punkt med så få decimaler som krävs för att få tillbaka
+ * exakt samma double, delta-kodade som zigzag-varint. Kolumner som inte går att återskapa
+ * exakt (t.ex. fler än nio decimaler) lagras som råa double.
+ */
+final class PriceBinaryFormat {
+
+    static final int MAGIC = 0x454C5042;
+    static final int HEADER_BYTES = 40;
+
+    private static final byte VERSION = 1;
+    private static final int CONTIGUOUS = 1;
+    private static final int IRREGULAR = 2;
+    private static final int STOCKHOLM_MARKER = Integer.MIN_VALUE;
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final int MAX_DECIMALS = 9;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+
+    private PriceBinaryFormat() {
+    }
+
+    /**
+     * Headern för en dag, utan att läsa priserna.
+     */
+    record Header(ElpriserAPI.Prisklass prisklass, LocalDate datum, int intervalSeconds, int count) {}
+
+    /**
+     * Tolkar ett JSON-svar från API:t och kodar det binärt.
+     */
+    static byte[] fromJson(byte[] json, ElpriserAPI.Prisklass prisklass, LocalDate datum) {
+        return encode(prisklass, datum, PriceSeries.of(PriceJsonParser.parse(json)));
+    }
+
+    static byte[] encode(ElpriserAPI.Prisklass prisklass, LocalDate datum, PriceSeries priser) {
+        int n = priser.size();
+        int zon = zonKod(priser.zone());
+        long första = n == 0 ? 0 : priser.startEpochSecond(0);
+        int intervall = priser.intervalSeconds();
+        boolean sammanhängande = intervall > 0;
+        for (int i = 1; i < n && sammanhängande; i++) {
+            sammanhängande = priser.startEpochSecond(i) == första + (long) i * intervall;
+        }
+        int flaggor = (sammanhängande ? CONTIGUOUS : 0) | (intervall == 0 && n > 0 ? IRREGULAR : 0);
+
+        double[] sek = priser.sekPerKWhArray();
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        for (int i = 0; i < n; i++) {
+            eur[i] = priser.eurPerKWh(i);
+            exr[i] = priser.exr(i);
+        }
+        int sekDecimaler = decimaler(sek);
+        int eurDecimaler = decimaler(eur);
+        int exrDecimaler = decimaler(exr);
+
+        // Värsta fall: 10 byte per varint eller 8 per double, tre kolumner och två tidskolumner
+        ByteBuffer data = ByteBuffer.allocate(n * 5 * 10);
+        skrivKolumn(data, sek, sekDecimaler);
+        skrivKolumn(data, eur, eurDecimaler);
+        skrivKolumn(data, exr, exrDecimaler);
+        if (!sammanhängande) {
+            for (int i = 1; i < n; i++) {
+                skrivVarint(data, zigzag(priser.startEpochSecond(i) - priser.startEpochSecond(i - 1)));
+            }
+        }
+        if ((flaggor & IRREGULAR) != 0) {
+            for (int i = 0; i < n; i++) {
+                skrivVarint(data, zigzag(priser.endEpochSecond(i) - priser.startEpochSecond(i)));
+            }
+        }
+        data.flip();
+
+        ByteBuffer ut = ByteBuffer.allocate(HEADER_BYTES + data.remaining() + Integer.BYTES);
+        ut.putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) (prisklass == null ? -1 : prisklass.ordinal()))
+                .put((byte) flaggor)
+                .put((byte) 0)
+                .putInt((int) datum.toEpochDay())
+                .putInt(intervall)
+                .putInt(n)
+                .putLong(första)
+                .putInt(zon)
+                .put((byte) sekDecimaler)
+                .put((byte) eurDecimaler)
+                .put((byte) exrDecimaler)
+                .put((byte) 0)
+                .putInt(data.remaining())
+                .put(data);
+        CRC32 crc = new CRC32();
+        crc.update(ut.array(), 0, ut.position());
+        ut.putInt((int) crc.getValue());
+        return ut.array();
+    }
+
+    static Header header(ByteBuffer buffer) {
+        ByteBuffer b = buffer.duplicate();
+        kontrolleraHeader(b);
+        int ordinal = b.get(b.position() + 5);
+        ElpriserAPI.Prisklass prisklass = ordinal < 0 || ordinal >= ElpriserAPI.Prisklass.values().length
+                ? null : ElpriserAPI.Prisklass.values()[ordinal];
+        return new Header(prisklass, LocalDate.ofEpochDay(b.getInt(b.position() + 8)),
+                b.getInt(b.position() + 12), b.getInt(b.position() + 16));
+    }
+
+    /**
+     * Avkodar en dag direkt till primitiva arrayer, utan objekt per period.
+     * @throws IllegalArgumentException Om datat är trasigt eller i fel format.
+     */
+    static PriceSeries decode(ByteBuffer buffer) {
+        ByteBuffer b = buffer.slice();
+        kontrolleraHeader(b);
+        int dataLängd = b.getInt(36);
+        if (dataLängd < 0 || HEADER_BYTES + dataLängd + Integer.BYTES > b.remaining()) {
+            throw new IllegalArgumentException("Binärdata är avkortad");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(b.duplicate().limit(HEADER_BYTES + dataLängd));
+        if ((int) crc.getValue() != b.getInt(HEADER_BYTES + dataLängd)) {
+            throw new IllegalArgumentException("Binärdata har fel kontrollsumma");
+        }
+
+        int flaggor = b.get(6);
+        int intervall = b.getInt(12);
+        int n = b.getInt(16);
+        long första = b.getLong(20);
+        ZoneId zon = zon(b.getInt(28));
+        if (n == 0) {
+            return PriceSeries.empty();
+        }
+        b.position(HEADER_BYTES).limit(HEADER_BYTES + dataLängd);
+        double[] sek = läsKolumn(b, n, b.get(32));
+        double[] eur = läsKolumn(b, n, b.get(33));
+        double[] exr = läsKolumn(b, n, b.get(34));
+        long[] start = new long[n];
+        start[0] = första;
+        for (int i = 1; i < n; i++) {
+            start[i] = (flaggor & CONTIGUOUS) != 0
+                    ? första + (long) i * intervall
+                    : start[i - 1] + unzigzag(läsVarint(b));
+        }
+        if ((flaggor & IRREGULAR) != 0) {
+            long[] slut = new long[n];
+            for (int i = 0; i < n; i++) {
+                slut[i] = start[i] + unzigzag(läsVarint(b));
+            }
+            return PriceSeries.ofColumns(sek, eur, exr, start, slut, zon);
+        }
+        return PriceSeries.of(sek, eur, exr, start, intervall, zon);
+    }
+
+    /**
+     * Läser en fil via en minnesmappad {@link FileChannel}.
+     */
+    static PriceSeries read(Path fil) throws IOException {
+        try (FileChannel kanal = FileChannel.open(fil, StandardOpenOption.READ)) {
+            MappedByteBuffer mappad = kanal.map(FileChannel.MapMode.READ_ONLY, 0, kanal.size());
+            return decode(mappad);
+        }
+    }
+
+    private static void kontrolleraHeader(ByteBuffer b) {
+        if (b.remaining() < HEADER_BYTES + Integer.BYTES || b.getInt(b.position()) != MAGIC) {
+            throw new IllegalArgumentException("Inte ett binärt prisformat");
+        }
+        if (b.get(b.position() + 4) != VERSION) {
+            throw new IllegalArgumentException("Okänd version av binärformatet: " + b.get(b.position() + 4));
+        }
+    }
+
+    // Minsta antal decimaler som ger tillbaka exakt samma double för alla värden, annars -1
+    static int decimaler(double[] värden) {
+        for (int d = 0; d <= MAX_DECIMALS; d++) {
+            if (exaktMed(värden, d)) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean exaktMed(double[] värden, int decimaler) {
+        double skala = POWERS_OF_TEN[decimaler];
+        for (double värde : värden) {
+            double skalat = värde * skala;
+            if (!(Math.abs(skalat) < 0x1p52)) {
+                return false;
+            }
+            long q = Math.round(skalat);
+            if (q / skala != värde || Double.doubleToRawLongBits(värde) == Double.doubleToRawLongBits(-0.0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void skrivKolumn(ByteBuffer ut, double[] värden, int decimaler) {
+        if (decimaler < 0) {
+            for (double värde : värden) {
+                ut.putDouble(värde);
+            }
+            return;
+        }
+        double skala = POWERS_OF_TEN[decimaler];
+        long föregående = 0;
+        for (double värde : värden) {
+            long q = Math.round(värde * skala);
+            skrivVarint(ut, zigzag(q - föregående));
+            föregående = q;
+        }
+    }
+
+    private static double[] läsKolumn(ByteBuffer in, int n, int decimaler) {
+        double[] värden = new double[n];
+        if (decimaler < 0) {
+            for (int i = 0; i < n; i++) {
+                värden[i] = in.getDouble();
+            }
+            return värden;
+        }
+        if (decimaler > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Ogiltigt antal decimaler: " + decimaler);
+        }
+        double skala = POWERS_OF_TEN[decimaler];
+        long q = 0;
+        for (int i = 0; i < n; i++) {
+            q += unzigzag(läsVarint(in));
+            värden[i] = q / skala;
+        }
+        return värden;
+    }
+
+    private static int zonKod(ZoneId zon) {
+        if (zon instanceof ZoneOffset offset) {
+            return offset.getTotalSeconds();
+        }
+        if (zon.equals(STOCKHOLM)) {
+            return STOCKHOLM_MARKER;
+        }
+        throw new IllegalArgumentException("Tidszonen stöds inte i binärformatet: " + zon);
+    }
+
+    private static ZoneId zon(int kod) {
+        return kod == STOCKHOLM_MARKER ? STOCKHOLM : ZoneOffset.ofTotalSeconds(kod);
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void skrivVarint(ByteBuffer ut, long v) {
+        while ((v & ~0x7FL) != 0) {
+            ut.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        ut.put((byte) v);
+    }
+
+    private static long läsVarint(ByteBuffer in) {
+        long v = 0;
+        for (int skift = 0; skift < 64; skift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << skift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Ogiltig varint");
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.api;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minnes-cache med begränsad storlek (LRU) och en egen livslängd per post.
+ * <p>
+ * En tom serie sparas som en negativ post, t.ex. för en dag som gav HTTP 404, så att samma
+ * miss inte hämtas om och om igen innan posten gått ut.
+ * <p>
+ * Priser vars livslängd gått ut sparas undan (också LRU-begränsat) och kan hämtas med
+ * {@link #stale(String)} när nätverket inte svarar.
+ */
+final class PriceCache {
+
+    private record Entry(PriceSeries priser, Instant expires) {}
+
+    private final int maxEntries;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries;
+    private final LinkedHashMap<String, PriceSeries> utgångna;
+
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    PriceCache(int maxEntries, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries måste vara minst 1");
+        }
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        // accessOrder = true ger LRU-ordning, äldst använda först
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PriceCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.utgångna = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PriceSeries> eldest) {
+                return size() > PriceCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return Priserna för nyckeln, en tom serie för en negativ post, eller null vid miss.
+     */
+    synchronized PriceSeries get(String key) {
+        PriceSeries priser = lookup(key);
+        if (priser == null) {
+            misses++;
+        } else if (priser.isEmpty()) {
+            negativeHits++;
+        } else {
+            hits++;
+        }
+        return priser;
+    }
+
+    /**
+     * Som {@link #get(String)} men utan att påverka statistiken.
+     */
+    synchronized PriceSeries peek(String key) {
+        return lookup(key);
+    }
+
+    synchronized void put(String key, PriceSeries priser, Duration ttl) {
+        entries.put(key, new Entry(priser, clock.instant().plus(ttl)));
+        utgångna.remove(key);
+    }
+
+    synchronized void putNegative(String key, Duration ttl) {
+        entries.put(key, new Entry(PriceSeries.empty(), clock.instant().plus(ttl)));
+    }
+
+    /**
+     * @return Priser för nyckeln vars livslängd gått ut, eller null om inga finns sparade.
+     */
+    synchronized PriceSeries stale(String key) {
+        return utgångna.get(key);
+    }
+
+    synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    synchronized ElpriserAPI.CacheStats stats() {
+        return new ElpriserAPI.CacheStats(hits, negativeHits, misses, evictions, expirations, entries.size(), maxEntries);
+    }
+
+    private PriceSeries lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!clock.instant().isBefore(entry.expires())) {
+            entries.remove(key);
+            expirations++;
+            if (!entry.priser().isEmpty()) {
+                utgångna.put(key, entry.priser());
+            }
+            return null;
+        }
+        return entry.priser();
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * En strömmande JSON-parser för API:ts svarsformat, en array av prisobjekt.
+ * <p>
+ * Parsern går igenom bytes i ett enda pass och skapar {@link ElpriserAPI.Elpris} direkt, utan
+ * mellanliggande strängar eller mappar. Fältens ordning och blanksteg spelar ingen roll, och okända
+ * fält hoppas över. Tal med högst 15 siffror avkodas exakt utan {@code Double.parseDouble}, och
+ * tidsstämplar i formatet {@code 2025-09-04T00:00:00+02:00} tolkas för hand.
+ */
+final class PriceJsonParser {
+
+    private static final byte[] KEY_SEK = bytes("SEK_per_kWh");
+    private static final byte[] KEY_EUR = bytes("EUR_per_kWh");
+    private static final byte[] KEY_EXR = bytes("EXR");
+    private static final byte[] KEY_TIME_START = bytes("time_start");
+    private static final byte[] KEY_TIME_END = bytes("time_end");
+
+    // 10^0 .. 10^22 är exakt representerbara som double
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        double p = 1.0;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = p;
+            p *= 10.0;
+        }
+    }
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+
+    // Fält för objektet som tolkas just nu
+    private double sek;
+    private double eur;
+    private double exr;
+    private ZonedDateTime timeStart;
+    private ZonedDateTime timeEnd;
+    private int seen;
+
+    // Föregående tidsstämpel; time_end för en rad är nästan alltid time_start för nästa
+    private int lastTimestampStart = -1;
+    private int lastTimestampLength;
+    private ZonedDateTime lastTimestamp;
+    private ZoneOffset lastOffset = ZoneOffset.UTC;
+
+    private PriceJsonParser(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    static List<ElpriserAPI.Elpris> parse(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    static List<ElpriserAPI.Elpris> parse(InputStream in) throws IOException {
+        byte[] bytes = in.readAllBytes();
+        return parse(bytes, 0, bytes.length);
+    }
+
+    static List<ElpriserAPI.Elpris> parse(byte[] bytes) {
+        return parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Tolkar en JSON-array av prisobjekt.
+     * @return En lista av {@link ElpriserAPI.Elpris}, tom om indatan inte är en array.
+     *         Enskilda objekt som saknar fält eller inte kan tolkas hoppas över.
+     */
+    static List<ElpriserAPI.Elpris> parse(byte[] bytes, int offset, int length) {
+        try {
+            return new PriceJsonParser(bytes, offset, length).parseArray();
+        } catch (IllegalStateException e) {
+            Logg.warn("Kunde inte tolka JSON-svaret: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<ElpriserAPI.Elpris> parseArray() {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != '[') {
+            return Collections.emptyList();
+        }
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            return Collections.emptyList();
+        }
+        // 96 kvartar per dygn är det vanligaste fallet
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>(96);
+        while (true) {
+            skipWhitespace();
+            int objectStart = pos;
+            if (parseObject()) {
+                priser.add(new ElpriserAPI.Elpris(sek, eur, exr, timeStart, timeEnd));
+            } else {
+                Logg.warn("Kunde inte tolka ett elpris-objekt: "
+                        + new String(buf, objectStart, pos - objectStart, StandardCharsets.UTF_8));
+            }
+            skipWhitespace();
+            byte b = next();
+            if (b == ']') {
+                return priser;
+            }
+            if (b != ',') {
+                throw error("',' eller ']' förväntades");
+            }
+        }
+    }
+
+    /**
+     * Läser ett prisobjekt till fälten ovan.
+     * @return true om alla fem fält fanns och kunde tolkas.
+     */
+    private boolean parseObject() {
+        expect('{');
+        seen = 0;
+        boolean valid = true;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return false;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = skipStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            // Ett värde av fel typ eller som inte går att tolka gör bara objektet ogiltigt,
+            // IllegalStateException betyder att själva JSON-strukturen är trasig
+            try {
+                readField(keyStart, keyEnd - keyStart);
+            } catch (RuntimeException e) {
+                if (e instanceof IllegalStateException) {
+                    throw e;
+                }
+                valid = false;
+                skipValue();
+            }
+            skipWhitespace();
+            byte b = next();
+            if (b == '}') {
+                return valid && seen == 0b11111;
+            }
+            if (b != ',') {
+                throw error("',' eller '}' förväntades");
+            }
+        }
+    }
+
+    private void readField(int keyStart, int keyLength) {
+        if (keyEquals(keyStart, keyLength, KEY_SEK)) {
+            sek = readNumber();
+            seen |= 1;
+        } else if (keyEquals(keyStart, keyLength, KEY_EUR)) {
+            eur = readNumber();
+            seen |= 1 << 1;
+        } else if (keyEquals(keyStart, keyLength, KEY_EXR)) {
+            exr = readNumber();
+            seen |= 1 << 2;
+        } else if (keyEquals(keyStart, keyLength, KEY_TIME_START)) {
+            timeStart = readTimestamp();
+            seen |= 1 << 3;
+        } else if (keyEquals(keyStart, keyLength, KEY_TIME_END)) {
+            timeEnd = readTimestamp();
+            seen |= 1 << 4;
+        } else {
+            skipValue();
+        }
+    }
+
+    // --- Tal ---
+
+    private double readNumber() {
+        int start = pos;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        boolean simple = true;
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b >= '0' && b <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        scale++;
+                    }
+                } else {
+                    simple = false;
+                }
+                pos++;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+                pos++;
+            } else if (b == 'e' || b == 'E' || b == '+' || b == '-') {
+                simple = false;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (pos == start || (negative && pos == start + 1)) {
+            throw new NumberFormatException("Tal förväntades vid position " + start);
+        }
+        // Snabbväg: både mantissan och 10^scale är exakta double, så divisionen avrundas korrekt
+        if (simple && digits <= 15 && scale < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+    }
+
+    // --- Tidsstämplar ---
+
+    private ZonedDateTime readTimestamp() {
+        if (peek() != '"') {
+            throw new IllegalArgumentException("Sträng förväntades vid position " + pos);
+        }
+        pos++;
+        int start = pos;
+        int stop = skipStringBody();
+        int len = stop - start;
+        if (len == lastTimestampLength && lastTimestampStart >= 0
+                && Arrays.equals(buf, start, stop, buf, lastTimestampStart, lastTimestampStart + len)) {
+            return lastTimestamp;
+        }
+        ZonedDateTime timestamp = parseTimestamp(start, stop);
+        lastTimestampStart = start;
+        lastTimestampLength = len;
+        lastTimestamp = timestamp;
+        return timestamp;
+    }
+
+    private ZonedDateTime parseTimestamp(int start, int stop) {
+        int len = stop - start;
+        // yyyy-MM-ddTHH:mm[:ss] följt av valfria decimaler och Z eller ±HH:MM
+        if (len >= 17 && buf[start + 4] == '-' && buf[start + 7] == '-' && buf[start + 10] == 'T'
+                && buf[start + 13] == ':') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            int hour = digits(start + 11, 2);
+            int minute = digits(start + 14, 2);
+            int second = 0;
+            int i = start + 16;
+            if (buf[i] == ':' && len >= 20) {
+                second = digits(start + 17, 2);
+                i = start + 19;
+            }
+            int nano = 0;
+            if (i < stop && buf[i] == '.') {
+                i++;
+                int fractionDigits = 0;
+                while (i < stop && buf[i] >= '0' && buf[i] <= '9') {
+                    if (fractionDigits < 9) {
+                        nano = nano * 10 + (buf[i] - '0');
+                        fractionDigits++;
+                    }
+                    i++;
+                }
+                for (; fractionDigits < 9; fractionDigits++) {
+                    nano *= 10;
+                }
+            }
+            ZoneOffset offset = null;
+            if (i == stop - 1 && buf[i] == 'Z') {
+                offset = ZoneOffset.UTC;
+            } else if (i == stop - 6 && (buf[i] == '+' || buf[i] == '-') && buf[i + 3] == ':') {
+                int hours = digits(i + 1, 2);
+                int minutes = digits(i + 4, 2);
+                if (hours >= 0 && minutes >= 0) {
+                    int seconds = hours * 3600 + minutes * 60;
+                    offset = offsetOf(buf[i] == '-' ? -seconds : seconds);
+                }
+            }
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0 && offset != null) {
+                return ZonedDateTime.of(year, month, day, hour, minute, second, nano, offset);
+            }
+        }
+        // Ovanligt format, låt java.time avgöra
+        return ZonedDateTime.parse(new String(buf, start, len, StandardCharsets.UTF_8));
+    }
+
+    private ZoneOffset offsetOf(int totalSeconds) {
+        if (lastOffset.getTotalSeconds() != totalSeconds) {
+            lastOffset = ZoneOffset.ofTotalSeconds(totalSeconds);
+        }
+        return lastOffset;
+    }
+
+    /** @return Värdet av {@code count} decimala siffror, eller -1 om någon inte är en siffra. */
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    // --- Hjälpmetoder ---
+
+    private boolean keyEquals(int keyStart, int keyLength, byte[] key) {
+        if (keyLength != key.length) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (buf[keyStart + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Hoppar till efter avslutande citattecken. @return Positionen för citattecknet. */
+    private int skipStringBody() {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b == '"') {
+                return pos++;
+            }
+            pos += b == '\\' ? 2 : 1;
+        }
+        throw error("oavslutad sträng");
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        byte b = peek();
+        if (b == '"') {
+            pos++;
+            skipStringBody();
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            while (pos < end) {
+                byte c = buf[pos++];
+                if (c == '"') {
+                    skipStringBody();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw error("oavslutat värde");
+        } else {
+            // Tal, true, false eller null
+            while (pos < end && buf[pos] != ',' && buf[pos] != '}' && buf[pos] != ']' && !isWhitespace(buf[pos])) {
+                pos++;
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(buf[pos])) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw error("oväntat slut på indata");
+        }
+        return buf[pos];
+    }
+
+    private byte next() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw error("'" + c + "' förväntades");
+        }
+    }
+
+    private IllegalStateException error(String message) {
+        return new IllegalStateException(message + " vid position " + pos);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.api;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+/**
+ * Räknar om en {@link PriceSeries} till en annan upplösning med tidsviktade medelvärden.
+ * <p>
+ * Varje period fördelas på de intervall i målupplösningen som den överlappar, viktad med
+ * överlappets längd i sekunder. Det fungerar åt båda hållen: kvartspriser slås ihop till timmar
+ * och timpriser delas upp i kvartar med samma pris. Intervallen räknas i seriens tidszon, så en
+ * dag vid sommartid får 23 timmar och en dag vid vintertid 25, och en serie som blandar timmar
+ * och kvartar ger ändå jämna intervall.
+ * <p>
+ * Omräkningen görs i ett svep över seriens primitiva kolumner. Intervall utan data hoppas över;
+ * ett intervall som bara delvis täcks får medelvärdet av den täckta delen.
+ */
+public final class PriceResampler {
+
+    public enum Resolution {
+        QUARTER_HOUR, HOUR, DAY, WEEK
+    }
+
+    private PriceResampler() {
+    }
+
+    /**
+     * @return En ny serie med ett element per intervall i målupplösningen. Serien förutsätts
+     *         vara sorterad i tidsordning utan överlappande perioder.
+     */
+    public static PriceSeries resample(PriceSeries priser, Resolution resolution) {
+        int n = priser.size();
+        if (n == 0) {
+            return PriceSeries.empty();
+        }
+        ZoneId zone = priser.zone();
+        Kolumner ut = new Kolumner(Math.max(4, uppskattning(priser, resolution)));
+
+        long intervallStart = Long.MIN_VALUE;
+        long intervallSlut = Long.MIN_VALUE;
+        double sekSumma = 0.0;
+        double eurSumma = 0.0;
+        double exrSumma = 0.0;
+        long vikt = 0;
+        // Index för senaste perioden i intervallet; täcks intervallet av en enda period används
+        // dess priser oförändrade i stället för en kvot som kan skilja i sista decimalen
+        int senaste = -1;
+        int bidrag = 0;
+
+        for (int i = 0; i < n; i++) {
+            long från = priser.startEpochSecond(i);
+            long till = priser.endEpochSecond(i);
+            if (till <= från) {
+                // Sluttid med fel datum, t.ex. 23:00-00:00 samma dag; räkna bara med klockslaget
+                till = från + Math.floorMod(till - från, 86_400L);
+            }
+            while (från < till) {
+                if (från >= intervallSlut) {
+                    if (vikt > 0) {
+                        lägg(ut, priser, senaste, bidrag, sekSumma, eurSumma, exrSumma, vikt, intervallStart, intervallSlut);
+                    }
+                    intervallStart = intervallStart(från, zone, resolution);
+                    intervallSlut = intervallSlut(intervallStart, zone, resolution);
+                    sekSumma = 0.0;
+                    eurSumma = 0.0;
+                    exrSumma = 0.0;
+                    vikt = 0;
+                    bidrag = 0;
+                }
+                long överlapp = Math.min(till, intervallSlut) - från;
+                sekSumma += priser.sekPerKWh(i) * överlapp;
+                eurSumma += priser.eurPerKWh(i) * överlapp;
+                exrSumma += priser.exr(i) * överlapp;
+                vikt += överlapp;
+                från += överlapp;
+                if (senaste != i || bidrag == 0) {
+                    bidrag++;
+                }
+                senaste = i;
+            }
+        }
+        if (vikt > 0) {
+            lägg(ut, priser, senaste, bidrag, sekSumma, eurSumma, exrSumma, vikt, intervallStart, intervallSlut);
+        }
+        return ut.serie(zone);
+    }
+
+    private static void lägg(Kolumner ut, PriceSeries priser, int senaste, int bidrag, double sekSumma,
+                             double eurSumma, double exrSumma, long vikt, long intervallStart, long intervallSlut) {
+        if (bidrag == 1) {
+            ut.lägg(priser.sekPerKWh(senaste), priser.eurPerKWh(senaste), priser.exr(senaste), intervallStart, intervallSlut);
+        } else {
+            ut.lägg(sekSumma / vikt, eurSumma / vikt, exrSumma / vikt, intervallStart, intervallSlut);
+        }
+    }
+
+    /**
+     * @return Start i epoksekunder för intervallet som innehåller tidpunkten.
+     */
+    static long intervallStart(long epochSecond, ZoneId zone, Resolution resolution) {
+        ZonedDateTime tid = ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone);
+        return switch (resolution) {
+            case QUARTER_HOUR -> {
+                ZonedDateTime timme = tid.truncatedTo(ChronoUnit.HOURS);
+                yield timme.toEpochSecond() + (tid.getMinute() / 15) * 900L;
+            }
+            case HOUR -> tid.truncatedTo(ChronoUnit.HOURS).toEpochSecond();
+            case DAY -> tid.toLocalDate().atStartOfDay(zone).toEpochSecond();
+            case WEEK -> tid.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    .atStartOfDay(zone).toEpochSecond();
+        };
+    }
+
+    /**
+     * @return Slut i epoksekunder för intervallet som startar vid {@code intervallStart}. Dagar
+     *         och veckor följer tidszonens dygn, kvartar och timmar har fast längd.
+     */
+    static long intervallSlut(long intervallStart, ZoneId zone, Resolution resolution) {
+        return switch (resolution) {
+            case QUARTER_HOUR -> intervallStart + 900;
+            case HOUR -> intervallStart + 3600;
+            case DAY, WEEK -> {
+                LocalDate datum = Instant.ofEpochSecond(intervallStart).atZone(zone).toLocalDate();
+                yield datum.plusDays(resolution == Resolution.DAY ? 1 : 7).atStartOfDay(zone).toEpochSecond();
+            }
+        };
+    }
+
+    private static int uppskattning(PriceSeries priser, Resolution resolution) {
+        long sekunder = priser.endEpochSecond(priser.size() - 1) - priser.startEpochSecond(0);
+        long längd = switch (resolution) {
+            case QUARTER_HOUR -> 900;
+            case HOUR -> 3600;
+            case DAY -> 86_400;
+            case WEEK -> 7 * 86_400;
+        };
+        return (int) Math.min(Integer.MAX_VALUE - 8, sekunder / längd + 2);
+    }
+
+    // Växande kolumner för resultatet; uppskattningen räcker nästan alltid så att inget kopieras
+    private static final class Kolumner {
+        private double[] sek;
+        private double[] eur;
+        private double[] exr;
+        private long[] start;
+        private long[] end;
+        private int antal;
+
+        Kolumner(int kapacitet) {
+            sek = new double[kapacitet];
+            eur = new double[kapacitet];
+            exr = new double[kapacitet];
+            start = new long[kapacitet];
+            end = new long[kapacitet];
+        }
+
+        void lägg(double sekPris, double eurPris, double kurs, long från, long till) {
+            if (antal == sek.length) {
+                int kapacitet = antal * 2;
+                sek = Arrays.copyOf(sek, kapacitet);
+                eur = Arrays.copyOf(eur, kapacitet);
+                exr = Arrays.copyOf(exr, kapacitet);
+                start = Arrays.copyOf(start, kapacitet);
+                end = Arrays.copyOf(end, kapacitet);
+            }
+            sek[antal] = sekPris;
+            eur[antal] = eurPris;
+            exr[antal] = kurs;
+            start[antal] = från;
+            end[antal] = till;
+            antal++;
+        }
+
+        PriceSeries serie(ZoneId zone) {
+            if (antal == 0) {
+                return PriceSeries.empty();
+            }
+            return PriceSeries.ofColumns(Arrays.copyOf(sek, antal), Arrays.copyOf(eur, antal),
+                    Arrays.copyOf(exr, antal), Arrays.copyOf(start, antal), Arrays.copyOf(end, antal), zone);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.api;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * En kolumnbaserad prisserie: priser och starttider lagras i primitiva arrayer i stället för
+ * som en lista av {@link ElpriserAPI.Elpris} med två {@link ZonedDateTime} per rad.
+ * <p>
+ * Serien är oföränderlig. {@link #slice(int, int)} ger en vy över samma arrayer utan kopiering.
+ * Har alla perioder samma längd lagras bara intervallet, annars även sluttiderna.
+ */
+public final class PriceSeries {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final PriceSeries EMPTY = new PriceSeries(new double[0], new double[0], new double[0],
+            new long[0], null, 0, STOCKHOLM, 0, 0);
+
+    private final double[] sek;
+    private final double[] eur;
+    private final double[] exr;
+    private final long[] start;
+    // null om alla perioder är intervalSeconds långa
+    private final long[] end;
+    private final int intervalSeconds;
+    private final ZoneId zone;
+    private final int offset;
+    private final int length;
+
+    private PriceSeries(double[] sek, double[] eur, double[] exr, long[] start, long[] end,
+                        int intervalSeconds, ZoneId zone, int offset, int length) {
+        this.sek = sek;
+        this.eur = eur;
+        this.exr = exr;
+        this.start = start;
+        this.end = end;
+        this.intervalSeconds = intervalSeconds;
+        this.zone = zone;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Skapar en serie med fast intervall från primitiva arrayer. Arrayerna kopieras inte och får
+     * inte ändras efteråt.
+     */
+    public static PriceSeries of(double[] sek, double[] eur, double[] exr, long[] startEpochSeconds,
+                                 int intervalSeconds, ZoneId zone) {
+        int n = sek.length;
+        if (eur.length != n || exr.length != n || startEpochSeconds.length != n) {
+            throw new IllegalArgumentException("Alla kolumner måste ha samma längd");
+        }
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Intervallet måste vara positivt");
+        }
+        return new PriceSeries(sek, eur, exr, startEpochSeconds, null, intervalSeconds, zone, 0, n);
+    }
+
+    /**
+     * Skapar en serie med egna sluttider per period, t.ex. från binärformatet. Är alla perioder
+     * lika långa sparas bara intervallet.
+     */
+    static PriceSeries ofColumns(double[] sek, double[] eur, double[] exr, long[] start, long[] end, ZoneId zone) {
+        int n = sek.length;
+        if (n == 0) {
+            return EMPTY;
+        }
+        int interval = uniformInterval(start, end);
+        return new PriceSeries(sek, eur, exr, start, interval > 0 ? null : end, Math.max(interval, 0), zone, 0, n);
+    }
+
+    /**
+     * Skapar en serie från en lista av {@link ElpriserAPI.Elpris}, i listans ordning.
+     */
+    public static PriceSeries of(List<ElpriserAPI.Elpris> priser) {
+        int n = priser.size();
+        if (n == 0) {
+            return EMPTY;
+        }
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long[] end = new long[n];
+        ZoneId zone = priser.getFirst().timeStart().getZone();
+        boolean sammaZon = true;
+        for (int i = 0; i < n; i++) {
+            ElpriserAPI.Elpris pris = priser.get(i);
+            sek[i] = pris.sekPerKWh();
+            eur[i] = pris.eurPerKWh();
+            exr[i] = pris.exr();
+            start[i] = pris.timeStart().toEpochSecond();
+            end[i] = pris.timeEnd().toEpochSecond();
+            sammaZon &= pris.timeStart().getZone().equals(zone);
+        }
+        int interval = uniformInterval(start, end);
+        return new PriceSeries(sek, eur, exr, start, interval > 0 ? null : end, Math.max(interval, 0),
+                sammaZon ? zone : STOCKHOLM, 0, n);
+    }
+
+    /**
+     * Slår ihop serier i den ordning de ges, t.ex. idag följt av imorgon.
+     */
+    public static PriceSeries concat(List<PriceSeries> delar) {
+        int n = 0;
+        for (PriceSeries del : delar) {
+            n += del.length;
+        }
+        if (n == 0) {
+            return EMPTY;
+        }
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long[] end = new long[n];
+        ZoneId zone = null;
+        boolean sammaZon = true;
+        int pos = 0;
+        for (PriceSeries del : delar) {
+            if (del.length == 0) {
+                continue;
+            }
+            System.arraycopy(del.sek, del.offset, sek, pos, del.length);
+            System.arraycopy(del.eur, del.offset, eur, pos, del.length);
+            System.arraycopy(del.exr, del.offset, exr, pos, del.length);
+            System.arraycopy(del.start, del.offset, start, pos, del.length);
+            for (int i = 0; i < del.length; i++) {
+                end[pos + i] = del.endEpochSecond(i);
+            }
+            if (zone == null) {
+                zone = del.zone;
+            }
+            sammaZon &= del.zone.equals(zone);
+            pos += del.length;
+        }
+        int interval = uniformInterval(start, end);
+        return new PriceSeries(sek, eur, exr, start, interval > 0 ? null : end, Math.max(interval, 0),
+                sammaZon ? zone : STOCKHOLM, 0, n);
+    }
+
+    private static int uniformInterval(long[] start, long[] end) {
+        long interval = end[0] - start[0];
+        if (interval <= 0 || interval > Integer.MAX_VALUE) {
+            return -1;
+        }
+        for (int i = 1; i < start.length; i++) {
+            if (end[i] - start[i] != interval) {
+                return -1;
+            }
+        }
+        return (int) interval;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public double sekPerKWh(int i) {
+        return sek[index(i)];
+    }
+
+    public double eurPerKWh(int i) {
+        return eur[index(i)];
+    }
+
+    public double exr(int i) {
+        return exr[index(i)];
+    }
+
+    public long startEpochSecond(int i) {
+        return start[index(i)];
+    }
+
+    public long endEpochSecond(int i) {
+        int idx = index(i);
+        return end == null ? start[idx] + intervalSeconds : end[idx];
+    }
+
+    public ZonedDateTime timeStart(int i) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(startEpochSecond(i)), zone);
+    }
+
+    public ZonedDateTime timeEnd(int i) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(endEpochSecond(i)), zone);
+    }
+
+    /**
+     * @return Periodlängden i sekunder om alla perioder är lika långa, annars 0.
+     */
+    public int intervalSeconds() {
+        return end == null ? intervalSeconds : 0;
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public ElpriserAPI.Elpris get(int i) {
+        return new ElpriserAPI.Elpris(sekPerKWh(i), eurPerKWh(i), exr(i), timeStart(i), timeEnd(i));
+    }
+
+    /**
+     * @return En vy över perioderna {@code [from, to)} som delar arrayer med denna serie.
+     */
+    public PriceSeries slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("slice(" + from + ", " + to + ") för serie med " + length + " perioder");
+        }
+        return new PriceSeries(sek, eur, exr, start, end, intervalSeconds, zone, offset + from, to - from);
+    }
+
+    /**
+     * @return En vy över perioderna som startar på det givna datumet (i seriens tidszon).
+     *         Serien förutsätts vara sorterad i tidsordning.
+     */
+    public PriceSeries forDate(LocalDate datum) {
+        long från = datum.atStartOfDay(zone).toEpochSecond();
+        long till = datum.plusDays(1).atStartOfDay(zone).toEpochSecond();
+        int first = indexAtOrAfter(från);
+        return slice(first, Math.max(first, indexAtOrAfter(till)));
+    }
+
+    /**
+     * @return Index för första perioden som startar vid eller efter tidpunkten, eller {@link #size()}
+     *         om ingen gör det. Serien förutsätts vara sorterad i tidsordning.
+     */
+    public int indexAtOrAfter(long epochSecond) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start[offset + mid] < epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return Serien omräknad till en annan upplösning med tidsviktade medelvärden, se
+     *         {@link PriceResampler}.
+     */
+    public PriceSeries resample(PriceResampler.Resolution resolution) {
+        return PriceResampler.resample(this, resolution);
+    }
+
+    /**
+     * @return Kopia av SEK-priserna som en array.
+     */
+    public double[] sekPerKWhArray() {
+        double[] kopia = new double[length];
+        System.arraycopy(sek, offset, kopia, 0, length);
+        return kopia;
+    }
+
+    /**
+     * @return En oföränderlig listvy där varje {@link ElpriserAPI.Elpris} skapas först vid åtkomst.
+     */
+    public List<ElpriserAPI.Elpris> asList() {
+        return new ElprisList();
+    }
+
+    private int index(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("Index " + i + " för serie med " + length + " perioder");
+        }
+        return offset + i;
+    }
+
+    @Override
+    public String toString() {
+        return length == 0
+                ? "PriceSeries[tom]"
+                : "PriceSeries[" + length + " perioder, " + timeStart(0) + " - " + timeEnd(length - 1) + "]";
+    }
+
+    private final class ElprisList extends AbstractList<ElpriserAPI.Elpris> implements RandomAccess {
+        @Override
+        public ElpriserAPI.Elpris get(int index) {
+            return PriceSeries.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.server;
+
+import com.example.Main;
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * En långlivad HTTP-server som delar en varm {@link ElpriserAPI}-instans mellan alla anrop.
+ * Varje anrop hanteras på en egen virtuell tråd.
+ * <p>
+ * Endpoints (alla GET, svar i JSON):
+ * <ul>
+ *   <li>{@code /api/prices?zone=SE3&date=2025-09-04} – dagens priser</li>
+ *   <li>{@code /api/stats?zone=SE3&date=2025-09-04} – lägsta, högsta och medelpris</li>
+ *   <li>{@code /api/charging?zone=SE3&date=2025-09-04&duration=2h} – billigaste laddningsfönstret,
+ *       över idag och imorgon. Utan {@code date} letar den från innevarande timme.</li>
+ * </ul>
+ * Svaren har ETag och Last-Modified, så att klienter som pollar kan fråga med
+ * If-None-Match/If-Modified-Since och få 304 Not Modified utan kropp.
+ */
+public final class PriceServer {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final DateTimeFormatter TIDSFORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    // Gräns för antalet renderade svar som sparas, rensas helt när den nås
+    private static final int MAX_RENDERADE = 4096;
+
+    private final ElpriserAPI api;
+    private final Clock clock;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Renderat> renderade = new ConcurrentHashMap<>();
+
+    /**
+     * Ett färdigt svar. {@code källa} är serien svaret byggdes från; så länge API:t ger
+     * samma instans (från minnes-cachen) kan svaret återanvändas utan att renderas om.
+     */
+    private record Renderat(Object källa, byte[] body, String etag, Instant lastModified) {}
+
+    private PriceServer(ElpriserAPI api, Clock clock, HttpServer server) {
+        this.api = api;
+        this.clock = clock;
+        this.server = server;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/prices", exchange -> hantera(exchange, this::priser));
+        server.createContext("/api/stats", exchange -> hantera(exchange, this::statistik));
+        server.createContext("/api/charging", exchange -> hantera(exchange, this::laddning));
+    }
+
+    /**
+     * Startar en server på porten (0 ger en ledig port, se {@link #port()}).
+     */
+    public static PriceServer start(ElpriserAPI api, int port) throws IOException {
+        return start(api, port, Clock.system(STOCKHOLM));
+    }
+
+    public static PriceServer start(ElpriserAPI api, int port, Clock clock) throws IOException {
+        PriceServer priceServer = new PriceServer(api, clock, HttpServer.create(new InetSocketAddress(port), 0));
+        priceServer.server.start();
+        return priceServer;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stänger servern och väntar högst {@code fördröjning} på pågående anrop.
+     */
+    public void stop(Duration fördröjning) {
+        server.stop((int) Math.max(0, fördröjning.toSeconds()));
+        executor.close();
+    }
+
+    // --- Endpoints ---
+
+    private Svar priser(Map<String, String> parametrar) {
+        ElpriserAPI.Prisklass zon = zon(parametrar);
+        LocalDate datum = datum(parametrar);
+        PriceSeries priser = api.getPriceSeries(datum, zon);
+        if (priser.isEmpty()) {
+            return Svar.fel(404, "Inga priser för " + zon + " " + datum);
+        }
+        return Svar.ok("prices/" + zon + "/" + datum, priser, () -> {
+            StringBuilder sb = new StringBuilder(priser.size() * 140);
+            sb.append("{\"zone\":\"").append(zon).append("\",\"date\":\"").append(datum).append("\",\"prices\":");
+            prisLista(sb, priser);
+            return sb.append('}').toString();
+        });
+    }
+
+    private Svar statistik(Map<String, String> parametrar) {
+        ElpriserAPI.Prisklass zon = zon(parametrar);
+        LocalDate datum = datum(parametrar);
+        PriceSeries priser = api.getPriceSeries(datum, zon);
+        if (priser.isEmpty()) {
+            return Svar.fel(404, "Inga priser för " + zon + " " + datum);
+        }
+        return Svar.ok("stats/" + zon + "/" + datum, priser, () -> {
+            StringBuilder sb = new StringBuilder(512);
+            sb.append("{\"zone\":\"").append(zon).append("\",\"date\":\"").append(datum)
+                    .append("\",\"count\":").append(priser.size()).append(",\"min\":");
+            pris(sb, priser, Main.getMinPrice(priser));
+            sb.append(",\"max\":");
+            pris(sb, priser, Main.getMaxPrice(priser));
+            sb.append(",\"mean_SEK_per_kWh\":").append(Main.getAveragePrice(priser));
+            return sb.append('}').toString();
+        });
+    }
+
+    private Svar laddning(Map<String, String> parametrar) {
+        ElpriserAPI.Prisklass zon = zon(parametrar);
+        boolean utanDatum = parametrar.get("date") == null;
+        LocalDate datum = datum(parametrar);
+        String laddningstid = parametrar.getOrDefault("duration", "2h");
+        Duration tid = Main.parseLaddningstid(laddningstid);
+        if (tid == null) {
+            throw new OgiltigParameter("Ogiltig laddningstid: " + laddningstid);
+        }
+
+        var idag = api.getPriceSeriesAsync(datum, zon);
+        var imorgon = api.getPriceSeriesAsync(datum.plusDays(1), zon);
+        PriceSeries idagPriser = idag.join();
+        PriceSeries imorgonPriser = imorgon.join();
+        PriceSeries priser = PriceSeries.concat(List.of(idagPriser, imorgonPriser));
+        if (utanDatum && !priser.isEmpty()) {
+            long nuvarandeTimme = ZonedDateTime.now(clock.withZone(priser.zone())).truncatedTo(ChronoUnit.HOURS).toEpochSecond();
+            priser = priser.slice(priser.indexAtOrAfter(nuvarandeTimme), priser.size());
+        }
+        if (priser.isEmpty()) {
+            return Svar.fel(404, "Inga priser för " + zon + " " + datum);
+        }
+
+        PriceSeries fönster;
+        int perioder;
+        try {
+            perioder = Main.antalPerioder(tid, Main.periodSekunder(priser));
+            fönster = Main.findOptimalChargingWindow(priser, perioder);
+        } catch (IllegalArgumentException e) {
+            return Svar.fel(422, e.getMessage());
+        }
+        // Fönstret beror på båda dagarnas serier, och på klockan när datum saknas
+        Object källa = List.of(idagPriser, imorgonPriser, fönster.startEpochSecond(0));
+        String nyckel = "charging/" + zon + "/" + (utanDatum ? "now" : datum) + "/" + perioder;
+        return Svar.ok(nyckel, källa, () -> {
+            StringBuilder sb = new StringBuilder(256 + fönster.size() * 140);
+            sb.append("{\"zone\":\"").append(zon).append("\",\"date\":\"").append(datum)
+                    .append("\",\"duration\":\"").append(laddningstid).append("\",\"slots\":").append(fönster.size())
+                    .append(",\"start\":\"").append(TIDSFORMAT.format(fönster.timeStart(0)))
+                    .append("\",\"end\":\"").append(TIDSFORMAT.format(fönster.timeEnd(fönster.size() - 1)))
+                    .append("\",\"mean_SEK_per_kWh\":").append(Main.getAveragePrice(fönster))
+                    .append(",\"prices\":");
+            prisLista(sb, fönster);
+            return sb.append('}').toString();
+        });
+    }
+
+    // --- Hantering av anrop ---
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Svar svara(Map<String, String> parametrar);
+    }
+
+    private interface Renderare {
+        String json();
+    }
+
+    private record Svar(int status, String nyckel, Object källa, Renderare renderare, String fel) {
+        static Svar ok(String nyckel, Object källa, Renderare renderare) {
+            return new Svar(200, nyckel, källa, renderare, null);
+        }
+
+        static Svar fel(int status, String fel) {
+            return new Svar(status, null, null, null, fel);
+        }
+    }
+
+    private static final class OgiltigParameter extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        OgiltigParameter(String message) {
+            super(message);
+        }
+    }
+
+    private void hantera(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            try {
+                svara(exchange, endpoint);
+            } catch (RuntimeException e) {
+                System.err.println("Fel vid hantering av " + exchange.getRequestURI() + ": " + e.getMessage());
+                if (exchange.getResponseCode() == -1) {
+                    skicka(exchange, 500, felJson("Internt fel"));
+                }
+            }
+        }
+    }
+
+    private void svara(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            skicka(exchange, 405, felJson("Endast GET stöds"));
+            return;
+        }
+        Svar svar;
+        try {
+            svar = endpoint.svara(query(exchange.getRequestURI().getRawQuery()));
+        } catch (OgiltigParameter e) {
+            skicka(exchange, 400, felJson(e.getMessage()));
+            return;
+        }
+        if (svar.status() != 200) {
+            skicka(exchange, svar.status(), felJson(svar.fel()));
+            return;
+        }
+
+        Renderat renderat = rendera(svar);
+        var headers = exchange.getResponseHeaders();
+        headers.set("ETag", renderat.etag());
+        headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(renderat.lastModified().atZone(ZoneOffset.UTC)));
+        headers.set("Cache-Control", "no-cache");
+        if (inteÄndrad(exchange, renderat)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        skicka(exchange, 200, renderat.body());
+    }
+
+    private Renderat rendera(Svar svar) {
+        Renderat tidigare = renderade.get(svar.nyckel());
+        if (tidigare != null && tidigare.källa().equals(svar.källa())) {
+            return tidigare;
+        }
+        byte[] body = svar.renderare().json().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+        // Samma innehåll behåller sin ursprungliga ändringstid
+        Instant lastModified = tidigare != null && tidigare.etag().equals(etag)
+                ? tidigare.lastModified()
+                : clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        Renderat renderat = new Renderat(svar.källa(), body, etag, lastModified);
+        if (renderade.size() >= MAX_RENDERADE) {
+            renderade.clear();
+        }
+        renderade.put(svar.nyckel(), renderat);
+        return renderat;
+    }
+
+    private static boolean inteÄndrad(HttpExchange exchange, Renderat renderat) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String etag : ifNoneMatch.split(",")) {
+                String trimmad = etag.trim();
+                if (trimmad.equals("*") || trimmad.equals(renderat.etag()) || trimmad.equals("W/" + renderat.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                Instant sedan = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return !renderat.lastModified().isAfter(sedan);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skicka(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // --- Parametrar ---
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parametrar = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parametrar;
+        }
+        for (String par : rawQuery.split("&")) {
+            int lika = par.indexOf('=');
+            String namn = lika < 0 ? par : par.substring(0, lika);
+            String värde = lika < 0 ? "" : par.substring(lika + 1);
+            parametrar.put(URLDecoder.decode(namn, StandardCharsets.UTF_8), URLDecoder.decode(värde, StandardCharsets.UTF_8));
+        }
+        return parametrar;
+    }
+
+    private static ElpriserAPI.Prisklass zon(Map<String, String> parametrar) {
+        String zon = parametrar.get("zone");
+        if (zon == null) {
+            throw new OgiltigParameter("Parametern zone saknas (SE1-SE4)");
+        }
+        try {
+            return ElpriserAPI.Prisklass.valueOf(zon.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new OgiltigParameter("Ogiltig zon: " + zon + " (SE1-SE4)");
+        }
+    }
+
+    private LocalDate datum(Map<String, String> parametrar) {
+        String datum = parametrar.get("date");
+        if (datum == null) {
+            return LocalDate.now(clock.withZone(STOCKHOLM));
+        }
+        try {
+            return LocalDate.parse(datum);
+        } catch (DateTimeParseException e) {
+            throw new OgiltigParameter("Ogiltigt datum: " + datum + " (yyyy-MM-dd)");
+        }
+    }
+
+    // --- JSON ---
+
+    private static void prisLista(StringBuilder sb, PriceSeries priser) {
+        sb.append('[');
+        for (int i = 0; i < priser.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"time_start\":\"").append(TIDSFORMAT.format(priser.timeStart(i)))
+                    .append("\",\"time_end\":\"").append(TIDSFORMAT.format(priser.timeEnd(i)))
+                    .append("\",\"SEK_per_kWh\":").append(priser.sekPerKWh(i))
+                    .append(",\"EUR_per_kWh\":").append(priser.eurPerKWh(i))
+                    .append(",\"EXR\":").append(priser.exr(i)).append('}');
+        }
+        sb.append(']');
+    }
+
+    private static void pris(StringBuilder sb, PriceSeries priser, int i) {
+        sb.append("{\"time_start\":\"").append(TIDSFORMAT.format(priser.timeStart(i)))
+                .append("\",\"time_end\":\"").append(TIDSFORMAT.format(priser.timeEnd(i)))
+                .append("\",\"SEK_per_kWh\":").append(priser.sekPerKWh(i)).append('}');
+    }
+
+    private static byte[] felJson(String fel) {
+        return ("{\"error\":\"" + fel.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example;
+
+import com.example.api.PriceSeries;
+import com.example.api.TestSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChargingWindowTest {
+
+    // Heltalssummor, så att lika fönster verkligen är lika
+    private static int exaktStart(int[] priser, int perioder) {
+        long minSum = Long.MAX_VALUE;
+        int startIndex = 0;
+        for (int i = 0; i <= priser.length - perioder; i++) {
+            long sum = 0;
+            for (int j = 0; j < perioder; j++) {
+                sum += priser[i + j];
+            }
+            if (sum < minSum) {
+                minSum = sum;
+                startIndex = i;
+            }
+        }
+        return startIndex;
+    }
+
+    @Test
+    void slidingWindowMatchesNestedLoop_andPicksEarliestTie() {
+        Random random = new Random(42);
+        for (int runda = 0; runda < 200; runda++) {
+            // Få olika prisnivåer ger många lika summor
+            int[] tiondelar = new int[48 + random.nextInt(150)];
+            double[] priser = new double[tiondelar.length];
+            for (int i = 0; i < priser.length; i++) {
+                tiondelar[i] = random.nextInt(5);
+                priser[i] = tiondelar[i] / 10.0;
+            }
+            int perioder = 1 + random.nextInt(16);
+
+            PriceSeries fönster = Main.findOptimalChargingWindow(TestSeries.hourly(priser), perioder);
+
+            long förväntadStart = TestSeries.hourly(priser).startEpochSecond(exaktStart(tiondelar, perioder));
+            assertThat(fönster.size()).isEqualTo(perioder);
+            assertThat(fönster.startEpochSecond(0)).isEqualTo(förväntadStart);
+        }
+    }
+
+    @Test
+    void durationIsCountedInQuarterSlots_whenSeriesHas96Values() {
+        double[] priser = new double[96];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = 1.0;
+        }
+        // 01:15-03:15 är billigast
+        for (int i = 5; i < 13; i++) {
+            priser[i] = 0.1;
+        }
+        PriceSeries kvartar = TestSeries.quarterly(priser);
+
+        int perioder = Main.antalPerioder(Main.parseLaddningstid("2h"), Main.periodSekunder(kvartar));
+        PriceSeries fönster = Main.findOptimalChargingWindow(kvartar, perioder);
+
+        assertThat(perioder).isEqualTo(8);
+        assertThat(fönster.timeStart(0).toLocalTime()).hasToString("01:15");
+    }
+
+    @Test
+    void parsesHoursAndMinutes() {
+        assertThat(Main.parseLaddningstid("3h")).isEqualTo(Duration.ofHours(3));
+        assertThat(Main.parseLaddningstid("90m")).isEqualTo(Duration.ofMinutes(90));
+        assertThat(Main.parseLaddningstid("1h30m")).isEqualTo(Duration.ofMinutes(90));
+        assertThat(Main.parseLaddningstid("0h")).isNull();
+        assertThat(Main.parseLaddningstid("h")).isNull();
+        assertThat(Main.parseLaddningstid("två")).isNull();
+    }
+}
@@ -4,9 +4,13 @@ import com.example.api.ElpriserAPI;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
@@ -189,6 +193,65 @@ class MainTest {
         assertThat(actualSortedLines).containsExactlyElementsOf(expectedOrder);
     }
 
+    @Test
+    void displayTopAndBottomPrices_whenRequested() {
+        String mockJson = """
+                [{"SEK_per_kWh":0.30,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"},
+                 {"SEK_per_kWh":0.20,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-04T02:00:00+02:00","time_end":"2025-09-04T03:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T03:00:00+02:00","time_end":"2025-09-04T04:00:00+02:00"}]""";
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), mockJson);
+
+        Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04", "--top", "1", "--bottom", "2"});
+
+        String output = bos.toString();
+        // Loggraderna skrivs i tur och ordning med resten av utskriften
+        assertThat(output).startsWith("--Välkommen till Elpriskollen--\nVald zon: SE3\nValt datum: 2025-09-04\n"
+                + "!!! ANVÄNDER MOCK-DATA FÖR TEST !!!\n");
+        assertThat(output).contains("Dyraste 1:\n00-01 30,00 öre\nBilligaste 2:\n01-02 10,00 öre\n03-04 10,00 öre\n");
+    }
+
+    @Test
+    void formatCsvPrintsOnlyData() {
+        String mockJson = """
+                [{"SEK_per_kWh":0.30,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"}]""";
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), mockJson);
+
+        Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04", "--top", "1", "--format", "csv"});
+
+        // Loggraderna, t.ex. om mock-data, går till System.err
+        assertThat(bos.toString()).isEqualTo("""
+                kind,start,end,sek_per_kwh
+                top,2025-09-04T00:00:00+02:00,2025-09-04T01:00:00+02:00,0.30000
+                """);
+    }
+
+    @Test
+    void fleetWritesOneCsvLinePerVehicle(@TempDir Path dir) throws IOException {
+        String mockJsonToday = """
+                [{"SEK_per_kWh":0.30,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":"2025-09-04T21:00:00+02:00","time_end":"2025-09-04T22:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T22:00:00+02:00","time_end":"2025-09-04T23:00:00+02:00"},
+                 {"SEK_per_kWh":0.20,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-04T23:00:00+02:00","time_end":"2025-09-05T00:00:00+02:00"}]""";
+        String mockJsonTomorrow = """
+                [{"SEK_per_kWh":0.05,"EUR_per_kWh":0.005,"EXR":10.0,"time_start":"2025-09-05T00:00:00+02:00","time_end":"2025-09-05T01:00:00+02:00"}]""";
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), mockJsonToday);
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 5), mockJsonTomorrow);
+        Path fil = Files.writeString(dir.resolve("flotta.csv"), """
+                id,zon,ankomst,avfärd,laddning,kW
+                bil1,SE3,2025-09-04T21:00,2025-09-05T01:00,2h,10
+                bil2,SE3,2025-09-04T21:00,2025-09-04T23:00,22kWh,11
+                """);
+
+        Main.main(new String[]{"--fleet", fil.toString()});
+
+        assertThat(bos.toString()).contains("""
+                id,zone,start,end,periods,average_sek_per_kwh,cost_sek,error
+                bil1,SE3,2025-09-04T23:00:00+02:00,2025-09-05T01:00:00+02:00,2,0.12500,2.5000,
+                bil2,SE3,2025-09-04T21:00:00+02:00,2025-09-04T23:00:00+02:00,2,0.20000,4.4000,
+                """);
+    }
+
     @Test
     void findOptimalCharging2Hours() {
         String mockJson = """
@@ -391,28 +454,7 @@ class MainTest {
     void testHourlyMinMaxPrices_with96Entries() {
         // --- ARRANGE ---
         LocalDate today = LocalDate.of(2025, 9, 4);
-        StringBuilder jsonBuilder = new StringBuilder("[");
-
-        for (int hour = 0; hour < 24; hour++) {
-            for (int quarter = 0; quarter < 4; quarter++) {
-                if (hour > 0 || quarter > 0) {
-                    jsonBuilder.append(",");
-                }
-                double price = (hour * 0.1) + (quarter * 0.01) + 0.10;
-                String time_start = String.format("2025-09-04T%02d:%02d:00+02:00", hour, quarter * 15);
-                String time_end = String.format("2025-09-04T%02d:%02d:00+02:00", hour, (quarter + 1) * 15);
-                if (quarter == 3) { // Handle end of hour
-                    time_end = String.format("2025-09-04T%02d:00:00+02:00", (hour + 1) % 24);
-                }
-
-                jsonBuilder.append(String.format(Locale.US,
-                        """
-                        {"SEK_per_kWh":%.4f,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"%s","time_end":"%s"}""",
-                        price, time_start, time_end));
-            }
-        }
-        jsonBuilder.append("]");
-        ElpriserAPI.setMockResponseForDate(today, jsonBuilder.toString());
+        ElpriserAPI.setMockResponseForDate(today, kvartsdag());
 
         // --- ACT ---
         Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04"});
@@ -422,6 +464,9 @@ class MainTest {
         assertThat(output).containsIgnoringCase("lägsta pris");
         assertThat(output).containsIgnoringCase("högsta pris");
         assertThat(output).containsIgnoringCase("medelpris");
+        assertThat(output).contains("Högsta pris: 23-00, Pris: 241,50 öre/kWh\n"
+                + "Lägsta pris: 00-01, Pris: 11,50 öre/kWh\n"
+                + "Medelpris: 126,50 öre/kWh\n");
 
         // Expected Min: Hour 0 -> avg(0.10, 0.11, 0.12, 0.13) = 0.115 SEK/kWh = 11,50 öre
         // Expected Max: Hour 23 -> avg(2.40, 2.41, 2.42, 2.43) = 2.415 SEK/kWh = 241,50 öre
@@ -441,6 +486,46 @@ class MainTest {
         assertThat(output).contains("Medelpris: " + formatOre(expectedMean) + " öre");
     }
 
+    @Test
+    void displaySortedPrices_listsEveryQuarterOfAQuarterHourDay() {
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), kvartsdag());
+
+        Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04", "--sorted"});
+
+        List<String> rader = Arrays.stream(bos.toString().split("\n"))
+                .filter(line -> line.matches("\\d{2}-\\d{2} \\d+,\\d{2} öre"))
+                .collect(Collectors.toList());
+        assertThat(rader).hasSize(96);
+        assertThat(rader.getFirst()).isEqualTo("23-00 243,00 öre");
+        assertThat(rader.get(1)).isEqualTo("23-23 242,00 öre");
+        assertThat(rader.getLast()).isEqualTo("00-00 10,00 öre");
+    }
+
+    // 96 kvartar den 4 september 2025, där priset är 0,10 + timmen * 0,1 + kvarten * 0,01 SEK/kWh
+    private static String kvartsdag() {
+        StringBuilder jsonBuilder = new StringBuilder("[");
+
+        for (int hour = 0; hour < 24; hour++) {
+            for (int quarter = 0; quarter < 4; quarter++) {
+                if (hour > 0 || quarter > 0) {
+                    jsonBuilder.append(",");
+                }
+                double price = (hour * 0.1) + (quarter * 0.01) + 0.10;
+                String time_start = String.format("2025-09-04T%02d:%02d:00+02:00", hour, quarter * 15);
+                String time_end = String.format("2025-09-04T%02d:%02d:00+02:00", hour, (quarter + 1) * 15);
+                if (quarter == 3) { // Handle end of hour
+                    time_end = String.format("2025-09-04T%02d:00:00+02:00", (hour + 1) % 24);
+                }
+
+                jsonBuilder.append(String.format(Locale.US,
+                        """
+                        {"SEK_per_kWh":%.4f,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"%s","time_end":"%s"}""",
+                        price, time_start, time_end));
+            }
+        }
+        return jsonBuilder.append("]").toString();
+    }
+
     private String formatOre(double sekPerKWh) {
         double ore = sekPerKWh * 100.0;
         DecimalFormatSymbols symbols = new DecimalFormatSymbols(new Locale("sv", "SE"));
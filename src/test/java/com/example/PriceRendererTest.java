@@ -0,0 +1,111 @@
+package com.example;
+
+import com.example.api.PriceSeries;
+import com.example.api.TestSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceRendererTest {
+
+    private static final Locale SVENSKA = new Locale("sv", "SE");
+
+    @Test
+    void textIsByteIdenticalToPrintfAndDecimalFormat() {
+        Random random = new Random(11);
+        DateTimeFormatter timme = DateTimeFormatter.ofPattern("HH");
+        DateTimeFormatter klockslag = DateTimeFormatter.ofPattern("HH:mm");
+        DateTimeFormatter datum = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        DecimalFormat df = new DecimalFormat("0.00", new DecimalFormatSymbols(SVENSKA));
+
+        for (int runda = 0; runda < 300; runda++) {
+            // Vintertidens första dygn har 25 timmar; fem decimaler ger många halvor i ören
+            double[] priser = new double[25];
+            for (int i = 0; i < priser.length; i++) {
+                priser[i] = (random.nextInt(400_000) - 50_000) / 100_000.0;
+            }
+            priser[random.nextInt(25)] = -0.0;
+            priser[random.nextInt(25)] = 0.00125;
+            priser[random.nextInt(25)] = -0.00001;
+            PriceSeries serie = TestSeries.of(LocalDate.of(2025, 10, 26), priser, 3600);
+            int max = random.nextInt(25);
+            int min = random.nextInt(25);
+            double medel = random.nextInt(300_000) / 100_000.0;
+            int[] ordning = random.ints(25, 0, 25).toArray();
+            int från = random.nextInt(20);
+            PriceSeries fönster = serie.slice(från, från + 1 + random.nextInt(5));
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            PriceRenderer ut = new PriceRenderer(bos, StandardCharsets.UTF_8, PriceRenderer.Format.TEXT);
+            ut.summary(serie, max, min, medel);
+            ut.prices(serie, ordning, "price");
+            ut.chargingWindow(fönster);
+            ut.flush();
+
+            // Utskriften som den såg ut med printf, DecimalFormat och DateTimeFormatter
+            StringBuilder förväntat = new StringBuilder();
+            förväntat.append(String.format(SVENSKA, "Högsta pris: %s %05.2f öre\n",
+                    serie.timeStart(max).format(timme) + "-" + serie.timeEnd(max).format(timme), priser[max] * 100));
+            förväntat.append(String.format(SVENSKA, "Lägsta pris: %s %05.2f öre\n",
+                    serie.timeStart(min).format(timme) + "-" + serie.timeEnd(min).format(timme), priser[min] * 100));
+            förväntat.append(String.format(SVENSKA, "Medelpris: %05.2f öre\n", medel * 100));
+            for (int i : ordning) {
+                förväntat.append(serie.timeStart(i).format(timme)).append('-').append(serie.timeEnd(i).format(timme))
+                        .append(' ').append(df.format(priser[i] * 100.0)).append(" öre\n");
+            }
+            förväntat.append(String.format(SVENSKA, "Optimalt laddningsfönster: Påbörja laddning %s kl %s\n",
+                    fönster.timeStart(0).format(datum), fönster.timeStart(0).format(klockslag)));
+            double summa = 0.0;
+            for (int i = 0; i < fönster.size(); i++) {
+                double orepris = fönster.sekPerKWh(i) * 100;
+                summa += orepris;
+                förväntat.append(String.format(SVENSKA, "%s %s: %.2f öre\n", fönster.timeStart(i).format(datum),
+                        fönster.timeStart(i).format(klockslag) + "-" + fönster.timeEnd(i).format(klockslag), orepris));
+            }
+            förväntat.append(String.format(SVENSKA, "Medelpris för fönster: %.2f öre\n", summa / fönster.size()));
+
+            assertThat(bos.toString(StandardCharsets.UTF_8)).isEqualTo(förväntat.toString());
+        }
+    }
+
+    @Test
+    void csvAndJsonLinesSkipInformationRows() {
+        PriceSeries serie = TestSeries.hourly(0.125, -0.5);
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        PriceRenderer ut = new PriceRenderer(csv, StandardCharsets.UTF_8, PriceRenderer.Format.CSV);
+        ut.info("Vald zon: SE3");
+        ut.prices(serie, new int[]{1, 0}, "bottom");
+        ut.summary(serie, 0, 1, -0.1875);
+        ut.flush();
+
+        ByteArrayOutputStream jsonl = new ByteArrayOutputStream();
+        ut = new PriceRenderer(jsonl, StandardCharsets.UTF_8, PriceRenderer.Format.JSONL);
+        ut.info("Vald zon: SE3");
+        ut.chargingWindow(serie);
+        ut.flush();
+
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                kind,start,end,sek_per_kwh
+                bottom,2025-09-04T01:00:00+02:00,2025-09-04T02:00:00+02:00,-0.50000
+                bottom,2025-09-04T00:00:00+02:00,2025-09-04T01:00:00+02:00,0.12500
+                max,2025-09-04T00:00:00+02:00,2025-09-04T01:00:00+02:00,0.12500
+                min,2025-09-04T01:00:00+02:00,2025-09-04T02:00:00+02:00,-0.50000
+                mean,2025-09-04T00:00:00+02:00,2025-09-04T02:00:00+02:00,-0.18750
+                """);
+        assertThat(jsonl.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"kind":"charging","start":"2025-09-04T00:00:00+02:00","end":"2025-09-04T01:00:00+02:00","sekPerKWh":0.12500}
+                {"kind":"charging","start":"2025-09-04T01:00:00+02:00","end":"2025-09-04T02:00:00+02:00","sekPerKWh":-0.50000}
+                {"kind":"charging_mean","start":"2025-09-04T00:00:00+02:00","end":"2025-09-04T02:00:00+02:00","sekPerKWh":-0.18750}
+                """);
+    }
+}
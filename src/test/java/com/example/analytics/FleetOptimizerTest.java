@@ -0,0 +1,143 @@
+package com.example.analytics;
+
+import com.example.Main;
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import com.example.api.TestSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FleetOptimizerTest {
+
+    @Test
+    void batchMatchesOneScanPerVehicle() {
+        Random random = new Random(17);
+        double[] priser = new double[192];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = Math.round((random.nextDouble() * 3 - 0.2) * 100_000) / 100_000.0;
+        }
+        PriceSeries serie = TestSeries.quarterly(priser);
+        FleetOptimizer optimizer = FleetOptimizer.of(Map.of(ElpriserAPI.Prisklass.SE3, serie));
+
+        List<FleetOptimizer.ChargingRequest> förfrågningar = new ArrayList<>();
+        for (int bil = 0; bil < 3000; bil++) {
+            Instant ankomst = TestSeries.MIDNATT.plusSeconds(random.nextInt(30 * 3600));
+            Instant avfärd = ankomst.plusSeconds(random.nextInt(18 * 3600));
+            Duration laddning = Duration.ofMinutes(15L * (1 + random.nextInt(24)));
+            förfrågningar.add(new FleetOptimizer.ChargingRequest("bil" + bil, ElpriserAPI.Prisklass.SE3,
+                    ankomst, avfärd, laddning, 11.0));
+        }
+
+        List<FleetOptimizer.ChargingResult> resultat = optimizer.optimize(förfrågningar);
+
+        assertThat(resultat).hasSize(förfrågningar.size());
+        int lösta = 0;
+        for (int i = 0; i < förfrågningar.size(); i++) {
+            FleetOptimizer.ChargingRequest förfrågan = förfrågningar.get(i);
+            FleetOptimizer.ChargingResult svar = resultat.get(i);
+            assertThat(svar.id()).isEqualTo(förfrågan.id());
+            int från = serie.indexAtOrAfter(förfrågan.arrival().getEpochSecond());
+            // Perioder som slutar efter avfärd räknas inte med
+            int till = serie.indexAtOrAfter(förfrågan.departure().getEpochSecond());
+            if (till > från && serie.endEpochSecond(till - 1) > förfrågan.departure().getEpochSecond()) {
+                till--;
+            }
+            int perioder = (int) (förfrågan.chargingTime().toMinutes() / 15);
+            if (till - från < perioder) {
+                assertThat(svar.ok()).isFalse();
+                continue;
+            }
+            PriceSeries förväntat = Main.findOptimalChargingWindow(serie.slice(från, till), perioder);
+            assertThat(svar.start()).isEqualTo(förväntat.timeStart(0).toInstant());
+            assertThat(svar.end()).isEqualTo(förväntat.timeEnd(perioder - 1).toInstant());
+            assertThat(svar.averagePrice()).isCloseTo(Main.getAveragePrice(förväntat), within(1e-9));
+            assertThat(svar.cost()).isCloseTo(svar.averagePrice() * perioder * 0.25 * 11.0, within(1e-9));
+            lösta++;
+        }
+        assertThat(lösta).isGreaterThan(1000);
+    }
+
+    @Test
+    void energyRequestsRoundUpToWholePeriodsAndMissingZonesFail() {
+        PriceSeries serie = TestSeries.hourly(0.50, 0.10, 0.20, 0.90);
+        FleetOptimizer optimizer = FleetOptimizer.of(Map.of(ElpriserAPI.Prisklass.SE1, serie));
+
+        // 15 kWh med 11 kW tar 1 h 22 min, alltså två timmar
+        FleetOptimizer.ChargingResult svar = optimizer.optimize(FleetOptimizer.ChargingRequest.ofEnergy("a",
+                ElpriserAPI.Prisklass.SE1, TestSeries.MIDNATT, TestSeries.MIDNATT.plusSeconds(4 * 3600), 15.0, 11.0));
+        FleetOptimizer.ChargingResult saknas = optimizer.optimize(new FleetOptimizer.ChargingRequest("b",
+                ElpriserAPI.Prisklass.SE4, TestSeries.MIDNATT, TestSeries.MIDNATT.plusSeconds(4 * 3600), Duration.ofHours(1), 1.0));
+
+        assertThat(svar.periods()).isEqualTo(2);
+        assertThat(svar.start()).isEqualTo(TestSeries.MIDNATT.plusSeconds(3600));
+        assertThat(svar.cost()).isCloseTo(0.15 * 2 * 11.0, within(1e-12));
+        assertThat(saknas.ok()).isFalse();
+    }
+
+    @Test
+    void windowsDoNotSpanAMissingDay() {
+        // Idag och i övermorgon, dagen emellan saknas. Billigast vore sista timmen idag
+        // följt av första timmen i övermorgon, men de ligger inte intill varandra.
+        double[] idag = new double[24];
+        double[] övermorgon = new double[24];
+        Arrays.fill(idag, 1.0);
+        Arrays.fill(övermorgon, 1.0);
+        idag[23] = 0.10;
+        övermorgon[0] = 0.10;
+        idag[10] = 0.50;
+        idag[11] = 0.50;
+        PriceSeries serie = PriceSeries.concat(List.of(TestSeries.of(TestSeries.DAG, idag, 3600),
+                TestSeries.of(TestSeries.DAG.plusDays(2), övermorgon, 3600)));
+        FleetOptimizer optimizer = FleetOptimizer.of(Map.of(ElpriserAPI.Prisklass.SE3, serie));
+        Instant övermorgonMidnatt = TestSeries.DAG.plusDays(2).atStartOfDay(TestSeries.STOCKHOLM).toInstant();
+
+        FleetOptimizer.ChargingResult svar = optimizer.optimize(new FleetOptimizer.ChargingRequest("bil",
+                ElpriserAPI.Prisklass.SE3, TestSeries.MIDNATT, övermorgonMidnatt.plusSeconds(24 * 3600),
+                Duration.ofHours(2), 11.0));
+        FleetOptimizer.ChargingResult överLuckan = optimizer.optimize(new FleetOptimizer.ChargingRequest("bil2",
+                ElpriserAPI.Prisklass.SE3, TestSeries.MIDNATT.plusSeconds(23 * 3600), övermorgonMidnatt.plusSeconds(3600),
+                Duration.ofHours(2), 11.0));
+
+        assertThat(svar.start()).isEqualTo(TestSeries.MIDNATT.plusSeconds(10 * 3600));
+        assertThat(svar.end()).isEqualTo(TestSeries.MIDNATT.plusSeconds(12 * 3600));
+        assertThat(svar.averagePrice()).isCloseTo(0.50, within(1e-12));
+        assertThat(överLuckan.ok()).isFalse();
+    }
+
+    @Test
+    void writesCsvAndJsonLines() throws IOException {
+        FleetOptimizer.ChargingResult ok = new FleetOptimizer.ChargingResult("bil,1", ElpriserAPI.Prisklass.SE3,
+                TestSeries.MIDNATT, TestSeries.MIDNATT.plusSeconds(7200), 8, 0.123456, -1.5, null);
+        FleetOptimizer.ChargingResult fel = new FleetOptimizer.ChargingResult("bil\"2", ElpriserAPI.Prisklass.SE4,
+                null, null, 0, Double.NaN, Double.NaN, "Inga priser");
+        StringBuilder csv = new StringBuilder();
+        StringBuilder jsonl = new StringBuilder();
+
+        FleetOptimizer.writeCsvHeader(csv);
+        FleetOptimizer.writeCsv(ok, csv);
+        FleetOptimizer.writeCsv(fel, csv);
+        FleetOptimizer.writeJsonLine(ok, jsonl);
+        FleetOptimizer.writeJsonLine(fel, jsonl);
+
+        assertThat(csv.toString()).isEqualTo("""
+                id,zone,start,end,periods,average_sek_per_kwh,cost_sek,error
+                "bil,1",SE3,2025-09-04T00:00:00+02:00,2025-09-04T02:00:00+02:00,8,0.12346,-1.5000,
+                "bil""2",SE4,,,0,,,Inga priser
+                """);
+        assertThat(jsonl.toString()).isEqualTo("""
+                {"id":"bil,1","zone":"SE3","start":"2025-09-04T00:00:00+02:00","end":"2025-09-04T02:00:00+02:00","periods":8,"averageSekPerKWh":0.12346,"costSek":-1.5000}
+                {"id":"bil\\"2","zone":"SE4","error":"Inga priser"}
+                """);
+    }
+}
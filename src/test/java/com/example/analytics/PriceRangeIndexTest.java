@@ -0,0 +1,90 @@
+package com.example.analytics;
+
+import com.example.api.PriceSeries;
+import com.example.api.TestSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceRangeIndexTest {
+
+    @Test
+    void answersMatchAScan_forEveryInterval_withEarliestTies() {
+        Random random = new Random(7);
+        double[] priser = new double[130];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = random.nextInt(6) / 10.0;
+        }
+        PriceRangeIndex index = PriceRangeIndex.of(TestSeries.quarterly(priser));
+
+        for (int from = 0; from < priser.length; from++) {
+            double sum = 0;
+            int min = from;
+            int max = from;
+            for (int to = from + 1; to <= priser.length; to++) {
+                sum += priser[to - 1];
+                if (priser[to - 1] < priser[min]) {
+                    min = to - 1;
+                }
+                if (priser[to - 1] > priser[max]) {
+                    max = to - 1;
+                }
+                assertThat(index.sum(from, to)).isCloseTo(sum, within(1e-9));
+                assertThat(index.average(from, to)).isCloseTo(sum / (to - from), within(1e-9));
+                assertThat(index.minIndex(from, to)).isEqualTo(min);
+                assertThat(index.maxIndex(from, to)).isEqualTo(max);
+            }
+        }
+    }
+
+    @Test
+    void costsPartialQuarterSlots_forASaunaEvening() {
+        double[] priser = new double[96];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = i < 72 ? 1.0 : 2.0; // 2 kr/kWh från 18:00
+        }
+        PriceRangeIndex index = PriceRangeIndex.of(TestSeries.quarterly(priser));
+        var från = ZonedDateTime.of(TestSeries.DAG, LocalTime.of(18, 10), TestSeries.STOCKHOLM).toInstant();
+        var till = ZonedDateTime.of(TestSeries.DAG, LocalTime.of(20, 45), TestSeries.STOCKHOLM).toInstant();
+
+        // 2 h 35 min * 3,5 kW * 2 kr/kWh
+        assertThat(index.cost(från, till, 3.5)).isCloseTo(155 / 60.0 * 3.5 * 2.0, within(1e-9));
+        assertThat(index.cost(från, från.plusSeconds(300), 1.0)).isCloseTo(2.0 / 12, within(1e-12));
+        assertThat(index.indexAt(från)).isEqualTo(72);
+    }
+
+    @Test
+    void costRejectsIntervalsOverAMissingStretch() {
+        // 4 september och 6 september, dagen emellan saknas
+        double[] timpriser = new double[24];
+        Arrays.fill(timpriser, 1.0);
+        PriceRangeIndex index = PriceRangeIndex.of(PriceSeries.concat(List.of(
+                TestSeries.of(TestSeries.DAG, timpriser, 3600),
+                TestSeries.of(TestSeries.DAG.plusDays(2), timpriser, 3600))));
+        var kväll = ZonedDateTime.of(TestSeries.DAG, LocalTime.of(22, 0), TestSeries.STOCKHOLM).toInstant();
+        var övermorgon = ZonedDateTime.of(TestSeries.DAG.plusDays(2), LocalTime.of(2, 0), TestSeries.STOCKHOLM).toInstant();
+
+        assertThat(index.indexAt(kväll)).isNotNegative();
+        assertThat(index.indexAt(övermorgon)).isNotNegative();
+        assertThatThrownBy(() -> index.cost(kväll, övermorgon, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(index.cost(kväll, kväll.plusSeconds(2 * 3600), 1.0)).isCloseTo(2.0, within(1e-12));
+        assertThat(index.cost(övermorgon.minusSeconds(2 * 3600), övermorgon, 1.0)).isCloseTo(2.0, within(1e-12));
+    }
+
+    @Test
+    void cheapestWindowWithinASubrange() {
+        double[] priser = {0.5, 0.1, 0.1, 0.5, 0.3, 0.2, 0.2, 0.3, 0.1, 0.1};
+        PriceRangeIndex index = PriceRangeIndex.of(TestSeries.hourly(priser));
+
+        assertThat(index.cheapestWindow(2).startEpochSecond(0)).isEqualTo(index.series().startEpochSecond(1));
+        assertThat(index.cheapestWindow(3, 8, 2).startEpochSecond(0)).isEqualTo(index.series().startEpochSecond(5));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.analytics;
+
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceRankingTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    private static PriceSeries serie(double[] priser) {
+        long[] start = new long[priser.length];
+        long första = LocalDate.of(2025, 9, 4).atStartOfDay(STOCKHOLM).toEpochSecond();
+        for (int i = 0; i < priser.length; i++) {
+            start[i] = första + i * 900L;
+        }
+        return PriceSeries.of(priser, new double[priser.length], new double[priser.length], start, 900, STOCKHOLM);
+    }
+
+    // Referens: boxad, stabil sortering av alla index
+    private static int[] referens(double[] priser, boolean stigande) {
+        Comparator<Integer> pris = Comparator.comparingDouble(i -> priser[i]);
+        List<Integer> index = IntStream.range(0, priser.length).boxed()
+                .sorted(stigande ? pris : pris.reversed())
+                .toList();
+        return index.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void topKMatchesAFullStableSort_withEarliestTies() {
+        Random random = new Random(11);
+        double[] priser = new double[193];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = random.nextInt(8) / 10.0;
+        }
+        PriceSeries serie = serie(priser);
+        int[] stigande = referens(priser, true);
+        int[] fallande = referens(priser, false);
+
+        for (int k : new int[]{0, 1, 5, 24, 192, 193, 500}) {
+            int n = Math.min(k, priser.length);
+            assertThat(PriceRanking.cheapest(serie, k)).containsExactly(Arrays.copyOf(stigande, n));
+            assertThat(PriceRanking.mostExpensive(serie, k)).containsExactly(Arrays.copyOf(fallande, n));
+        }
+        assertThat(PriceRanking.sortedDescending(serie)).containsExactly(fallande);
+    }
+
+    @Test
+    void tiesKeepTheEarliestPeriods() {
+        PriceSeries serie = serie(new double[]{0.3, 0.1, 0.2, 0.1, 0.1, 0.3});
+
+        assertThat(PriceRanking.cheapest(serie, 2)).containsExactly(1, 3);
+        assertThat(PriceRanking.mostExpensive(serie, 1)).containsExactly(0);
+        assertThat(PriceRanking.sortedDescending(serie)).containsExactly(0, 5, 2, 1, 3, 4);
+        assertThat(PriceRanking.cheapest(PriceSeries.empty(), 3)).isEmpty();
+        assertThatThrownBy(() -> PriceRanking.cheapest(serie, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.analytics;
+
+import com.example.api.TestSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class SlotSchedulerTest {
+
+    @Test
+    void picksTheCheapestSlotsInsideTheWindow_matchingASortOfTheWindow() {
+        Random random = new Random(3);
+        double[] priser = new double[96];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = random.nextInt(20) / 100.0;
+        }
+        SlotScheduler scheduler = SlotScheduler.of(TestSeries.quarterly(priser));
+        Instant tidigast = TestSeries.MIDNATT.plusSeconds(6 * 3600);
+        Instant deadline = TestSeries.MIDNATT.plusSeconds(18 * 3600 + 600);
+
+        SlotScheduler.Schedule schema = scheduler.cheapestSlots(10, 2.0, tidigast, deadline);
+
+        // Fönstret är kvart 24 till och med 71; kvarten 18:00-18:15 slutar efter deadline
+        int[] förväntade = IntStream.range(24, 72).boxed()
+                .sorted((a, b) -> Double.compare(priser[a], priser[b]))
+                .limit(10).mapToInt(Integer::intValue).sorted().toArray();
+        assertThat(schema.slots()).containsExactly(förväntade);
+        double kostnad = Arrays.stream(förväntade).mapToDouble(i -> priser[i] * 0.5).sum();
+        assertThat(schema.cost()).isCloseTo(kostnad, within(1e-12));
+        assertThat(schema.totalKilowattHours()).isCloseTo(5.0, within(1e-12));
+        assertThat(schema.slot(0).timeStart(0).toInstant()).isAfterOrEqualTo(tidigast);
+
+        assertThatThrownBy(() -> scheduler.cheapestSlots(49, 2.0, tidigast, deadline))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fillsCheapestSlotsWithMaxPowerAndTheLastOnePartially() {
+        SlotScheduler scheduler = SlotScheduler.of(TestSeries.hourly(0.50, 0.10, 0.30, 0.10, 0.20, 0.90));
+
+        // 7 kWh med högst 3 kW: två hela timmar à 0,10 och 1 kWh i timmen à 0,20
+        SlotScheduler.Schedule schema = scheduler.cheapestEnergy(7.0, 3.0, TestSeries.MIDNATT, TestSeries.MIDNATT.plusSeconds(6 * 3600));
+
+        assertThat(schema.slots()).containsExactly(1, 3, 4);
+        assertThat(schema.kilowattHours()).containsExactly(3.0, 3.0, 1.0);
+        assertThat(schema.cost()).isCloseTo(0.3 + 0.3 + 0.2, within(1e-12));
+
+        assertThatThrownBy(() -> scheduler.cheapestEnergy(7.0, 3.0, TestSeries.MIDNATT, TestSeries.MIDNATT.plusSeconds(2 * 3600)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void oneSchedulerServesManyLoadsInParallel() {
+        Random random = new Random(5);
+        double[] priser = new double[192];
+        for (int i = 0; i < priser.length; i++) {
+            priser[i] = random.nextDouble();
+        }
+        SlotScheduler scheduler = SlotScheduler.of(TestSeries.quarterly(priser));
+
+        double[] sekventiellt = IntStream.range(0, 2000)
+                .mapToDouble(last -> scheduler.cheapestEnergy(1 + last % 20, 2.5,
+                        TestSeries.MIDNATT.plusSeconds(last % 48 * 900L), TestSeries.MIDNATT.plusSeconds(2 * 86_400L)).cost())
+                .toArray();
+        double[] parallellt = IntStream.range(0, 2000).parallel()
+                .mapToDouble(last -> scheduler.cheapestEnergy(1 + last % 20, 2.5,
+                        TestSeries.MIDNATT.plusSeconds(last % 48 * 900L), TestSeries.MIDNATT.plusSeconds(2 * 86_400L)).cost())
+                .toArray();
+
+        assertThat(parallellt).containsExactly(sekventiellt);
+    }
+}
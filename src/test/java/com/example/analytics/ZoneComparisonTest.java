@@ -0,0 +1,148 @@
+package com.example.analytics;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZoneComparisonTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final LocalDate FÖRSTA = LocalDate.of(2025, 3, 20);
+    private static final int DAGAR = 30;
+
+    // Timpriser över en månad med sommartidsövergång; SE4 saknar en dag
+    private static Map<ElpriserAPI.Prisklass, PriceSeries> perZon() {
+        Random random = new Random(18);
+        Map<ElpriserAPI.Prisklass, PriceSeries> perZon = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        for (ElpriserAPI.Prisklass zon : ElpriserAPI.Prisklass.values()) {
+            List<Long> start = new ArrayList<>();
+            List<Double> priser = new ArrayList<>();
+            for (LocalDate dag = FÖRSTA; dag.isBefore(FÖRSTA.plusDays(DAGAR)); dag = dag.plusDays(1)) {
+                if (zon == ElpriserAPI.Prisklass.SE4 && dag.equals(FÖRSTA.plusDays(5))) {
+                    continue;
+                }
+                long t = dag.atStartOfDay(STOCKHOLM).toEpochSecond();
+                long slut = dag.plusDays(1).atStartOfDay(STOCKHOLM).toEpochSecond();
+                for (; t < slut; t += 3600) {
+                    start.add(t);
+                    priser.add(zon.ordinal() * 0.2 + random.nextInt(300) / 100.0);
+                }
+            }
+            double[] sek = priser.stream().mapToDouble(Double::doubleValue).toArray();
+            perZon.put(zon, PriceSeries.of(sek, new double[sek.length], new double[sek.length],
+                    start.stream().mapToLong(Long::longValue).toArray(), 3600, STOCKHOLM));
+        }
+        return perZon;
+    }
+
+    @Test
+    void matchesASequentialReferenceExactly() {
+        Map<ElpriserAPI.Prisklass, PriceSeries> perZon = perZon();
+
+        ZoneComparison jämförelse = ZoneComparison.of(perZon, new ForkJoinPool(8));
+
+        // Referens: en dag mindre eftersom SE4 saknar en, och 23 timmar på sommartidsdagen
+        int perioder = DAGAR * 24 - 1 - 24;
+        assertThat(jämförelse.size()).isEqualTo(perioder);
+        double[][] priser = new double[4][perioder];
+        long[] tider = new long[perioder];
+        for (int z = 0; z < 4; z++) {
+            PriceSeries serie = perZon.get(ElpriserAPI.Prisklass.values()[z]);
+            int m = 0;
+            for (int i = 0; i < serie.size(); i++) {
+                if (serie.timeStart(i).toLocalDate().equals(FÖRSTA.plusDays(5))) {
+                    continue;
+                }
+                tider[m] = serie.startEpochSecond(i);
+                priser[z][m++] = serie.sekPerKWh(i);
+            }
+        }
+
+        for (int i = 0; i < perioder; i++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int z = 0; z < 4; z++) {
+                min = Math.min(min, priser[z][i]);
+                max = Math.max(max, priser[z][i]);
+            }
+            assertThat(jämförelse.start(i).getEpochSecond()).isEqualTo(tider[i]);
+            assertThat(jämförelse.spread(i)).isEqualTo(max - min);
+        }
+
+        for (int z = 0; z < 4; z++) {
+            double[] x = priser[z];
+            double[] sorterade = x.clone();
+            Arrays.sort(sorterade);
+            Map<LocalDate, List<Double>> perDag = new TreeMap<>();
+            for (int i = 0; i < perioder; i++) {
+                LocalDate dag = Instant.ofEpochSecond(tider[i]).atZone(STOCKHOLM).toLocalDate();
+                perDag.computeIfAbsent(dag, d -> new ArrayList<>()).add(x[i]);
+            }
+            double[] dagsavvikelse = perDag.values().stream()
+                    .mapToDouble(dag -> ZoneComparison.standardavvikelse(dag.stream().mapToDouble(Double::doubleValue).toArray(), 0, dag.size()))
+                    .toArray();
+
+            assertThat(jämförelse.zoneStats().get(z)).isEqualTo(new ZoneComparison.ZoneStats(
+                    ElpriserAPI.Prisklass.values()[z], perioder,
+                    ZoneComparison.medel(x, 0, perioder), ZoneComparison.standardavvikelse(x, 0, perioder),
+                    sorterade[0], sorterade[perioder - 1],
+                    ZoneComparison.percentil(sorterade, 0.1), ZoneComparison.percentil(sorterade, 0.5),
+                    ZoneComparison.percentil(sorterade, 0.9),
+                    ZoneComparison.medel(dagsavvikelse, 0, dagsavvikelse.length)));
+        }
+
+        assertThat(jämförelse.pairs()).hasSize(6);
+        ZoneComparison.ZonePair se1se4 = jämförelse.pairs().get(2);
+        assertThat(se1se4.a()).isEqualTo(ElpriserAPI.Prisklass.SE1);
+        assertThat(se1se4.b()).isEqualTo(ElpriserAPI.Prisklass.SE4);
+        assertThat(se1se4.meanDifference()).isCloseTo(0.6, within(0.2));
+        assertThat(Math.abs(se1se4.correlation())).isLessThan(0.2);
+    }
+
+    @Test
+    void givesIdenticalResultsForAnyParallelism() {
+        Map<ElpriserAPI.Prisklass, PriceSeries> perZon = perZon();
+
+        ZoneComparison sekventiell = ZoneComparison.of(perZon, new ForkJoinPool(1));
+        ZoneComparison parallell = ZoneComparison.of(perZon, new ForkJoinPool(16));
+
+        assertThat(parallell.zoneStats()).isEqualTo(sekventiell.zoneStats());
+        assertThat(parallell.pairs()).isEqualTo(sekventiell.pairs());
+        assertThat(parallell.maxSpreadPeriod()).isEqualTo(sekventiell.maxSpreadPeriod());
+        assertThat(parallell.arbitragePeriods(1.0)).isEqualTo(sekventiell.arbitragePeriods(1.0));
+    }
+
+    @Test
+    void correlationIsOneForShiftedCopies() {
+        double[] sek = {0.5, 1.0, 0.25, 3.0};
+        long första = FÖRSTA.atStartOfDay(STOCKHOLM).toEpochSecond();
+        long[] start = {första, första + 3600, första + 7200, första + 10800};
+        Map<ElpriserAPI.Prisklass, PriceSeries> perZon = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        perZon.put(ElpriserAPI.Prisklass.SE3, PriceSeries.of(sek, new double[4], new double[4], start, 3600, STOCKHOLM));
+        perZon.put(ElpriserAPI.Prisklass.SE2, PriceSeries.of(Arrays.stream(sek).map(p -> p + 0.25).toArray(),
+                new double[4], new double[4], start, 3600, STOCKHOLM));
+
+        ZoneComparison jämförelse = ZoneComparison.of(perZon);
+
+        assertThat(jämförelse.zones()).containsExactly(ElpriserAPI.Prisklass.SE2, ElpriserAPI.Prisklass.SE3);
+        assertThat(jämförelse.pairs().getFirst().correlation()).isCloseTo(1.0, within(1e-12));
+        assertThat(jämförelse.cheapestZone(0)).isEqualTo(ElpriserAPI.Prisklass.SE3);
+        assertThat(jämförelse.maxSpreadPeriod()).isZero();
+        assertThat(jämförelse.arbitragePeriods(0.25)).isEqualTo(4);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AggregateIndexTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    // Kvartspriser för en dag, med lika min- och maxpriser på flera ställen
+    private static PriceSeries dag(LocalDate datum, double nivå) {
+        long start = datum.atStartOfDay(STOCKHOLM).toEpochSecond();
+        long slut = datum.plusDays(1).atStartOfDay(STOCKHOLM).toEpochSecond();
+        int n = (int) ((slut - start) / 900);
+        double[] sek = new double[n];
+        long[] starter = new long[n];
+        for (int i = 0; i < n; i++) {
+            sek[i] = nivå + (i % 8 == 3 ? -0.05 : 0) + (i % 12 == 7 ? 0.5 : 0);
+            starter[i] = start + i * 900L;
+        }
+        return PriceSeries.of(sek, new double[n], new double[n], starter, 900, STOCKHOLM);
+    }
+
+    @Test
+    void aggregatesQuarterDays_withEarliestTiesAndDstHours() {
+        LocalDate vanligDag = LocalDate.of(2025, 9, 4);
+        LocalDate vintertid = LocalDate.of(2025, 10, 26);
+
+        DailyAggregate vanlig = DailyAggregate.of(vanligDag, dag(vanligDag, 1.0));
+        DailyAggregate lång = DailyAggregate.of(vintertid, dag(vintertid, 1.0));
+
+        assertThat(vanlig.count()).isEqualTo(96);
+        assertThat(vanlig.min()).isEqualTo(0.95);
+        assertThat(vanlig.minTime().toLocalTime()).hasToString("00:45");
+        assertThat(vanlig.maxTime().toLocalTime()).hasToString("01:45");
+        assertThat(vanlig.hourlyAverages()).hasSize(24);
+        assertThat(vanlig.hourlyAverages()[0]).isEqualTo((1.0 + 1.0 + 1.0 + 0.95) / 4);
+        assertThat(lång.count()).isEqualTo(100);
+        assertThat(lång.hourlyAverages()).hasSize(25);
+    }
+
+    @Test
+    void persistsAlongsideCache_andQueriesRanges(@TempDir Path dir) throws IOException {
+        AggregateIndex index = new AggregateIndex(dir);
+        LocalDate första = LocalDate.of(2025, 9, 1);
+        for (int i = 0; i < 5; i++) {
+            LocalDate datum = första.plusDays(i);
+            index.record(ElpriserAPI.Prisklass.SE3, DailyAggregate.of(datum, dag(datum, 1.0 + i)), true);
+        }
+        // Samma dag igen skrivs inte en gång till
+        long storlek = Files.size(dir.resolve("aggregat_SE3.idx"));
+        index.record(ElpriserAPI.Prisklass.SE3, DailyAggregate.of(första, dag(första, 1.0)), true);
+        assertThat(Files.size(dir.resolve("aggregat_SE3.idx"))).isEqualTo(storlek);
+        // En avbruten skrivning i slutet av filen
+        Files.write(dir.resolve("aggregat_SE3.idx"), new byte[]{0, 0, 1}, StandardOpenOption.APPEND);
+
+        AggregateIndex omläst = new AggregateIndex(dir);
+
+        var dagar = omläst.range(ElpriserAPI.Prisklass.SE3, första.plusDays(1), första.plusDays(3));
+        assertThat(dagar.keySet()).containsExactly(första.plusDays(1), första.plusDays(2), första.plusDays(3));
+        assertThat(dagar.get(första.plusDays(2))).isEqualTo(index.get(ElpriserAPI.Prisklass.SE3, första.plusDays(2)));
+        assertThat(omläst.range(ElpriserAPI.Prisklass.SE1, första, första.plusDays(4))).isEmpty();
+    }
+
+    @Test
+    void apiIndexesFetchedDays_andCombinesRanges() {
+        LocalDate dag1 = LocalDate.of(2025, 9, 4);
+        LocalDate dag2 = dag1.plusDays(1);
+        ElpriserAPI.setMockResponseForDate(dag1, """
+                [{"SEK_per_kWh":0.30,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"}]""");
+        ElpriserAPI.setMockResponseForDate(dag2, """
+                [{"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-05T00:00:00+02:00","time_end":"2025-09-05T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.50,"EUR_per_kWh":0.05,"EXR":10.0,"time_start":"2025-09-05T01:00:00+02:00","time_end":"2025-09-05T02:00:00+02:00"}]""");
+        try {
+            ElpriserAPI api = new ElpriserAPI(true, Path.of("target", "aggregate-test-cache"));
+            api.getPriceSeries(dag1, ElpriserAPI.Prisklass.SE4);
+            api.getPriceSeries(dag2, ElpriserAPI.Prisklass.SE4);
+
+            DailyAggregate.Range range = api.getRangeAggregate(dag1, dag2, ElpriserAPI.Prisklass.SE4).orElseThrow();
+
+            assertThat(range.dagar()).isEqualTo(2);
+            assertThat(range.count()).isEqualTo(4);
+            assertThat(range.mean()).isEqualTo((0.30 + 0.10 + 0.10 + 0.50) / 4);
+            assertThat(range.minTime()).hasToString("2025-09-04T01:00+02:00[Europe/Stockholm]");
+            assertThat(range.maxTime()).hasToString("2025-09-05T01:00+02:00[Europe/Stockholm]");
+            assertThat(api.getRangeAggregate(dag2.plusDays(1), dag2.plusDays(9), ElpriserAPI.Prisklass.SE4)).isEmpty();
+        } finally {
+            ElpriserAPI.clearMockResponse();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackfillTest {
+
+    private static final String MOCK_DAY = """
+            [{"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-01T00:00:00+02:00","time_end":"2025-09-01T01:00:00+02:00"},
+             {"SEK_per_kWh":0.20,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-01T01:00:00+02:00","time_end":"2025-09-01T02:00:00+02:00"}]""";
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    @Test
+    void backfill_fetchesEveryDayAndZone_thenSkipsCachedDays() {
+        LocalDate from = LocalDate.of(2025, 9, 1);
+        LocalDate to = LocalDate.of(2025, 9, 10);
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            ElpriserAPI.setMockResponseForDate(d, MOCK_DAY);
+        }
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 5), null);
+        ElpriserAPI api = new ElpriserAPI(true);
+        List<ElpriserAPI.BackfillProgress> progress = new CopyOnWriteArrayList<>();
+
+        var rapport = api.backfill(from, to, EnumSet.of(ElpriserAPI.Prisklass.SE1, ElpriserAPI.Prisklass.SE3), 3, progress::add);
+
+        assertThat(rapport.hämtade()).isEqualTo(18);
+        assertThat(rapport.utanData()).isEqualTo(2);
+        assertThat(rapport.misslyckade()).isZero();
+        assertThat(rapport.rader()).isEqualTo(36);
+        assertThat(progress).hasSize(20).allMatch(p -> p.totalt() == 20);
+
+        var igen = api.backfill(from, to, EnumSet.of(ElpriserAPI.Prisklass.SE1, ElpriserAPI.Prisklass.SE3), 3, null);
+
+        assertThat(igen.hoppadeÖver()).isEqualTo(18);
+        assertThat(igen.utanData()).isEqualTo(2);
+        assertThat(igen.hämtade()).isZero();
+    }
+
+    @Test
+    void backfill_reliesOnTheTransportRetriesOnly() {
+        AtomicInteger anrop = new AtomicInteger();
+        ElpriserAPI api = ElpriserAPI.builder().caching(false).retries(2, Duration.ofMillis(1))
+                .circuitBreaker(100, Duration.ofMinutes(1))
+                .transport(request -> {
+                    anrop.incrementAndGet();
+                    return CompletableFuture.failedFuture(new IOException("Nätverket är nere"));
+                })
+                .build();
+        LocalDate dag = LocalDate.of(2025, 9, 1);
+
+        var rapport = api.backfill(dag, dag.plusDays(1), EnumSet.of(ElpriserAPI.Prisklass.SE2), 1, null);
+
+        // Ett försök och två omförsök per dag, inget extra varv i backfill
+        assertThat(rapport.misslyckade()).isEqualTo(2);
+        assertThat(anrop.get()).isEqualTo(6);
+    }
+}
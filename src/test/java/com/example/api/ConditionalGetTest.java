@@ -0,0 +1,121 @@
+package com.example.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalGetTest {
+
+    private static final LocalDate IDAG = LocalDate.of(2025, 9, 4);
+    private static final String LAST_MODIFIED = "Wed, 03 Sep 2025 11:00:00 GMT";
+
+    private volatile String etag = "\"v1\"";
+    private volatile double pris = 0.10;
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final List<String> ifModifiedSince = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::svara);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void svara(HttpExchange exchange) throws IOException {
+        String villkor = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatch.add(String.valueOf(villkor));
+        ifModifiedSince.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-Modified-Since")));
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+        if (etag.equals(villkor)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        String datum = exchange.getRequestURI().getPath().replaceAll(".*/(\\d{4})/(\\d{2})-(\\d{2})_.*", "$1-$2-$3");
+        byte[] body = ("[{\"SEK_per_kWh\":" + pris + ",\"EUR_per_kWh\":0.01,\"EXR\":10.0,\"time_start\":\"" + datum
+                + "T00:00:00+02:00\",\"time_end\":\"" + datum + "T01:00:00+02:00\"}]").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Test
+    void revalidatesTodayAndReusesParsedPricesUntilTheBodyChanges(@TempDir Path dir) {
+        MutableClock clock = new MutableClock(Instant.parse("2025-09-04T08:00:00Z"), ZoneId.of("Europe/Stockholm"));
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        ElpriserAPI api = ElpriserAPI.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .diskCacheDir(dir).clock(clock).metrics(metrics).aktuellTtl(Duration.ofMinutes(30))
+                .build();
+
+        PriceSeries första = api.getPriceSeries(IDAG, ElpriserAPI.Prisklass.SE3);
+
+        // 304: inga nya rader tolkas
+        clock.advance(Duration.ofHours(1));
+        assertThat(api.getPriceSeries(IDAG, ElpriserAPI.Prisklass.SE3)).isSameAs(första);
+        assertThat(ifNoneMatch).containsExactly("null", "\"v1\"");
+        assertThat(ifModifiedSince.getLast()).isEqualTo(LAST_MODIFIED);
+
+        // Ny ETag men samma innehåll: hela svaret kommer men tolkas inte om
+        etag = "\"v2\"";
+        clock.advance(Duration.ofHours(1));
+        assertThat(api.getPriceSeries(IDAG, ElpriserAPI.Prisklass.SE3)).isSameAs(första);
+        assertThat(metrics.snapshot().parseLatency().count()).isEqualTo(1);
+
+        // Ändrat innehåll tolkas och ersätter det gamla
+        etag = "\"v3\"";
+        pris = 0.25;
+        clock.advance(Duration.ofHours(1));
+        assertThat(api.getPriceSeries(IDAG, ElpriserAPI.Prisklass.SE3).sekPerKWh(0)).isEqualTo(0.25);
+        assertThat(ifNoneMatch.getLast()).isEqualTo("\"v2\"");
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.revalidations()).containsEntry(ElpriserMetrics.Revalidation.NOT_MODIFIED, 1L)
+                .containsEntry(ElpriserMetrics.Revalidation.UNCHANGED, 1L)
+                .containsEntry(ElpriserMetrics.Revalidation.CHANGED, 1L);
+        assertThat(snapshot.parseLatency().count()).isEqualTo(2);
+        assertThat(snapshot.httpStatus()).containsEntry(200, 3L).containsEntry(304, 1L);
+        assertThat(MetricsExporter.toJson(snapshot)).contains("\"revalidations\":{\"not_modified\":1,\"unchanged\":1,\"changed\":1}");
+    }
+
+    @Test
+    void pastDaysAreServedFromDiskWithoutRevalidation(@TempDir Path dir) {
+        MutableClock clock = new MutableClock(Instant.parse("2025-09-04T08:00:00Z"), ZoneId.of("Europe/Stockholm"));
+        ElpriserAPI api = ElpriserAPI.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .diskCacheDir(dir).clock(clock).historiskTtl(Duration.ofMinutes(30))
+                .build();
+
+        api.getPriceSeries(IDAG.minusDays(1), ElpriserAPI.Prisklass.SE3);
+        clock.advance(Duration.ofHours(1));
+        PriceSeries igen = api.getPriceSeries(IDAG.minusDays(1), ElpriserAPI.Prisklass.SE3);
+
+        assertThat(igen.size()).isEqualTo(1);
+        assertThat(ifNoneMatch).hasSize(1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void write_thenRead_returnsSameContent() throws Exception {
+        DiskCache cache = new DiskCache(dir, DiskCache.DEFAULT_MAX_BYTES);
+
+        cache.write("2025-09-04_SE3", "[{\"SEK_per_kWh\":0.12229}]".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(cache.read("2025-09-04_SE3")).asString(StandardCharsets.UTF_8).isEqualTo("[{\"SEK_per_kWh\":0.12229}]");
+        assertThat(cache.read("2025-09-05_SE3")).isNull();
+        try (var files = Files.list(dir)) {
+            assertThat(files).noneMatch(p -> p.toString().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void read_discardsCorruptFile() throws Exception {
+        DiskCache cache = new DiskCache(dir, DiskCache.DEFAULT_MAX_BYTES);
+        cache.write("2025-09-04_SE3", "[{\"SEK_per_kWh\":0.12229}]".getBytes(StandardCharsets.UTF_8));
+
+        Path file = dir.resolve("2025-09-04_SE3.json");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 3] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertThat(cache.read("2025-09-04_SE3")).isNull();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void write_removesOldestFilesWhenOverLimit() throws Exception {
+        byte[] payload = "x".repeat(100).getBytes(StandardCharsets.UTF_8);
+        long fileSize = DiskCache.encode(payload).length;
+        DiskCache cache = new DiskCache(dir, fileSize * 2);
+
+        cache.write("2025-09-01_SE3", payload);
+        Files.setLastModifiedTime(dir.resolve("2025-09-01_SE3.json"), FileTime.fromMillis(1_000));
+        cache.write("2025-09-02_SE3", payload);
+        Files.setLastModifiedTime(dir.resolve("2025-09-02_SE3.json"), FileTime.fromMillis(2_000));
+        cache.write("2025-09-03_SE3", payload);
+
+        assertThat(cache.contains("2025-09-01_SE3")).isFalse();
+        assertThat(cache.contains("2025-09-02_SE3")).isTrue();
+        assertThat(cache.contains("2025-09-03_SE3")).isTrue();
+    }
+
+    @Test
+    void write_keepsTheLimitOverManyWrites_includingFilesFromAnEarlierRun() throws Exception {
+        byte[] payload = "x".repeat(100).getBytes(StandardCharsets.UTF_8);
+        long fileSize = DiskCache.encode(payload).length;
+        long maxBytes = fileSize * 10;
+        DiskCache tidigare = new DiskCache(dir, maxBytes);
+        for (int i = 0; i < 5; i++) {
+            tidigare.write("2024-01-0" + (i + 1) + "_SE1", payload);
+        }
+
+        DiskCache cache = new DiskCache(dir, maxBytes);
+        DiskCache binär = cache.withSuffix(DiskCache.BINARY_SUFFIX);
+        for (int i = 0; i < 30; i++) {
+            (i % 2 == 0 ? cache : binär).write("dag-" + (i % 20) + "_SE3", payload);
+            assertThat(katalogensStorlek()).isLessThanOrEqualTo(maxBytes);
+        }
+
+        assertThat(katalogensStorlek()).isEqualTo(maxBytes);
+    }
+
+    @Test
+    void delete_freesRoomSoTheNextWriteKeepsOlderFiles() throws Exception {
+        byte[] payload = "x".repeat(100).getBytes(StandardCharsets.UTF_8);
+        long fileSize = DiskCache.encode(payload).length;
+        DiskCache cache = new DiskCache(dir, fileSize * 2);
+
+        cache.write("2025-09-01_SE3", payload);
+        cache.write("2025-09-02_SE3", payload);
+        cache.delete("2025-09-02_SE3");
+        cache.write("2025-09-03_SE3", payload);
+
+        assertThat(cache.contains("2025-09-01_SE3")).isTrue();
+        assertThat(cache.contains("2025-09-03_SE3")).isTrue();
+    }
+
+    private long katalogensStorlek() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+}
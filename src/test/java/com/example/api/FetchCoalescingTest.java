@@ -0,0 +1,101 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FetchCoalescingTest {
+
+    private static final LocalDate DAG = LocalDate.of(2025, 9, 4);
+    private static final int ANROPARE = 16;
+    private static final String JSON = """
+            [{"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"}]""";
+
+    // Varje anrop mot transporten får ett svar som testet avslutar själv
+    private final List<CompletableFuture<HttpTransport.Response>> anrop = new CopyOnWriteArrayList<>();
+
+    private final ElpriserAPI api = ElpriserAPI.builder().caching(false).retries(0, Duration.ZERO)
+            .transport(request -> {
+                CompletableFuture<HttpTransport.Response> svar = new CompletableFuture<>();
+                anrop.add(svar);
+                return svar;
+            })
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    // Startar alla anropare samtidigt och väntar tills var och en har fått sin future
+    private <T> List<CompletableFuture<T>> samtidigt(Function<ElpriserAPI, CompletableFuture<T>> hämtning)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(ANROPARE)) {
+            List<Future<CompletableFuture<T>>> väntande = new ArrayList<>();
+            for (int i = 0; i < ANROPARE; i++) {
+                väntande.add(executor.submit(() -> {
+                    start.await();
+                    return hämtning.apply(api);
+                }));
+            }
+            start.countDown();
+            List<CompletableFuture<T>> futures = new ArrayList<>();
+            for (Future<CompletableFuture<T>> f : väntande) {
+                futures.add(f.get());
+            }
+            return futures;
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneUpstreamRequest() throws Exception {
+        List<CompletableFuture<List<ElpriserAPI.Elpris>>> futures =
+                samtidigt(a -> a.getPriserAsync(DAG, ElpriserAPI.Prisklass.SE3));
+
+        assertThat(anrop).hasSize(1);
+        assertThat(futures).noneMatch(CompletableFuture::isDone);
+        anrop.getFirst().complete(new HttpTransport.Response(200, Map.of(), JSON.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(futures).allSatisfy(f -> assertThat(f.join()).hasSize(1)
+                .first().satisfies(pris -> assertThat(pris.sekPerKWh()).isEqualTo(0.10)));
+        assertThat(api.getFetchStats()).isEqualTo(new ElpriserAPI.FetchStats(1, ANROPARE - 1));
+    }
+
+    @Test
+    void aFailureReachesEveryWaiterAndTheNextCallFetchesAgain() throws Exception {
+        List<CompletableFuture<PriceSeries>> futures = samtidigt(a -> a.hämtaAsync(DAG, ElpriserAPI.Prisklass.SE3));
+
+        assertThat(anrop).hasSize(1);
+        anrop.getFirst().completeExceptionally(new IOException("Anslutningen bröts"));
+
+        assertThat(futures).allSatisfy(f -> assertThatThrownBy(f::join)
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseInstanceOf(IOException.class));
+
+        // Den misslyckade hämtningen är borttagen, så nästa anrop går till servern igen
+        CompletableFuture<PriceSeries> igen = api.hämtaAsync(DAG, ElpriserAPI.Prisklass.SE3);
+        assertThat(anrop).hasSize(2);
+        anrop.get(1).complete(new HttpTransport.Response(200, Map.of(), JSON.getBytes(StandardCharsets.UTF_8)));
+        assertThat(igen.join().size()).isEqualTo(1);
+        assertThat(api.getFetchStats()).isEqualTo(new ElpriserAPI.FetchStats(2, ANROPARE - 1));
+    }
+}
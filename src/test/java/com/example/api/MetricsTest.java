@@ -0,0 +1,68 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsTest {
+
+    private static final String MOCK_DAY = """
+            [{"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-01T00:00:00+02:00","time_end":"2025-09-01T01:00:00+02:00"},
+             {"SEK_per_kWh":0.20,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-01T01:00:00+02:00","time_end":"2025-09-01T02:00:00+02:00"}]""";
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    @Test
+    void recordsMemoryHitsAndParsedRows_andCachedLookupsWriteNothing() {
+        LocalDate dag = LocalDate.of(2025, 9, 1);
+        ElpriserAPI.setMockResponseForDate(dag, MOCK_DAY);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        ElpriserAPI api = ElpriserAPI.builder().metrics(metrics).build();
+        api.getPriceSeries(dag, ElpriserAPI.Prisklass.SE3);
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream utskrift = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(utskrift));
+        try {
+            api.getPriceSeries(dag, ElpriserAPI.Prisklass.SE3);
+        } finally {
+            System.setOut(original);
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(utskrift.size()).isZero();
+        assertThat(snapshot.cache().get(ElpriserMetrics.CacheTier.MEMORY))
+                .isEqualTo(new MetricsSnapshot.TierCounts(1, 1));
+        assertThat(snapshot.rowsParsed()).isEqualTo(2);
+        assertThat(snapshot.parseLatency().count()).isEqualTo(1);
+        assertThat(snapshot.fetchLatency().count()).isZero();
+    }
+
+    @Test
+    void exportsHistogramAndStatusCountsAsTextAndJson() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordFetch(i * 1_000_000L, i == 100 ? 503 : 200);
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.httpStatus()).containsEntry(200, 99L).containsEntry(503, 1L);
+        assertThat(snapshot.fetchLatency().percentileMillis(0.5)).isBetween(50.0, 65.536);
+        assertThat(snapshot.fetchLatency().percentileMillis(0.99)).isBetween(99.0, 100.0);
+        assertThat(MetricsExporter.toText(snapshot)).contains("100 st", "200=99", "503=1");
+        assertThat(MetricsExporter.toJson(snapshot))
+                .startsWith("{\"fetchLatency\":{\"count\":100,")
+                .contains("\"httpStatus\":{\"200\":99,\"503\":1}")
+                .contains("\"memory\":{\"hits\":0,\"misses\":0}")
+                .endsWith("\"rowsParsed\":0}");
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiDayFetchTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final LocalDate DAG = LocalDate.of(2025, 9, 4);
+
+    // 24 timmar där priset i öre är dagens nummer * 100 + timmen
+    private static String mockDag(LocalDate datum) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int h = 0; h < 24; h++) {
+            ZonedDateTime start = datum.atStartOfDay(STOCKHOLM).plusHours(h);
+            if (h > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"SEK_per_kWh\":").append((datum.getDayOfMonth() * 100 + h) / 100.0)
+                    .append(",\"EUR_per_kWh\":0.01,\"EXR\":11.0,\"time_start\":\"").append(start.toOffsetDateTime())
+                    .append("\",\"time_end\":\"").append(start.plusHours(1).toOffsetDateTime()).append("\"}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private static final Pattern DATUM_I_URL = Pattern.compile(".*/(\\d{4})/(\\d{2})-(\\d{2})_.*");
+
+    // Svarar med mockDag för varje dag utom de två angivna, som ger 404 respektive nätverksfel
+    private static ElpriserAPI stubbadAPI(LocalDate utanData, LocalDate trasig) {
+        return ElpriserAPI.builder().caching(false).retries(0, Duration.ZERO)
+                .circuitBreaker(100, Duration.ofMinutes(1))
+                .transport(request -> {
+                    Matcher m = DATUM_I_URL.matcher(request.uri().getPath());
+                    assertThat(m.matches()).isTrue();
+                    LocalDate datum = LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                            Integer.parseInt(m.group(3)));
+                    if (datum.equals(trasig)) {
+                        return CompletableFuture.failedFuture(new IOException("Anslutningen bröts"));
+                    }
+                    if (datum.equals(utanData)) {
+                        return CompletableFuture.completedFuture(new HttpTransport.Response(404, Map.of(), new byte[0]));
+                    }
+                    return CompletableFuture.completedFuture(new HttpTransport.Response(200, Map.of(),
+                            mockDag(datum).getBytes(StandardCharsets.UTF_8)));
+                })
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    @Test
+    void mergesEveryDayPerZoneInTimeOrder_skippingDaysWithoutData() {
+        ElpriserAPI.setMockResponseForDate(DAG, mockDag(DAG));
+        ElpriserAPI.setMockResponseForDate(DAG.plusDays(1), null);
+        ElpriserAPI.setMockResponseForDate(DAG.plusDays(2), mockDag(DAG.plusDays(2)));
+        ElpriserAPI api = ElpriserAPI.builder().caching(false).build();
+
+        Map<ElpriserAPI.Prisklass, PriceSeries> perZon = api.getPriser(DAG, DAG.plusDays(2),
+                EnumSet.of(ElpriserAPI.Prisklass.SE1, ElpriserAPI.Prisklass.SE4));
+
+        assertThat(perZon).containsOnlyKeys(ElpriserAPI.Prisklass.SE1, ElpriserAPI.Prisklass.SE4);
+        PriceSeries serie = perZon.get(ElpriserAPI.Prisklass.SE4);
+        assertThat(serie.size()).isEqualTo(48);
+        assertThat(serie.timeStart(0)).isEqualTo(DAG.atStartOfDay(STOCKHOLM));
+        assertThat(serie.timeStart(24)).isEqualTo(DAG.plusDays(2).atStartOfDay(STOCKHOLM));
+        for (int i = 1; i < serie.size(); i++) {
+            assertThat(serie.startEpochSecond(i)).isGreaterThan(serie.startEpochSecond(i - 1));
+        }
+        assertThatThrownBy(() -> api.getPriser(DAG, DAG.minusDays(1), EnumSet.of(ElpriserAPI.Prisklass.SE1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void upcomingPricesStartWithThePeriodInProgressAndSpanMidnight() {
+        ElpriserAPI.setMockResponseForDate(DAG, mockDag(DAG));
+        ElpriserAPI.setMockResponseForDate(DAG.plusDays(1), mockDag(DAG.plusDays(1)));
+        Instant nu = DAG.atTime(22, 30).atZone(STOCKHOLM).toInstant();
+        ElpriserAPI api = ElpriserAPI.builder().caching(false).clock(new MutableClock(nu, STOCKHOLM)).build();
+
+        PriceSeries kommande = api.getUpcomingPrices(Duration.ofHours(3), ElpriserAPI.Prisklass.SE3);
+
+        assertThat(kommande.size()).isEqualTo(4);
+        assertThat(kommande.timeStart(0)).isEqualTo(DAG.atTime(22, 0).atZone(STOCKHOLM));
+        assertThat(kommande.timeEnd(3)).isEqualTo(DAG.plusDays(1).atTime(2, 0).atZone(STOCKHOLM));
+        assertThat(kommande.sekPerKWh(2)).isEqualTo(5.0);
+    }
+
+    @Test
+    void combinatorKeysEveryZoneAndDayInDateOrder() {
+        ElpriserAPI api = stubbadAPI(DAG.plusDays(1), null);
+
+        Map<ElpriserAPI.Prisklass, SortedMap<LocalDate, List<ElpriserAPI.Elpris>>> perZon = api.getPriserAsync(
+                List.of(DAG.plusDays(2), DAG, DAG.plusDays(1)),
+                EnumSet.of(ElpriserAPI.Prisklass.SE2, ElpriserAPI.Prisklass.SE3)).join();
+
+        assertThat(perZon).containsOnlyKeys(ElpriserAPI.Prisklass.SE2, ElpriserAPI.Prisklass.SE3);
+        perZon.values().forEach(perDag -> {
+            assertThat(perDag.keySet()).containsExactly(DAG, DAG.plusDays(1), DAG.plusDays(2));
+            assertThat(perDag.get(DAG)).hasSize(24).first()
+                    .satisfies(pris -> assertThat(pris.sekPerKWh()).isEqualTo(4.0));
+            assertThat(perDag.get(DAG.plusDays(1))).isEmpty();
+            assertThat(perDag.get(DAG.plusDays(2))).hasSize(24).first()
+                    .satisfies(pris -> assertThat(pris.timeStart()).isEqualTo(DAG.plusDays(2).atStartOfDay(STOCKHOLM)));
+        });
+    }
+
+    @Test
+    void combinatorFailsWhenOneDayFails() {
+        ElpriserAPI api = stubbadAPI(null, DAG.plusDays(1));
+
+        var future = api.getPriserAsync(List.of(DAG, DAG.plusDays(1), DAG.plusDays(2)),
+                EnumSet.of(ElpriserAPI.Prisklass.SE3));
+
+        assertThatThrownBy(future::join)
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseInstanceOf(IOException.class)
+                .hasRootCauseMessage("Anslutningen bröts");
+    }
+}
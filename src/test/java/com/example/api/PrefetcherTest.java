@@ -0,0 +1,72 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefetcherTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final String MOCK_DAY = """
+            [{"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-05T00:00:00+02:00","time_end":"2025-09-05T01:00:00+02:00"}]""";
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        ElpriserAPI.clearMockResponse();
+    }
+
+    private static Instant kl(String datumTid) {
+        return ZonedDateTime.of(LocalDateTime.parse(datumTid), STOCKHOLM).toInstant();
+    }
+
+    @Test
+    void waitsForStartTime_backsOffWhileUnpublished_thenWarmsAllZones() {
+        LocalDate imorgon = LocalDate.of(2025, 9, 5);
+        // Mock-läget är aktivt men imorgon saknar data, som en 404
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), MOCK_DAY);
+        MutableClock clock = new MutableClock(kl("2025-09-04T10:00:00"), STOCKHOLM);
+        ElpriserAPI api = ElpriserAPI.builder().clock(clock).diskCacheDir(Path.of("target", "prefetch-test-cache")).build();
+        Prefetcher prefetcher = new Prefetcher(api, clock, LocalTime.of(13, 0),
+                Duration.ofMinutes(5), Duration.ofMinutes(15), scheduler);
+
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofHours(3));
+        assertThat(api.getFetchStats().issued()).isZero();
+
+        clock.set(kl("2025-09-04T13:00:00"));
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofMinutes(10));
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofMinutes(15));
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofMinutes(15));
+        assertThat(prefetcher.isComplete()).isFalse();
+
+        ElpriserAPI.setMockResponseForDate(imorgon, MOCK_DAY);
+        clock.set(kl("2025-09-04T14:00:00"));
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofHours(23));
+        assertThat(prefetcher.isComplete()).isTrue();
+        assertThat(prefetcher.måldag()).isEqualTo(imorgon);
+        for (ElpriserAPI.Prisklass prisklass : ElpriserAPI.Prisklass.values()) {
+            assertThat(api.isCached(imorgon, prisklass)).isTrue();
+        }
+
+        // Nästa morgon börjar den om för en ny dag
+        clock.set(kl("2025-09-05T09:00:00"));
+        assertThat(prefetcher.runOnce()).isEqualTo(Duration.ofHours(4));
+        assertThat(prefetcher.måldag()).isEqualTo(imorgon.plusDays(1));
+        assertThat(prefetcher.isComplete()).isFalse();
+    }
+}
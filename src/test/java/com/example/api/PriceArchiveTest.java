@@ -0,0 +1,99 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceArchiveTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    private static final ElpriserAPI.Prisklass SE3 = ElpriserAPI.Prisklass.SE3;
+
+    // En hel dag i lokal tid, så att sommartidsdagar får 23 eller 25 timmar
+    private static PriceSeries dag(LocalDate datum, int minuter) {
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        ZonedDateTime slut = datum.plusDays(1).atStartOfDay(STOCKHOLM);
+        int i = 0;
+        for (ZonedDateTime t = datum.atStartOfDay(STOCKHOLM); t.isBefore(slut); t = t.plusMinutes(minuter), i++) {
+            priser.add(new ElpriserAPI.Elpris(datum.getDayOfMonth() + i * 0.001, i * 0.0001, 11.0, t, t.plusMinutes(minuter)));
+        }
+        return PriceSeries.of(priser);
+    }
+
+    @Test
+    void storesDaysOfEveryLengthAndReadsThemBack(@TempDir Path dir) {
+        PriceArchive arkiv = new PriceArchive(dir);
+        List<PriceSeries> dagar = List.of(
+                dag(LocalDate.of(2025, 3, 30), 60),
+                dag(LocalDate.of(2025, 3, 31), 60),
+                dag(LocalDate.of(2025, 10, 26), 60),
+                dag(LocalDate.of(2026, 3, 29), 15),
+                dag(LocalDate.of(2026, 3, 30), 15),
+                dag(LocalDate.of(2026, 10, 25), 15));
+
+        for (PriceSeries dag : dagar) {
+            LocalDate datum = dag.timeStart(0).toLocalDate();
+            assertThat(arkiv.record(SE3, datum, dag)).isTrue();
+        }
+
+        assertThat(dagar).extracting(PriceSeries::size).containsExactly(23, 24, 25, 92, 96, 100);
+        for (PriceSeries dag : dagar) {
+            assertThat(arkiv.get(SE3, dag.timeStart(0).toLocalDate()).asList()).isEqualTo(dag.asList());
+        }
+        assertThat(arkiv.get(SE3, LocalDate.of(2025, 4, 1))).isNull();
+        assertThat(arkiv.get(ElpriserAPI.Prisklass.SE1, LocalDate.of(2025, 3, 31))).isNull();
+    }
+
+    @Test
+    void rangeReturnsArchivedDaysInOrderAcrossReopen(@TempDir Path dir) {
+        LocalDate från = LocalDate.of(2025, 10, 24);
+        PriceArchive arkiv = new PriceArchive(dir);
+        List<PriceSeries> dagar = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            if (i == 2) {
+                continue;
+            }
+            PriceSeries dag = dag(från.plusDays(i), 60);
+            arkiv.record(SE3, från.plusDays(i), dag);
+            dagar.add(dag);
+        }
+
+        PriceSeries intervall = new PriceArchive(dir).range(SE3, från.minusDays(3), från.plusDays(10));
+
+        assertThat(intervall.asList()).isEqualTo(PriceSeries.concat(dagar).asList());
+        assertThat(intervall.zone()).isEqualTo(STOCKHOLM);
+        assertThat(arkiv.range(SE3, från.plusDays(2), från.plusDays(2)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void keepsTheFirstCopyAndTreatsCorruptRecordsAsMissing(@TempDir Path dir) throws Exception {
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        PriceArchive arkiv = new PriceArchive(dir);
+        PriceSeries dag = dag(datum, 60);
+        arkiv.record(SE3, datum, dag);
+
+        assertThat(arkiv.record(SE3, datum, dag(datum.plusDays(1), 60).slice(0, 24))).isFalse();
+        assertThat(arkiv.get(SE3, datum).asList()).isEqualTo(dag.asList());
+
+        long position = 16 + (datum.toEpochDay() - PriceArchive.FÖRSTA_DAGEN.toEpochDay()) * PriceArchive.POST + 40;
+        try (FileChannel kanal = FileChannel.open(dir.resolve("arkiv_SE3.dat"), StandardOpenOption.WRITE)) {
+            kanal.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), position);
+        }
+        PriceArchive öppnad = new PriceArchive(dir);
+
+        assertThat(öppnad.get(SE3, datum)).isNull();
+        assertThat(öppnad.record(SE3, datum, dag)).isTrue();
+        assertThat(öppnad.get(SE3, datum).asList()).isEqualTo(dag.asList());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceBinaryFormatTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    // En dag i API:ts JSON-format, med perioder i lokal tid så att sommartidsdagar får 23 eller 25 timmar
+    private static String json(LocalDate datum, int minuter, int decimaler, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder("[");
+        ZonedDateTime start = datum.atStartOfDay(STOCKHOLM);
+        ZonedDateTime slut = datum.plusDays(1).atStartOfDay(STOCKHOLM);
+        String format = "%." + decimaler + "f";
+        for (ZonedDateTime t = start; t.isBefore(slut); t = t.plusMinutes(minuter)) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            double sek = random.nextDouble(-0.2, 3.0);
+            sb.append("{\"SEK_per_kWh\":").append(String.format(Locale.ROOT, format, sek))
+                    .append(",\"EUR_per_kWh\":").append(String.format(Locale.ROOT, format, sek / 11.2))
+                    .append(",\"EXR\":11.2")
+                    .append(",\"time_start\":\"").append(t.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                    .append("\",\"time_end\":\"").append(t.plusMinutes(minuter).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                    .append("\"}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private static void assertRoundTrip(String json, LocalDate datum) {
+        PriceSeries parsad = PriceSeries.of(PriceJsonParser.parse(json));
+
+        byte[] binär = PriceBinaryFormat.fromJson(json.getBytes(StandardCharsets.UTF_8), ElpriserAPI.Prisklass.SE3, datum);
+        PriceSeries avkodad = PriceBinaryFormat.decode(ByteBuffer.wrap(binär));
+
+        assertThat(avkodad.asList()).isEqualTo(parsad.asList());
+        for (int i = 0; i < parsad.size(); i++) {
+            assertThat(avkodad.timeStart(i).toInstant()).isEqualTo(PriceJsonParser.parse(json).get(i).timeStart().toInstant());
+        }
+        assertThat(avkodad.zone()).isEqualTo(parsad.zone());
+        assertThat(avkodad.intervalSeconds()).isEqualTo(parsad.intervalSeconds());
+        assertThat(PriceBinaryFormat.header(ByteBuffer.wrap(binär)))
+                .isEqualTo(new PriceBinaryFormat.Header(ElpriserAPI.Prisklass.SE3, datum, parsad.intervalSeconds(), parsad.size()));
+    }
+
+    @Test
+    void roundTripsHourlyAndQuarterHourDays() {
+        assertRoundTrip(json(LocalDate.of(2025, 9, 4), 60, 5, 1), LocalDate.of(2025, 9, 4));
+        assertRoundTrip(json(LocalDate.of(2025, 10, 1), 15, 5, 2), LocalDate.of(2025, 10, 1));
+    }
+
+    @Test
+    void roundTripsDaylightSavingDays() {
+        LocalDate vår = LocalDate.of(2025, 3, 30);
+        LocalDate höst = LocalDate.of(2025, 10, 26);
+
+        assertRoundTrip(json(vår, 60, 5, 3), vår);
+        assertRoundTrip(json(höst, 60, 5, 4), höst);
+        assertRoundTrip(json(vår, 15, 5, 5), vår);
+        assertRoundTrip(json(höst, 15, 5, 6), höst);
+        assertThat(PriceJsonParser.parse(json(vår, 15, 5, 5))).hasSize(92);
+        assertThat(PriceJsonParser.parse(json(höst, 15, 5, 6))).hasSize(100);
+    }
+
+    @Test
+    void fallsBackToRawDoublesWhenFixedPointIsNotExact() {
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        long start = datum.atStartOfDay(STOCKHOLM).toEpochSecond();
+        PriceSeries priser = PriceSeries.of(new double[]{0.1 + 0.2, -0.0, Math.PI},
+                new double[]{0.01, 0.02, 0.03}, new double[]{11, 11, 11},
+                new long[]{start, start + 3600, start + 7200}, 3600, STOCKHOLM);
+
+        PriceSeries avkodad = PriceBinaryFormat.decode(ByteBuffer.wrap(PriceBinaryFormat.encode(ElpriserAPI.Prisklass.SE1, datum, priser)));
+
+        assertThat(PriceBinaryFormat.decimaler(priser.sekPerKWhArray())).isEqualTo(-1);
+        assertThat(avkodad.asList()).isEqualTo(priser.asList());
+        assertThat(Double.doubleToRawLongBits(avkodad.sekPerKWh(1))).isEqualTo(Double.doubleToRawLongBits(-0.0));
+    }
+
+    @Test
+    void isMuchSmallerThanJsonAndReadsThroughMemoryMap(@TempDir Path dir) throws Exception {
+        LocalDate datum = LocalDate.of(2025, 10, 1);
+        String json = json(datum, 15, 5, 7);
+        byte[] binär = PriceBinaryFormat.fromJson(json.getBytes(StandardCharsets.UTF_8), ElpriserAPI.Prisklass.SE4, datum);
+        Path fil = Files.write(dir.resolve("2025-10-01_SE4.bin"), binär);
+
+        assertThat(binär.length * 10).isLessThan(json.length());
+        assertThat(PriceBinaryFormat.read(fil).asList()).isEqualTo(PriceJsonParser.parse(json));
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        byte[] binär = PriceBinaryFormat.fromJson(json(datum, 60, 5, 8).getBytes(StandardCharsets.UTF_8), ElpriserAPI.Prisklass.SE3, datum);
+        binär[PriceBinaryFormat.HEADER_BYTES + 3] ^= 1;
+
+        assertThatThrownBy(() -> PriceBinaryFormat.decode(ByteBuffer.wrap(binär)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PriceBinaryFormat.decode(ByteBuffer.wrap(new byte[10])))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceCacheTest {
+
+    private static final PriceSeries PRISER = PriceSeries.of(List.of(new ElpriserAPI.Elpris(0.1, 0.01, 10.0,
+            ZonedDateTime.parse("2025-09-04T00:00:00+02:00"), ZonedDateTime.parse("2025-09-04T01:00:00+02:00"))));
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        PriceCache cache = new PriceCache(2, Clock.systemUTC());
+        cache.put("a", PRISER, Duration.ofHours(1));
+        cache.put("b", PRISER, Duration.ofHours(1));
+        cache.get("a");
+        cache.put("c", PRISER, Duration.ofHours(1));
+
+        assertThat(cache.peek("a")).isNotNull();
+        assertThat(cache.peek("b")).isNull();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl_includingNegativeEntries() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-09-04T10:00:00Z"), ZoneOffset.UTC);
+        PriceCache cache = new PriceCache(10, clock);
+        cache.put("historisk", PRISER, Duration.ofDays(30));
+        cache.put("idag", PRISER, Duration.ofHours(1));
+        cache.putNegative("imorgon", Duration.ofMinutes(5));
+
+        assertThat(cache.get("imorgon").isEmpty()).isTrue();
+        clock.advance(Duration.ofMinutes(5));
+        assertThat(cache.get("imorgon")).isNull();
+        assertThat(cache.get("idag")).isSameAs(PRISER);
+        clock.advance(Duration.ofHours(1));
+        assertThat(cache.get("idag")).isNull();
+        assertThat(cache.get("historisk")).isSameAs(PRISER);
+
+        ElpriserAPI.CacheStats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.negativeHits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(2);
+        assertThat(stats.expirations()).isEqualTo(2);
+        assertThat(stats.size()).isEqualTo(1);
+    }
+}
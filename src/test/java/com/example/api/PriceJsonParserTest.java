@@ -0,0 +1,147 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceJsonParserTest {
+
+    // Samma data som i MainTest.getPriser_shouldReturnParsedPrices_whenMockDataIsProvided
+    private static final String MOCK_24 = """
+            [{"SEK_per_kWh":0.12229,"EUR_per_kWh":0.01112,"EXR":10.997148,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},{"SEK_per_kWh":0.09886,"EUR_per_kWh":0.00899,"EXR":10.997148,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"},{"SEK_per_kWh":0.09095,"EUR_per_kWh":0.00827,"EXR":10.997148,"time_start":"2025-09-04T02:00:00+02:00","time_end":"2025-09-04T03:00:00+02:00"},{"SEK_per_kWh":0.04201,"EUR_per_kWh":0.00382,"EXR":10.997148,"time_start":"2025-09-04T03:00:00+02:00","time_end":"2025-09-04T04:00:00+02:00"},{"SEK_per_kWh":0.04146,"EUR_per_kWh":0.00377,"EXR":10.997148,"time_start":"2025-09-04T04:00:00+02:00","time_end":"2025-09-04T05:00:00+02:00"},{"SEK_per_kWh":0.04465,"EUR_per_kWh":0.00406,"EXR":10.997148,"time_start":"2025-09-04T05:00:00+02:00","time_end":"2025-09-04T06:00:00+02:00"},{"SEK_per_kWh":0.32991,"EUR_per_kWh":0.03,"EXR":10.997148,"time_start":"2025-09-04T06:00:00+02:00","time_end":"2025-09-04T07:00:00+02:00"},{"SEK_per_kWh":0.47123,"EUR_per_kWh":0.04285,"EXR":10.997148,"time_start":"2025-09-04T07:00:00+02:00","time_end":"2025-09-04T08:00:00+02:00"},{"SEK_per_kWh":0.68182,"EUR_per_kWh":0.062,"EXR":10.997148,"time_start":"2025-09-04T08:00:00+02:00","time_end":"2025-09-04T09:00:00+02:00"},{"SEK_per_kWh":0.4125,"EUR_per_kWh":0.03751,"EXR":10.997148,"time_start":"2025-09-04T09:00:00+02:00","time_end":"2025-09-04T10:00:00+02:00"},{"SEK_per_kWh":0.29571,"EUR_per_kWh":0.02689,"EXR":10.997148,"time_start":"2025-09-04T10:00:00+02:00","time_end":"2025-09-04T11:00:00+02:00"},{"SEK_per_kWh":0.06136,"EUR_per_kWh":0.00558,"EXR":10.997148,"time_start":"2025-09-04T11:00:00+02:00","time_end":"2025-09-04T12:00:00+02:00"},{"SEK_per_kWh":0.03662,"EUR_per_kWh":0.00333,"EXR":10.997148,"time_start":"2025-09-04T12:00:00+02:00","time_end":"2025-09-04T13:00:00+02:00"},{"SEK_per_kWh":0.0375,"EUR_per_kWh":0.00341,"EXR":10.997148,"time_start":"2025-09-04T13:00:00+02:00","time_end":"2025-09-04T14:00:00+02:00"},{"SEK_per_kWh":0.26822,"EUR_per_kWh":0.02439,"EXR":10.997148,"time_start":"2025-09-04T14:00:00+02:00","time_end":"2025-09-04T15:00:00+02:00"},{"SEK_per_kWh":0.30429,"EUR_per_kWh":0.02767,"EXR":10.997148,"time_start":"2025-09-04T15:00:00+02:00","time_end":"2025-09-04T16:00:00+02:00"},{"SEK_per_kWh":0.36675,"EUR_per_kWh":0.03335,"EXR":10.997148,"time_start":"2025-09-04T16:00:00+02:00","time_end":"2025-09-04T17:00:00+02:00"},{"SEK_per_kWh":0.58296,"EUR_per_kWh":0.05301,"EXR":10.997148,"time_start":"2025-09-04T17:00:00+02:00","time_end":"2025-09-04T18:00:00+02:00"},{"SEK_per_kWh":0.92145,"EUR_per_kWh":0.08379,"EXR":10.997148,"time_start":"2025-09-04T18:00:00+02:00","time_end":"2025-09-04T19:00:00+02:00"},{"SEK_per_kWh":1.5054,"EUR_per_kWh":0.13689,"EXR":10.997148,"time_start":"2025-09-04T19:00:00+02:00","time_end":"2025-09-04T20:00:00+02:00"},{"SEK_per_kWh":1.00888,"EUR_per_kWh":0.09174,"EXR":10.997148,"time_start":"2025-09-04T20:00:00+02:00","time_end":"2025-09-04T21:00:00+02:00"},{"SEK_per_kWh":0.63179,"EUR_per_kWh":0.05745,"EXR":10.997148,"time_start":"2025-09-04T21:00:00+02:00","time_end":"2025-09-04T22:00:00+02:00"},{"SEK_per_kWh":0.56382,"EUR_per_kWh":0.05127,"EXR":10.997148,"time_start":"2025-09-04T22:00:00+02:00","time_end":"2025-09-04T23:00:00+02:00"},{"SEK_per_kWh":0.52951,"EUR_per_kWh":0.04815,"EXR":10.997148,"time_start":"2025-09-04T23:00:00+02:00","time_end":"2025-09-05T00:00:00+02:00"}]""";
+
+    private static final String MOCK_WITH_NEWLINES = """
+            [{"SEK_per_kWh":0.50,"EUR_per_kWh":0.05,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+             {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"},
+             {"SEK_per_kWh":0.80,"EUR_per_kWh":0.08,"EXR":10.0,"time_start":"2025-09-04T02:00:00+02:00","time_end":"2025-09-04T03:00:00+02:00"},
+             {"SEK_per_kWh":0.30,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":"2025-09-04T03:00:00+02:00","time_end":"2025-09-04T04:00:00+02:00"}]""";
+
+    @Test
+    void parse_matchesReferenceParser_onMainTestMockData() {
+        assertThat(PriceJsonParser.parse(MOCK_24))
+                .hasSize(24)
+                .containsExactlyElementsOf(referenceParse(MOCK_24));
+        assertThat(PriceJsonParser.parse(MOCK_WITH_NEWLINES))
+                .hasSize(4)
+                .containsExactlyElementsOf(referenceParse(MOCK_WITH_NEWLINES));
+    }
+
+    @Test
+    void parse_matchesReferenceParser_on96QuarterHours() {
+        String json = quarterHourDay();
+
+        assertThat(PriceJsonParser.parse(json))
+                .hasSize(96)
+                .containsExactlyElementsOf(referenceParse(json));
+    }
+
+    @Test
+    void parse_readsFromInputStream() throws Exception {
+        var in = new ByteArrayInputStream(MOCK_24.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PriceJsonParser.parse(in)).containsExactlyElementsOf(referenceParse(MOCK_24));
+    }
+
+    @Test
+    void parse_toleratesReorderedFieldsWhitespaceAndUnknownFields() {
+        String json = """
+                 [ {
+                    "time_end" : "2025-09-04T01:00:00+02:00",
+                    "extra" : {"nested": [1, 2, "}"]},
+                    "EXR" : 10.997148 ,
+                    "time_start":"2025-09-04T00:00:00+02:00",
+                    "EUR_per_kWh":	-0.00112,
+                    "SEK_per_kWh" : 1.2e-2
+                 } ]
+                """;
+
+        List<ElpriserAPI.Elpris> priser = PriceJsonParser.parse(json);
+
+        assertThat(priser).containsExactly(new ElpriserAPI.Elpris(0.012, -0.00112, 10.997148,
+                ZonedDateTime.parse("2025-09-04T00:00:00+02:00"),
+                ZonedDateTime.parse("2025-09-04T01:00:00+02:00")));
+    }
+
+    @Test
+    void parse_handlesUtcAndFractionalTimestamps() {
+        String json = """
+                [{"SEK_per_kWh":0.1,"EUR_per_kWh":0.01,"EXR":10,"time_start":"2025-09-04T22:00:00Z","time_end":"2025-09-04T22:15:00.500-01:30"}]""";
+
+        ElpriserAPI.Elpris pris = PriceJsonParser.parse(json).getFirst();
+
+        assertThat(pris.timeStart()).isEqualTo(ZonedDateTime.parse("2025-09-04T22:00:00Z"));
+        assertThat(pris.timeEnd()).isEqualTo(ZonedDateTime.parse("2025-09-04T22:15:00.500-01:30"));
+        assertThat(pris.timeEnd().getOffset()).isEqualTo(ZoneOffset.ofHoursMinutes(-1, -30));
+    }
+
+    @Test
+    void parse_skipsIncompleteObjects_andRejectsNonArrays() {
+        String json = """
+                [{"SEK_per_kWh":0.1,"EUR_per_kWh":0.01,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.2,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"}]""";
+
+        assertThat(PriceJsonParser.parse(json)).extracting(ElpriserAPI.Elpris::sekPerKWh).containsExactly(0.2);
+        assertThat(PriceJsonParser.parse("[]")).isEmpty();
+        assertThat(PriceJsonParser.parse("  ")).isEmpty();
+        assertThat(PriceJsonParser.parse("{\"error\":\"not found\"}")).isEmpty();
+        assertThat(PriceJsonParser.parse("[{\"SEK_per_kWh\":0.1")).isEmpty();
+    }
+
+    @Test
+    void parse_skipsObjectsWithValuesOfTheWrongType() {
+        String json = """
+                [{"SEK_per_kWh":0.1,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":1756936800,"time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":"0.2","EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"},
+                 {"SEK_per_kWh":0.3,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":null,"time_end":{"t":"2025-09-04T03:00:00+02:00"}},
+                 {"SEK_per_kWh":0.4,"EUR_per_kWh":0.04,"EXR":10.0,"time_start":"2025-09-04T03:00:00+02:00","time_end":"2025-09-04T04:00:00+02:00"}]""";
+
+        assertThat(PriceJsonParser.parse(json)).extracting(ElpriserAPI.Elpris::sekPerKWh).containsExactly(0.4);
+    }
+
+    private static String quarterHourDay() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 96; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            ZonedDateTime start = ZonedDateTime.parse("2025-09-04T00:00:00+02:00").plusMinutes(15L * i);
+            double sek = ((i * 7919) % 100_000) / 100_000.0 - 0.05;
+            json.append(String.format(Locale.US,
+                    "{\"SEK_per_kWh\":%.5f,\"EUR_per_kWh\":%.5f,\"EXR\":11.123456,\"time_start\":\"%s\",\"time_end\":\"%s\"}",
+                    sek, sek / 11.123456, start, start.plusMinutes(15)));
+        }
+        return json.append(']').toString();
+    }
+
+    /** Den tidigare split-baserade parsern i ElpriserAPI, används som facit. */
+    private static List<ElpriserAPI.Elpris> referenceParse(String json) {
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        String content = json.trim();
+        content = content.substring(1, content.length() - 1).trim();
+        for (String objStr : content.split("}\\s*,\\s*\\{")) {
+            String cleanObjStr = objStr.replace("{", "").replace("}", "");
+            Map<String, String> valueMap = new HashMap<>();
+            for (String pair : cleanObjStr.split(",")) {
+                String[] keyValue = pair.split(":", 2);
+                valueMap.put(keyValue[0].trim().replace("\"", ""), keyValue[1].trim().replace("\"", ""));
+            }
+            priser.add(new ElpriserAPI.Elpris(
+                    Double.parseDouble(valueMap.get("SEK_per_kWh")),
+                    Double.parseDouble(valueMap.get("EUR_per_kWh")),
+                    Double.parseDouble(valueMap.get("EXR")),
+                    ZonedDateTime.parse(valueMap.get("time_start")),
+                    ZonedDateTime.parse(valueMap.get("time_end"))));
+        }
+        return priser;
+    }
+}
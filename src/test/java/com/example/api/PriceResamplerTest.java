@@ -0,0 +1,104 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceResamplerTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    // En dag med fast intervall där priset är periodens index i öre
+    private static PriceSeries dag(LocalDate datum, int intervalSeconds) {
+        long start = datum.atStartOfDay(STOCKHOLM).toEpochSecond();
+        long slut = datum.plusDays(1).atStartOfDay(STOCKHOLM).toEpochSecond();
+        int n = (int) ((slut - start) / intervalSeconds);
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] starttider = new long[n];
+        for (int i = 0; i < n; i++) {
+            sek[i] = i / 100.0;
+            eur[i] = i / 1000.0;
+            exr[i] = 10.0;
+            starttider[i] = start + (long) i * intervalSeconds;
+        }
+        return PriceSeries.of(sek, eur, exr, starttider, intervalSeconds, STOCKHOLM);
+    }
+
+    @Test
+    void springForwardDayHas92QuartersAnd23Hours() {
+        PriceSeries kvartar = dag(LocalDate.of(2025, 3, 30), 900);
+        assertThat(kvartar.size()).isEqualTo(92);
+
+        PriceSeries timmar = kvartar.resample(PriceResampler.Resolution.HOUR);
+
+        assertThat(timmar.size()).isEqualTo(23);
+        assertThat(timmar.intervalSeconds()).isEqualTo(3600);
+        assertThat(timmar.timeStart(1).getHour()).isEqualTo(1);
+        assertThat(timmar.timeStart(2).getHour()).isEqualTo(3);
+        assertThat(timmar.sekPerKWh(2)).isCloseTo((8 + 9 + 10 + 11) / 400.0, within(1e-12));
+        assertThat(timmar.eurPerKWh(22)).isCloseTo((88 + 89 + 90 + 91) / 4000.0, within(1e-12));
+
+        PriceSeries dygn = kvartar.resample(PriceResampler.Resolution.DAY);
+        assertThat(dygn.size()).isEqualTo(1);
+        assertThat(dygn.endEpochSecond(0) - dygn.startEpochSecond(0)).isEqualTo(23 * 3600);
+        assertThat(dygn.sekPerKWh(0)).isCloseTo(91 / 200.0, within(1e-12));
+    }
+
+    @Test
+    void fallBackDayKeepsBothTwoOClockHoursApart() {
+        PriceSeries kvartar = dag(LocalDate.of(2025, 10, 26), 900);
+        assertThat(kvartar.size()).isEqualTo(100);
+
+        PriceSeries timmar = kvartar.resample(PriceResampler.Resolution.HOUR);
+
+        assertThat(timmar.size()).isEqualTo(25);
+        assertThat(timmar.timeStart(2).getHour()).isEqualTo(2);
+        assertThat(timmar.timeStart(3).getHour()).isEqualTo(2);
+        assertThat(timmar.timeStart(3).getOffset()).isNotEqualTo(timmar.timeStart(2).getOffset());
+        assertThat(timmar.sekPerKWh(2)).isCloseTo((8 + 9 + 10 + 11) / 400.0, within(1e-12));
+        assertThat(timmar.sekPerKWh(3)).isCloseTo((12 + 13 + 14 + 15) / 400.0, within(1e-12));
+        assertThat(timmar.timeStart(24).getHour()).isEqualTo(23);
+    }
+
+    @Test
+    void upsamplesHoursToQuartersAndMixesResolutions() {
+        PriceSeries timmar = dag(LocalDate.of(2025, 9, 30), 3600);
+        PriceSeries kvartar = dag(LocalDate.of(2025, 10, 1), 900);
+        PriceSeries blandad = PriceSeries.concat(List.of(timmar, kvartar));
+        assertThat(blandad.intervalSeconds()).isZero();
+
+        PriceSeries jämn = blandad.resample(PriceResampler.Resolution.QUARTER_HOUR);
+
+        assertThat(jämn.size()).isEqualTo(96 + 96);
+        assertThat(jämn.intervalSeconds()).isEqualTo(900);
+        assertThat(jämn.sekPerKWh(4)).isEqualTo(jämn.sekPerKWh(7)).isEqualTo(timmar.sekPerKWh(1));
+        assertThat(jämn.slice(96, 192).asList()).isEqualTo(kvartar.asList());
+
+        PriceSeries perTimme = blandad.resample(PriceResampler.Resolution.HOUR);
+        assertThat(perTimme.size()).isEqualTo(48);
+        assertThat(perTimme.slice(0, 24).asList()).isEqualTo(timmar.asList());
+    }
+
+    @Test
+    void weeksStartOnMondayAndAreTimeWeighted() {
+        // Söndag 2025-03-30 (23 timmar) följt av måndag 2025-03-31 (24 timmar)
+        PriceSeries söndag = dag(LocalDate.of(2025, 3, 30), 3600);
+        PriceSeries måndag = dag(LocalDate.of(2025, 3, 31), 3600);
+
+        PriceSeries veckor = PriceSeries.concat(List.of(söndag, måndag)).resample(PriceResampler.Resolution.WEEK);
+
+        assertThat(veckor.size()).isEqualTo(2);
+        assertThat(veckor.timeStart(0).toLocalDate()).isEqualTo(LocalDate.of(2025, 3, 24));
+        assertThat(veckor.timeStart(1).toLocalDate()).isEqualTo(LocalDate.of(2025, 3, 31));
+        assertThat(veckor.sekPerKWh(0)).isCloseTo(11 / 100.0, within(1e-12));
+        assertThat(veckor.sekPerKWh(1)).isCloseTo(11.5 / 100.0, within(1e-12));
+        assertThat(PriceSeries.empty().resample(PriceResampler.Resolution.DAY).isEmpty()).isTrue();
+    }
+}
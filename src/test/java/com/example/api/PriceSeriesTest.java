@@ -0,0 +1,53 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceSeriesTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    private static List<ElpriserAPI.Elpris> dag(LocalDate datum, int perioder, int minuter) {
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        ZonedDateTime start = datum.atStartOfDay(STOCKHOLM);
+        for (int i = 0; i < perioder; i++) {
+            priser.add(new ElpriserAPI.Elpris(0.1 + i * 0.01, 0.01 + i * 0.001, 11.0,
+                    start.plusMinutes((long) i * minuter), start.plusMinutes((long) (i + 1) * minuter)));
+        }
+        return priser;
+    }
+
+    @Test
+    void roundTripsElprisListThroughColumns() {
+        List<ElpriserAPI.Elpris> priser = dag(LocalDate.of(2025, 9, 4), 96, 15);
+
+        PriceSeries serie = PriceSeries.of(priser);
+
+        assertThat(serie.size()).isEqualTo(96);
+        assertThat(serie.intervalSeconds()).isEqualTo(900);
+        assertThat(serie.asList()).isEqualTo(priser);
+    }
+
+    @Test
+    void concatAndForDateSelectOneDay() {
+        LocalDate idag = LocalDate.of(2025, 9, 4);
+        PriceSeries serie = PriceSeries.concat(List.of(
+                PriceSeries.of(dag(idag, 24, 60)),
+                PriceSeries.of(dag(idag.plusDays(1), 24, 60))));
+
+        PriceSeries imorgon = serie.forDate(idag.plusDays(1));
+
+        assertThat(serie.size()).isEqualTo(48);
+        assertThat(imorgon.size()).isEqualTo(24);
+        assertThat(imorgon.timeStart(0)).isEqualTo(idag.plusDays(1).atStartOfDay(STOCKHOLM));
+        assertThat(imorgon.sekPerKWh(0)).isEqualTo(0.1);
+        assertThat(imorgon.slice(2, 4).sekPerKWhArray()).containsExactly(0.1 + 2 * 0.01, 0.1 + 3 * 0.01);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResilientHttpTest {
+
+    private static final LocalDate DAG = LocalDate.of(2025, 9, 4);
+    private static final String JSON = """
+            [{"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+             {"SEK_per_kWh":0.20,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"}]""";
+
+    // Svaren som stubbservern ger i tur och ordning; det sista upprepas
+    private final List<Integer> statuskoder = new CopyOnWriteArrayList<>();
+    private final List<String> acceptEncoding = new CopyOnWriteArrayList<>();
+    private final AtomicInteger anrop = new AtomicInteger();
+    private volatile Duration fördröjning = Duration.ZERO;
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::svara);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void svara(HttpExchange exchange) throws IOException {
+        int nummer = anrop.getAndIncrement();
+        acceptEncoding.add(String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+        try {
+            Thread.sleep(fördröjning.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int status = statuskoder.get(Math.min(nummer, statuskoder.size() - 1));
+        if (status != 200) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        ByteArrayOutputStream komprimerat = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(komprimerat)) {
+            gzip.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, komprimerat.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            komprimerat.writeTo(out);
+        }
+    }
+
+    private ElpriserAPI.Builder api() {
+        return ElpriserAPI.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/prices")
+                .retries(2, Duration.ofMillis(1));
+    }
+
+    @Test
+    void retriesServerErrorsAndDecodesGzip() {
+        statuskoder.addAll(List.of(503, 500, 200));
+
+        PriceSeries priser = api().caching(false).build().getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3);
+
+        assertThat(priser.size()).isEqualTo(2);
+        assertThat(priser.sekPerKWh(1)).isEqualTo(0.20);
+        assertThat(anrop.get()).isEqualTo(3);
+        assertThat(acceptEncoding).allMatch(värde -> värde.contains("gzip"));
+    }
+
+    @Test
+    void givesUpAfterTheRequestTimeout() {
+        statuskoder.add(200);
+        fördröjning = Duration.ofSeconds(2);
+        ElpriserAPI api = api().caching(false).retries(0, Duration.ZERO).requestTimeout(Duration.ofMillis(100)).build();
+
+        long start = System.nanoTime();
+        PriceSeries priser = api.getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3);
+
+        assertThat(priser.isEmpty()).isTrue();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1500));
+    }
+
+    @Test
+    void openCircuitServesStaleCacheWithoutCallingUpstream(@TempDir Path dir) throws IOException {
+        // En vanlig fil som cachekatalog gör att inget kan sparas på disk, bara i minnet
+        Path ingenKatalog = Files.createFile(dir.resolve("fil"));
+        MutableClock clock = new MutableClock(Instant.parse("2025-09-04T08:00:00Z"), ZoneId.of("Europe/Stockholm"));
+        ElpriserAPI api = api().diskCacheDir(ingenKatalog).clock(clock).aktuellTtl(Duration.ofHours(1))
+                .retries(0, Duration.ZERO).circuitBreaker(2, Duration.ofMinutes(1)).build();
+        statuskoder.addAll(List.of(200, 500));
+
+        PriceSeries färska = api.getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3);
+        clock.advance(Duration.ofHours(2));
+
+        assertThat(api.getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3).asList()).isEqualTo(färska.asList());
+        assertThat(api.getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3).asList()).isEqualTo(färska.asList());
+        assertThat(anrop.get()).isEqualTo(3);
+
+        // Kretsen är öppen: inga nya anrop, utgångna priser om de finns och annars ingenting
+        assertThat(api.getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3).asList()).isEqualTo(färska.asList());
+        assertThat(api.getPriceSeries(DAG.plusDays(1), ElpriserAPI.Prisklass.SE3).isEmpty()).isTrue();
+        assertThat(anrop.get()).isEqualTo(3);
+
+        // Efter öppentiden släpps ett provanrop igenom
+        statuskoder.add(200);
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(api.getPriceSeries(DAG, ElpriserAPI.Prisklass.SE3).size()).isEqualTo(2);
+        assertThat(anrop.get()).isEqualTo(4);
+    }
+}
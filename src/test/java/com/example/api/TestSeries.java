@@ -0,0 +1,42 @@
+package com.example.api;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Prisserier för tester: jämna perioder från midnatt i svensk tid, med tomma EUR- och
+ * växelkurskolumner.
+ */
+public final class TestSeries {
+
+    public static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+    public static final LocalDate DAG = LocalDate.of(2025, 9, 4);
+    public static final Instant MIDNATT = DAG.atStartOfDay(STOCKHOLM).toInstant();
+
+    private TestSeries() {
+    }
+
+    /** En period per timme från midnatt den 4 september 2025. */
+    public static PriceSeries hourly(double... priser) {
+        return of(DAG, priser, 3600);
+    }
+
+    /** En period per kvart från midnatt den 4 september 2025. */
+    public static PriceSeries quarterly(double... priser) {
+        return of(DAG, priser, 900);
+    }
+
+    /**
+     * Perioder på {@code periodSekunder} från midnatt {@code dag}, utan hänsyn till sommartid,
+     * så ett dygn med 25 timmar blir 25 perioder.
+     */
+    public static PriceSeries of(LocalDate dag, double[] priser, int periodSekunder) {
+        long[] start = new long[priser.length];
+        long första = dag.atStartOfDay(STOCKHOLM).toEpochSecond();
+        for (int i = 0; i < priser.length; i++) {
+            start[i] = första + (long) i * periodSekunder;
+        }
+        return PriceSeries.of(priser, new double[priser.length], new double[priser.length], start, periodSekunder, STOCKHOLM);
+    }
+}
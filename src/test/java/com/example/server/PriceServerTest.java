@@ -0,0 +1,114 @@
+package com.example.server;
+
+import com.example.api.ElpriserAPI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceServerTest {
+
+    private static final String MOCK_IDAG = """
+            [{"SEK_per_kWh":0.30,"EUR_per_kWh":0.03,"EXR":10.0,"time_start":"2025-09-04T21:00:00+02:00","time_end":"2025-09-04T22:00:00+02:00"},
+             {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T22:00:00+02:00","time_end":"2025-09-04T23:00:00+02:00"},
+             {"SEK_per_kWh":0.20,"EUR_per_kWh":0.02,"EXR":10.0,"time_start":"2025-09-04T23:00:00+02:00","time_end":"2025-09-05T00:00:00+02:00"}]""";
+    private static final String MOCK_IMORGON = """
+            [{"SEK_per_kWh":0.05,"EUR_per_kWh":0.005,"EXR":10.0,"time_start":"2025-09-05T00:00:00+02:00","time_end":"2025-09-05T01:00:00+02:00"},
+             {"SEK_per_kWh":0.40,"EUR_per_kWh":0.04,"EXR":10.0,"time_start":"2025-09-05T01:00:00+02:00","time_end":"2025-09-05T02:00:00+02:00"}]""";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private PriceServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), MOCK_IDAG);
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 5), MOCK_IMORGON);
+        server = PriceServer.start(new ElpriserAPI(true, Path.of("target", "server-test-cache")), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(Duration.ZERO);
+        ElpriserAPI.clearMockResponse();
+    }
+
+    private HttpResponse<String> get(String path, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void servesPrices_andAnswers304ForMatchingEtagOrDate() throws Exception {
+        HttpResponse<String> svar = get("/api/prices?zone=SE3&date=2025-09-04");
+
+        assertThat(svar.statusCode()).isEqualTo(200);
+        assertThat(svar.headers().firstValue("Content-Type")).hasValue("application/json; charset=utf-8");
+        assertThat(svar.body()).startsWith("{\"zone\":\"SE3\",\"date\":\"2025-09-04\",\"prices\":[")
+                .contains("{\"time_start\":\"2025-09-04T22:00:00+02:00\",\"time_end\":\"2025-09-04T23:00:00+02:00\",\"SEK_per_kWh\":0.1,");
+        String etag = svar.headers().firstValue("ETag").orElseThrow();
+        String lastModified = svar.headers().firstValue("Last-Modified").orElseThrow();
+
+        HttpResponse<String> sammaEtag = get("/api/prices?zone=SE3&date=2025-09-04", "If-None-Match", etag);
+        HttpResponse<String> sammaDatum = get("/api/prices?zone=SE3&date=2025-09-04", "If-Modified-Since", lastModified);
+        HttpResponse<String> annanEtag = get("/api/prices?zone=SE3&date=2025-09-04", "If-None-Match", "\"annan\"");
+
+        assertThat(sammaEtag.statusCode()).isEqualTo(304);
+        assertThat(sammaEtag.body()).isEmpty();
+        assertThat(sammaDatum.statusCode()).isEqualTo(304);
+        assertThat(annanEtag.statusCode()).isEqualTo(200);
+        assertThat(annanEtag.headers().firstValue("ETag")).hasValue(etag);
+    }
+
+    @Test
+    void servesStatsAndChargingWindowAcrossMidnight() throws Exception {
+        HttpResponse<String> stats = get("/api/stats?zone=se3&date=2025-09-04");
+        HttpResponse<String> laddning = get("/api/charging?zone=SE3&date=2025-09-04&duration=2h");
+
+        assertThat(stats.statusCode()).isEqualTo(200);
+        assertThat(stats.body())
+                .contains("\"count\":3")
+                .contains("\"min\":{\"time_start\":\"2025-09-04T22:00:00+02:00\"")
+                .contains("\"max\":{\"time_start\":\"2025-09-04T21:00:00+02:00\"");
+        assertThat(laddning.statusCode()).isEqualTo(200);
+        assertThat(laddning.body())
+                .contains("\"slots\":2")
+                .contains("\"start\":\"2025-09-04T23:00:00+02:00\"")
+                .contains("\"end\":\"2025-09-05T01:00:00+02:00\"");
+    }
+
+    @Test
+    void rejectsBadParameters_andReports404WithoutData() throws Exception {
+        assertThat(get("/api/prices?zone=SE5&date=2025-09-04").statusCode()).isEqualTo(400);
+        assertThat(get("/api/prices?zone=SE3&date=04-09-2025").statusCode()).isEqualTo(400);
+        assertThat(get("/api/charging?zone=SE3&date=2025-09-04&duration=snart").statusCode()).isEqualTo(400);
+        assertThat(get("/api/prices?zone=SE3&date=2025-09-06").statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void handlesManyConcurrentRequests() {
+        List<CompletableFuture<HttpResponse<Void>>> svar = new ArrayList<>();
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + server.port() + "/api/stats?zone=SE3&date=2025-09-04")).build();
+        for (int i = 0; i < 500; i++) {
+            svar.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+
+        assertThat(svar).allSatisfy(f -> assertThat(f.join().statusCode()).isEqualTo(200));
+    }
+}